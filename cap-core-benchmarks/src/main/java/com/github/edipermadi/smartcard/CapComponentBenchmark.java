@@ -0,0 +1,74 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapDecodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per component parsing cost, excluding ZIP inflation. Run with {@code -prof gc} to get allocation per component.
+ * Debug component parsing is measured by {@link CapDebugBenchmark}, since only one profile has it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapComponentBenchmark {
+    @Param({"SMALL", "LIBRARY", "DEBUG"})
+    public CapCorpus.Profile profile;
+
+    private ByteBuffer header;
+    private ByteBuffer directory;
+    private ByteBuffer applet;
+    private ByteBuffer method;
+    private ByteBuffer descriptor;
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] archive = CapCorpus.archive(profile);
+        header = CapCorpus.component(archive, CapDecoderImplBase.COMPONENT_Header);
+        directory = CapCorpus.component(archive, CapDecoderImplBase.COMPONENT_Directory);
+        applet = CapCorpus.component(archive, CapDecoderImplBase.COMPONENT_Applet);
+        method = CapCorpus.component(archive, CapDecoderImplBase.COMPONENT_Method);
+        descriptor = CapCorpus.component(archive, CapDecoderImplBase.COMPONENT_Descriptor);
+    }
+
+    @Benchmark
+    public Cap.Header decodeHeader() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapHeader(header);
+    }
+
+    @Benchmark
+    public Cap.Directory decodeDirectory() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapDirectory(directory);
+    }
+
+    @Benchmark
+    public Cap.Applet decodeApplet() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapApplet(applet);
+    }
+
+    @Benchmark
+    public Cap.Method decodeMethod() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapMethod(method, descriptor);
+    }
+
+    @Benchmark
+    public Cap.Descriptor decodeDescriptor() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapDescriptor(descriptor);
+    }
+}
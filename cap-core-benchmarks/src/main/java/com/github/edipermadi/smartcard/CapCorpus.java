@@ -0,0 +1,393 @@
+package com.github.edipermadi.smartcard;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic CAP corpus for benchmarks. Archives are derived from a real applet CAP, larger profiles are produced
+ * by appending a synthetic class whose methods are added to method and descriptor components. Debug profile is
+ * derived from a minimal CAP 2.2 library instead, since only a CAP 2.2 directory records debug component size: the
+ * synthetic class becomes an applet with class, method, descriptor and debug components built from scratch. Grown
+ * components stay well-formed and within their u2 size, directory component sizes are updated accordingly.
+ */
+public final class CapCorpus {
+    private static final String SAMPLE = "/ykneo-oath-1.0.0.cap";
+    private static final String SAMPLE_2_2 = "/minimal-2.2.cap";
+
+    /* synthetic class follows signature_pool_length of class component */
+    private static final int CLASS_OFFSET = 2;
+
+    /* synthetic method layout, 2 bytes header followed by sspush/pop groups, nop and return */
+    private static final int METHOD_SIZE = 64;
+    private static final int METHOD_GROUPS = 15;
+
+    /**
+     * CAP size profiles
+     */
+    public enum Profile {
+        /**
+         * Small applet CAP, as produced by converter
+         */
+        SMALL(0, false),
+
+        /**
+         * Large library CAP with big method and descriptor components
+         */
+        LIBRARY(700, false),
+
+        /**
+         * Debug enabled build dominated by debug component
+         */
+        DEBUG(300, true);
+
+        private final int methodCount;
+        private final boolean debug;
+
+        Profile(final int methodCount, final boolean debug) {
+            this.methodCount = methodCount;
+            this.debug = debug;
+        }
+    }
+
+    private CapCorpus() {
+    }
+
+    /**
+     * Build CAP archive of given profile
+     *
+     * @param profile CAP size profile
+     * @return CAP archive content
+     * @throws IOException when sample CAP can not be read
+     */
+    static byte[] archive(final Profile profile) throws IOException {
+        final String sample = profile.debug ? SAMPLE_2_2 : SAMPLE;
+        final InputStream is = CapCorpus.class.getResourceAsStream(sample);
+        if (is == null) {
+            throw new IOException("sample CAP not found " + sample);
+        }
+
+        /* read sample, keeping entry order */
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        String prefix = "";
+        final ZipInputStream zis = new ZipInputStream(is);
+        try {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                final String name = ze.getName();
+                entries.put(name, IOUtils.toByteArray(zis));
+                if (name.endsWith("/" + CapDecoderImplBase.COMPONENT_Header)) {
+                    prefix = name.substring(0, name.length() - CapDecoderImplBase.COMPONENT_Header.length());
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(zis);
+        }
+
+        if (profile.debug) {
+            debugApplet(entries, prefix, profile.methodCount, new Random(profile.ordinal()));
+        } else if (profile.methodCount > 0) {
+            final Random random = new Random(profile.ordinal());
+            final String methodName = prefix + CapDecoderImplBase.COMPONENT_Method;
+            final String descriptorName = prefix + CapDecoderImplBase.COMPONENT_Descriptor;
+            final byte[] method = entries.get(methodName);
+            final int firstOffset = method.length - 3;
+
+            entries.put(methodName, growMethod(method, profile.methodCount, random));
+            entries.put(descriptorName, growDescriptor(entries.get(descriptorName), firstOffset,
+                    profile.methodCount, 0x7f00));
+
+            final String directoryName = prefix + CapDecoderImplBase.COMPONENT_Directory;
+            final byte[] directory = entries.get(directoryName);
+            setComponentSize(directory, CapDecoderImplBase.TAG_COMPONENT_Method, entries.get(methodName));
+            setComponentSize(directory, CapDecoderImplBase.TAG_COMPONENT_Descriptor, entries.get(descriptorName));
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ZipOutputStream zos = new ZipOutputStream(baos);
+        try {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue());
+                zos.closeEntry();
+            }
+        } finally {
+            IOUtils.closeQuietly(zos);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Extract raw component payload out of CAP archive
+     *
+     * @param archive CAP archive content
+     * @param name    component file name
+     * @return component payload
+     * @throws IOException when component is missing
+     */
+    static ByteBuffer component(final byte[] archive, final String name) throws IOException {
+        final ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive));
+        try {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                if (ze.getName().endsWith("/" + name)) {
+                    return ByteBuffer.wrap(IOUtils.toByteArray(zis));
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(zis);
+        }
+        throw new IOException("component not found " + name);
+    }
+
+    /**
+     * Turn CAP 2.2 library sample into an applet whose single class holds synthetic methods, described by debug
+     * component. Constant pool and reference location components are empty, synthetic methods reference neither.
+     */
+    private static void debugApplet(final Map<String, byte[]> entries, final String prefix, final int methodCount,
+                                    final Random random) throws IOException {
+        /* header: tag, size, magic, version, flags, package version, AID length, AID, name length, name */
+        final byte[] header = entries.get(prefix + CapDecoderImplBase.COMPONENT_Header);
+        header[9] |= 0x04;
+        final int aidLength = header[12] & 0xff;
+        final byte[] packageAid = Arrays.copyOfRange(header, 13, 13 + aidLength);
+        final String packageName = new String(header, 14 + aidLength, header[13 + aidLength] & 0xff,
+                StandardCharsets.UTF_8);
+
+        /* install method is the first synthetic method, following handler_count */
+        final int firstOffset = 1;
+        final ByteArrayOutputStream applet = new ByteArrayOutputStream();
+        applet.write(1);
+        applet.write(aidLength + 1);
+        applet.write(packageAid);
+        applet.write(1);
+        applet.write(0);
+        applet.write(firstOffset);
+
+        /* class of flags 0 and no interface, extending java.lang.Object of first imported package, no method table */
+        final byte[] classInfo = {0, 0, 0x00, (byte) 0x80, 0x00, 0, (byte) 0xff, 0, 0, 0, 0, 0};
+
+        /* no class, no constant pool type, single ()V type descriptor */
+        final byte[] descriptor = component(CapDecoderImplBase.TAG_COMPONENT_Descriptor,
+                new byte[]{0, 0, 0, 0x01, 0x10});
+
+        final Map<Integer, byte[]> components = new LinkedHashMap<>();
+        components.put(CapDecoderImplBase.TAG_COMPONENT_Applet,
+                component(CapDecoderImplBase.TAG_COMPONENT_Applet, applet.toByteArray()));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_Class,
+                component(CapDecoderImplBase.TAG_COMPONENT_Class, classInfo));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_Method,
+                growMethod(component(CapDecoderImplBase.TAG_COMPONENT_Method, new byte[]{0}), methodCount, random));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_ConstantPool,
+                component(CapDecoderImplBase.TAG_COMPONENT_ConstantPool, new byte[]{0, 0}));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_ReferenceLocation,
+                component(CapDecoderImplBase.TAG_COMPONENT_ReferenceLocation, new byte[]{0, 0, 0, 0}));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_Descriptor,
+                growDescriptor(descriptor, firstOffset, methodCount, CLASS_OFFSET));
+        components.put(CapDecoderImplBase.TAG_COMPONENT_Debug, debug(packageName, firstOffset, methodCount));
+
+        /* directory: 12 component sizes, static field size info, import_count then applet_count */
+        final byte[] directory = entries.get(prefix + CapDecoderImplBase.COMPONENT_Directory);
+        directory[3 + CapDecoderImplBase.DIRECTORY_COMPONENT_COUNT_2_2 * 2 + 7] = 1;
+        for (final Map.Entry<Integer, byte[]> e : components.entrySet()) {
+            setComponentSize(directory, e.getKey(), e.getValue());
+            entries.put(prefix + fileName(e.getKey()), e.getValue());
+        }
+    }
+
+    private static String fileName(final int tag) {
+        for (final CapComponentType type : CapComponentType.values()) {
+            if (type.getTag() == tag) {
+                return type.getFileName();
+            }
+        }
+        throw new IllegalArgumentException("unknown component tag " + tag);
+    }
+
+    /**
+     * Append synthetic methods to method component
+     */
+    private static byte[] growMethod(final byte[] payload, final int methodCount, final Random random)
+            throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        dos.write(payload, 3, payload.length - 3);
+        for (int i = 0; i < methodCount; i++) {
+            /* max_stack 2, nargs 1, max_locals 1 */
+            dos.writeByte(0x02);
+            dos.writeByte(0x11);
+            for (int j = 0; j < METHOD_GROUPS; j++) {
+                /* sspush, pop */
+                dos.writeByte(0x11);
+                dos.writeShort(random.nextInt(0x400));
+                dos.writeByte(0x3b);
+            }
+            /* nop, return */
+            dos.writeByte(0x00);
+            dos.writeByte(0x7a);
+        }
+        return component(CapDecoderImplBase.TAG_COMPONENT_Method, baos.toByteArray());
+    }
+
+    /**
+     * Insert descriptor of synthetic class after existing class descriptors, type descriptor offsets are relative
+     * to type descriptor info hence remain valid. Synthetic methods share type of the first described method, or
+     * the first type descriptor when no method is described.
+     */
+    private static byte[] growDescriptor(final byte[] payload, final int firstOffset, final int methodCount,
+                                         final int thisClassRef) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(payload);
+        buffer.position(3);
+        final int classCount = buffer.get() & 0xff;
+        int firstTypeOffset = -1;
+        for (int i = 0; i < classCount; i++) {
+            buffer.position(buffer.position() + 4);
+            final int interfaceCount = buffer.get() & 0xff;
+            final int fieldCount = buffer.getShort() & 0xffff;
+            final int count = buffer.getShort() & 0xffff;
+            buffer.position(buffer.position() + interfaceCount * 2 + fieldCount * 7);
+            for (int j = 0; j < count; j++) {
+                buffer.position(buffer.position() + 4);
+                final int typeOffset = buffer.getShort() & 0xffff;
+                if (firstTypeOffset < 0) {
+                    firstTypeOffset = typeOffset;
+                }
+                buffer.position(buffer.position() + 6);
+            }
+        }
+        final int typesStart = buffer.position();
+        if (firstTypeOffset < 0) {
+            firstTypeOffset = 2 + (buffer.getShort() & 0xffff) * 2;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeByte(classCount + 1);
+        dos.write(payload, 4, typesStart - 4);
+
+        /* token, ACC_PUBLIC, this_class_ref, no interface, no field */
+        dos.writeByte(classCount);
+        dos.writeByte(0x01);
+        dos.writeShort(thisClassRef | classCount);
+        dos.writeByte(0);
+        dos.writeShort(0);
+        dos.writeShort(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            dos.writeByte(i);
+            dos.writeByte(0x01);
+            dos.writeShort(firstOffset + i * METHOD_SIZE);
+            dos.writeShort(firstTypeOffset);
+            dos.writeShort(METHOD_SIZE - 2);
+            dos.writeShort(0);
+            dos.writeShort(0);
+        }
+
+        dos.write(payload, typesStart, payload.length - typesStart);
+        return component(CapDecoderImplBase.TAG_COMPONENT_Descriptor, baos.toByteArray());
+    }
+
+    /**
+     * Build debug component describing synthetic methods, one line per sspush/pop group and one local variable
+     */
+    private static byte[] debug(final String packageName, final int firstOffset, final int methodCount)
+            throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+
+        /* string table, method names follow fixed strings */
+        final String[] strings = {packageName, packageName + "/Synthetic", "java/lang/Object", "Synthetic.java",
+                "()V", "s", "S"};
+        dos.writeShort(strings.length + methodCount);
+        for (final String s : strings) {
+            utf8(dos, s);
+        }
+        for (int i = 0; i < methodCount; i++) {
+            utf8(dos, "method" + i);
+        }
+        dos.writeShort(0);
+
+        /* single class: name, access_flags, location, superclass, source file, interfaces, fields, methods */
+        dos.writeShort(1);
+        dos.writeShort(1);
+        dos.writeShort(0x0001);
+        dos.writeShort(CLASS_OFFSET);
+        dos.writeShort(2);
+        dos.writeShort(3);
+        dos.writeByte(0);
+        dos.writeShort(0);
+        dos.writeShort(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            dos.writeShort(strings.length + i);
+            dos.writeShort(4);
+            dos.writeShort(0x0001);
+            dos.writeShort(firstOffset + i * METHOD_SIZE);
+            dos.writeByte(2);
+            dos.writeShort(METHOD_SIZE - 2);
+            dos.writeShort(1);
+            dos.writeShort(METHOD_GROUPS + 1);
+
+            /* variable: index, name, descriptor, start_pc, length */
+            dos.writeByte(0);
+            dos.writeShort(5);
+            dos.writeShort(6);
+            dos.writeShort(0);
+            dos.writeShort(METHOD_SIZE - 2);
+
+            /* lines: start_pc, end_pc, source_line */
+            for (int j = 0; j < METHOD_GROUPS; j++) {
+                dos.writeShort(j * 4);
+                dos.writeShort(j * 4 + 3);
+                dos.writeShort(10 + i * 20 + j);
+            }
+            dos.writeShort(METHOD_GROUPS * 4);
+            dos.writeShort(METHOD_GROUPS * 4 + 1);
+            dos.writeShort(10 + i * 20 + METHOD_GROUPS);
+        }
+        return component(CapDecoderImplBase.TAG_COMPONENT_Debug, baos.toByteArray());
+    }
+
+    private static void utf8(final DataOutputStream dos, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        dos.writeShort(bytes.length);
+        dos.write(bytes);
+    }
+
+    /**
+     * Prepend tag and size to component info
+     */
+    private static byte[] component(final int tag, final byte[] info) throws IOException {
+        if (info.length > 0xffff) {
+            throw new IOException("component too large " + tag);
+        }
+        final byte[] payload = new byte[info.length + 3];
+        payload[0] = (byte) tag;
+        payload[1] = (byte) (info.length >> 8);
+        payload[2] = (byte) info.length;
+        System.arraycopy(info, 0, payload, 3, info.length);
+        return payload;
+    }
+
+    /**
+     * Update component size of directory component, component_sizes follows directory tag and size
+     */
+    private static void setComponentSize(final byte[] directory, final int tag, final byte[] payload) {
+        final int offset = 3 + (tag - 1) * 2;
+        final int size = payload.length - 3;
+        directory[offset] = (byte) (size >> 8);
+        directory[offset + 1] = (byte) size;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapDecodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debug component parsing cost, excluding ZIP inflation. Only profiles carrying a debug component are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapDebugBenchmark {
+    @Param({"DEBUG"})
+    public CapCorpus.Profile profile;
+
+    private ByteBuffer debug;
+
+    @Setup
+    public void setup() throws IOException {
+        debug = CapCorpus.component(CapCorpus.archive(profile), CapDecoderImplBase.COMPONENT_Debug);
+    }
+
+    @Benchmark
+    public Cap.Debug decodeDebug() throws CapDecodeException {
+        return CapDecoderImpl.decodeCapDebug(debug);
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole CAP decoding throughput, run with {@code -prof gc} to get allocation rate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapDecoderBenchmark {
+    @Param({"SMALL", "LIBRARY", "DEBUG"})
+    public CapCorpus.Profile profile;
+
+    private byte[] archive;
+    private Path file;
+    private CapDecoder eager;
+    private CapDecoder lazy;
+    private CapDecoder full;
+
+    @Setup
+    public void setup() throws IOException {
+        archive = CapCorpus.archive(profile);
+        file = Files.createTempFile("cap-benchmark-", ".cap");
+        Files.write(file, archive);
+        eager = new CapDecoderImpl();
+        lazy = new CapDecoderImpl(new CapDecodeOptions().setLazy(true));
+        full = new CapDecoderImpl(new CapDecodeOptions().setComponents(EnumSet.allOf(CapComponentType.class)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Cap decodeStream() throws CapException {
+        return eager.decode(new ByteArrayInputStream(archive));
+    }
+
+    @Benchmark
+    public Cap decodePath() throws CapException {
+        return eager.decode(file);
+    }
+
+    @Benchmark
+    public Cap decodePathLazy() throws CapException {
+        return lazy.decode(file);
+    }
+
+    @Benchmark
+    public Cap decodePathFull() throws CapException {
+        return full.decode(file);
+    }
+}
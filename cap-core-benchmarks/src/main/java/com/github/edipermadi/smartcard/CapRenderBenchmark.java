@@ -0,0 +1,47 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON rendering cost of decoded CAP
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapRenderBenchmark {
+    private Cap cap;
+
+    @Setup
+    public void setup() throws IOException, CapException {
+        final byte[] archive = CapCorpus.archive(CapCorpus.Profile.SMALL);
+        cap = new CapDecoderImpl().decode(new ByteArrayInputStream(archive));
+    }
+
+    @Benchmark
+    public String toJson() {
+        return cap.toString();
+    }
+
+    @Benchmark
+    public void writeJsonCompact() throws IOException {
+        new CapJsonWriter(NullWriter.NULL_WRITER, CapJsonWriter.Format.COMPACT).write(cap);
+    }
+}
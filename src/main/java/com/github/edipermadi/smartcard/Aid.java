@@ -0,0 +1,204 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Application identifier (AID) value type. The 5 to 16 bytes of AID are packed big-endian into two longs, hence
+ * no backing array is allocated and equality, hashing and ordering are a handful of primitive operations.
+ * Hex rendering is computed on demand by {@link #toString()}.
+ */
+public final class Aid implements Comparable<Aid> {
+    /**
+     * Minimum AID length in bytes
+     */
+    public static final int MIN_LENGTH = 5;
+
+    /**
+     * Maximum AID length in bytes
+     */
+    public static final int MAX_LENGTH = 16;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long hi;
+    private final long lo;
+    private final byte length;
+
+    private Aid(final long hi, final long lo, final int length) {
+        this.hi = hi;
+        this.lo = lo;
+        this.length = (byte) length;
+    }
+
+    /**
+     * Create AID out of bytes
+     *
+     * @param bytes AID bytes
+     * @return AID value
+     */
+    public static Aid valueOf(final byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("AID bytes is null");
+        }
+        return valueOf(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Create AID out of buffer content, using absolute access
+     *
+     * @param buffer buffer holding AID
+     * @param offset absolute offset of AID within buffer
+     * @param length AID length
+     * @return AID value
+     */
+    public static Aid valueOf(final ByteBuffer buffer, final int offset, final int length) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("AID buffer is null");
+        } else if ((length < MIN_LENGTH) || (length > MAX_LENGTH)) {
+            throw new IllegalArgumentException("invalid AID length " + length);
+        }
+
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < length; i++) {
+            final long b = buffer.get(offset + i) & 0xffL;
+            if (i < 8) {
+                hi |= b << (56 - (i << 3));
+            } else {
+                lo |= b << (56 - ((i - 8) << 3));
+            }
+        }
+        return new Aid(hi, lo, length);
+    }
+
+    /**
+     * Create AID out of hex string
+     *
+     * @param hex AID hex string, case insensitive
+     * @return AID value
+     */
+    public static Aid fromHex(final String hex) {
+        if ((hex == null) || ((hex.length() & 1) != 0)) {
+            throw new IllegalArgumentException("invalid AID hex string " + hex);
+        }
+
+        final byte[] bytes = new byte[hex.length() >> 1];
+        for (int i = 0; i < bytes.length; i++) {
+            final int h = Character.digit(hex.charAt(i << 1), 16);
+            final int l = Character.digit(hex.charAt((i << 1) + 1), 16);
+            if ((h < 0) || (l < 0)) {
+                throw new IllegalArgumentException("invalid AID hex string " + hex);
+            }
+            bytes[i] = (byte) ((h << 4) | l);
+        }
+        return valueOf(bytes);
+    }
+
+    /**
+     * Get AID length
+     *
+     * @return AID length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Get AID byte
+     *
+     * @param index byte index
+     * @return AID byte at index
+     */
+    public byte byteAt(final int index) {
+        if ((index < 0) || (index >= length)) {
+            throw new IndexOutOfBoundsException("invalid AID index " + index);
+        }
+        return (index < 8) ? (byte) (hi >>> (56 - (index << 3))) : (byte) (lo >>> (56 - ((index - 8) << 3)));
+    }
+
+    /**
+     * Get copy of AID bytes
+     *
+     * @return AID bytes
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Check whether this AID starts with another AID, such as applet AID within package RID
+     *
+     * @param prefix prefix AID
+     * @return true when prefix matches
+     */
+    public boolean startsWith(final Aid prefix) {
+        if (prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (byteAt(i) != prefix.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof Aid)) {
+            return false;
+        }
+        final Aid other = (Aid) o;
+        return (hi == other.hi) && (lo == other.lo) && (length == other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        final long h = (hi * 31 + lo) * 31 + length;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Compare AIDs in unsigned lexicographic order of their bytes
+     *
+     * @param other other AID
+     * @return comparison result
+     */
+    @Override
+    public int compareTo(final Aid other) {
+        final int c = compareUnsigned(hi, other.hi);
+        if (c != 0) {
+            return c;
+        }
+        final int d = compareUnsigned(lo, other.lo);
+        return (d != 0) ? d : (length - other.length);
+    }
+
+    /**
+     * Render AID as lower case hex string
+     *
+     * @return hex string
+     */
+    @Override
+    public String toString() {
+        final char[] out = new char[length << 1];
+        for (int i = 0, j = 0; i < length; i++) {
+            final int b = byteAt(i);
+            out[j++] = HEX_DIGITS[(b >> 4) & 0x0f];
+            out[j++] = HEX_DIGITS[b & 0x0f];
+        }
+        return new String(out);
+    }
+
+    private static int compareUnsigned(final long a, final long b) {
+        final long x = a ^ Long.MIN_VALUE;
+        final long y = b ^ Long.MIN_VALUE;
+        return (x < y) ? -1 : ((x == y) ? 0 : 1);
+    }
+}
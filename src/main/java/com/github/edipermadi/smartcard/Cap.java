@@ -1,6 +1,9 @@
 package com.github.edipermadi.smartcard;
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * CAP Object Interface
@@ -29,6 +32,125 @@ public interface Cap {
      */
     Applet getApplet();
 
+    /**
+     * Get CAP method component
+     *
+     * @return CAP method component or null when absent or not selected
+     */
+    default Method getMethod() {
+        return null;
+    }
+
+    /**
+     * Get CAP constant pool component
+     *
+     * @return CAP constant pool component or null when absent or not selected
+     */
+    default ConstantPool getConstantPool() {
+        return null;
+    }
+
+    /**
+     * Get CAP class component
+     *
+     * @return CAP class component or null when absent or not selected
+     */
+    default Class getClassComponent() {
+        return null;
+    }
+
+    /**
+     * Get CAP import component
+     *
+     * @return CAP import component or null when absent or not selected
+     */
+    default Import getImport() {
+        return null;
+    }
+
+    /**
+     * Get CAP export component
+     *
+     * @return CAP export component or null when absent or not selected
+     */
+    default Export getExport() {
+        return null;
+    }
+
+    /**
+     * Get CAP reference location component
+     *
+     * @return CAP reference location component or null when absent or not selected
+     */
+    default RefLocation getRefLocation() {
+        return null;
+    }
+
+    /**
+     * Get CAP static field component
+     *
+     * @return CAP static field component or null when absent or not selected
+     */
+    default StaticField getStaticField() {
+        return null;
+    }
+
+    /**
+     * Get CAP descriptor component
+     *
+     * @return CAP descriptor component or null when absent or not selected
+     */
+    default Descriptor getDescriptor() {
+        return null;
+    }
+
+    /**
+     * Get CAP debug component
+     *
+     * @return CAP debug component or null when absent or not selected
+     */
+    default Debug getDebug() {
+        return null;
+    }
+
+    /**
+     * Get raw payload of a selected component which is not materialized into CAP object
+     *
+     * @param type component type
+     * @return read-only component payload or null when component is absent or not selected
+     */
+    default ByteBuffer getRawComponent(final CapComponentType type) {
+        return null;
+    }
+
+    /**
+     * Get raw payload of custom components, see {@link CapDecodeOptions#setExtraEntries(boolean)}
+     *
+     * @return unmodifiable map of component file name to read-only component payload, in archive order
+     */
+    default Map<String, ByteBuffer> getCustomComponents() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Get raw content of archive manifest, see {@link CapDecodeOptions#setExtraEntries(boolean)}
+     *
+     * @return read-only content of META-INF/MANIFEST.MF or null when absent or not kept
+     */
+    default ByteBuffer getManifest() {
+        return null;
+    }
+
+    /**
+     * Get directory holding standard components within archive this CAP was decoded from, such as
+     * {@code com/example/javacard/}. It is kept so that re-encoding writes components back to where they were.
+     *
+     * @return directory ending with '/', empty when components are at archive root, null when unknown
+     */
+    default String getComponentDirectory() {
+        return null;
+    }
+
     /**
      * CAP header component interface
      *
@@ -79,9 +201,20 @@ public interface Cap {
             /**
              * Get CAP package AID
              *
-             * @return CAP package AID (hex string)
+             * @return CAP package AID in hex
+             * @deprecated use {@link #getAid()}, which does not render hex
              */
+            @Deprecated
             String getAID();
+
+            /**
+             * Get CAP package AID, default implementation parses {@link #getAID()}
+             *
+             * @return CAP package AID
+             */
+            default Aid getAid() {
+                return Aid.fromHex(getAID());
+            }
         }
 
         /**
@@ -161,12 +294,32 @@ public interface Cap {
              */
             int getTag();
 
+            /**
+             * Get size of custom component
+             *
+             * @return size of custom component, -1 when unknown
+             */
+            default int getSize() {
+                return -1;
+            }
+
             /**
              * Get component AID
              *
-             * @return component AID (hex string)
+             * @return component AID in hex
+             * @deprecated use {@link #getAid()}, which does not render hex
              */
+            @Deprecated
             String getAID();
+
+            /**
+             * Get component AID, default implementation parses {@link #getAID()}
+             *
+             * @return component AID
+             */
+            default Aid getAid() {
+                return Aid.fromHex(getAID());
+            }
         }
     }
 
@@ -192,10 +345,21 @@ public interface Cap {
             /**
              * get application identifier
              *
-             * @return application identifier (hex-string)
+             * @return application identifier in hex
+             * @deprecated use {@link #getAid()}, which does not render hex
              */
+            @Deprecated
             String getAID();
 
+            /**
+             * Get application identifier, default implementation parses {@link #getAID()}
+             *
+             * @return application identifier
+             */
+            default Aid getAid() {
+                return Aid.fromHex(getAID());
+            }
+
             /**
              * Get installation offset
              *
@@ -205,4 +369,1089 @@ public interface Cap {
         }
 
     }
+
+    /**
+     * CAP method component interface. Methods are indexed in ascending order of their offset, every per-method
+     * accessor takes method index. Offsets are relative to info item of method component, the same base used by
+     * install method offsets, constant pool references and descriptors.
+     *
+     * @author Edi Permadi
+     */
+    interface Method {
+        /**
+         * Get count of exception handlers
+         *
+         * @return count of exception handlers
+         */
+        int getExceptionHandlerCount();
+
+        /**
+         * Get start offset of exception handler try block
+         *
+         * @param handler exception handler index
+         * @return start offset
+         */
+        int getHandlerStartOffset(int handler);
+
+        /**
+         * Get length of exception handler try block
+         *
+         * @param handler exception handler index
+         * @return active length
+         */
+        int getHandlerActiveLength(int handler);
+
+        /**
+         * Check whether exception handler is the last one of its try block
+         *
+         * @param handler exception handler index
+         * @return stop bit
+         */
+        boolean isHandlerStop(int handler);
+
+        /**
+         * Get exception handler code offset
+         *
+         * @param handler exception handler index
+         * @return handler offset
+         */
+        int getHandlerOffset(int handler);
+
+        /**
+         * Get constant pool index of caught class, 0 for finally blocks
+         *
+         * @param handler exception handler index
+         * @return catch type index
+         */
+        int getHandlerCatchTypeIndex(int handler);
+
+        /**
+         * Get count of methods
+         *
+         * @return count of methods
+         */
+        int getMethodCount();
+
+        /**
+         * Get index of method starting at offset
+         *
+         * @param offset method offset, such as install method offset
+         * @return method index or -1 when no method starts at offset
+         */
+        int indexOf(int offset);
+
+        /**
+         * Get index of method whose header or bytecode contains offset
+         *
+         * @param offset any offset within method component info
+         * @return method index or -1 when offset is outside of every method
+         */
+        int indexOfContaining(int offset);
+
+        /**
+         * Get method offset
+         *
+         * @param method method index
+         * @return method offset
+         */
+        int getMethodOffset(int method);
+
+        /**
+         * Get method header flags
+         *
+         * @param method method index
+         * @return method flags
+         */
+        int getFlags(int method);
+
+        /**
+         * Check whether method uses extended header
+         *
+         * @param method method index
+         * @return true when method header is extended
+         */
+        boolean isExtended(int method);
+
+        /**
+         * Get maximum operand stack size
+         *
+         * @param method method index
+         * @return max stack
+         */
+        int getMaxStack(int method);
+
+        /**
+         * Get count of arguments, including this
+         *
+         * @param method method index
+         * @return count of arguments
+         */
+        int getNargs(int method);
+
+        /**
+         * Get count of locals, excluding arguments
+         *
+         * @param method method index
+         * @return count of locals
+         */
+        int getMaxLocals(int method);
+
+        /**
+         * Get offset of first bytecode of method
+         *
+         * @param method method index
+         * @return bytecode offset
+         */
+        int getBytecodeOffset(int method);
+
+        /**
+         * Get count of bytecode bytes of method
+         *
+         * @param method method index
+         * @return bytecode count
+         */
+        int getBytecodeCount(int method);
+
+        /**
+         * Get method bytecode
+         *
+         * @param method method index
+         * @return read-only view of method bytecode, sharing content with method component
+         */
+        ByteBuffer getBytecode(int method);
+
+        /**
+         * Get index of first exception handler of method
+         *
+         * @param method method index
+         * @return exception handler index
+         */
+        int getExceptionHandlerIndex(int method);
+
+        /**
+         * Get count of exception handlers of method
+         *
+         * @param method method index
+         * @return count of exception handlers
+         */
+        int getExceptionHandlerCount(int method);
+    }
+
+    /**
+     * CAP constant pool component interface. Entries are accessed by constant pool index, accessors never
+     * allocate. References are either internal, pointing to an offset within class or static field image or
+     * method component, or external, identified by package, class and member tokens of an imported package.
+     *
+     * @author Edi Permadi
+     */
+    interface ConstantPool {
+        int CONSTANT_Classref = 1;
+        int CONSTANT_InstanceFieldref = 2;
+        int CONSTANT_VirtualMethodref = 3;
+        int CONSTANT_SuperMethodref = 4;
+        int CONSTANT_StaticFieldref = 5;
+        int CONSTANT_StaticMethodref = 6;
+
+        /**
+         * Get count of constant pool entries
+         *
+         * @return count of entries
+         */
+        int getCount();
+
+        /**
+         * Get entry tag
+         *
+         * @param index constant pool index
+         * @return one of CONSTANT_* tags
+         */
+        int getTag(int index);
+
+        /**
+         * Check whether entry refers to an external package
+         *
+         * @param index constant pool index
+         * @return true when reference is external
+         */
+        boolean isExternal(int index);
+
+        /**
+         * Get package token of external reference
+         *
+         * @param index constant pool index
+         * @return package token, index into import component, or -1 when reference is internal
+         */
+        int getPackageToken(int index);
+
+        /**
+         * Get class token of external reference
+         *
+         * @param index constant pool index
+         * @return class token or -1 when reference is internal
+         */
+        int getClassToken(int index);
+
+        /**
+         * Get member token, available for instance field and method references as well as external static
+         * references
+         *
+         * @param index constant pool index
+         * @return field or method token or -1 when not available
+         */
+        int getMemberToken(int index);
+
+        /**
+         * Get offset of internal reference. Class references point into class component, static field references
+         * into static field image and static method references into method component.
+         *
+         * @param index constant pool index
+         * @return offset or -1 when reference is external
+         */
+        int getInternalOffset(int index);
+    }
+
+    /**
+     * CAP class component interface. Interfaces and classes are identified by their offset within class
+     * component info item, the same value held by internal class references, see {@link CapClassRef}.
+     * Type hierarchy of every class is precomputed at decoding time, hence hierarchy queries are a lookup plus a
+     * binary search. Ancestry beyond an external superclass is unknown, since it is described by export file of
+     * external package rather than by this CAP.
+     *
+     * @author Edi Permadi
+     */
+    interface Class {
+        int ACC_INTERFACE = 0x08;
+        int ACC_SHAREABLE = 0x04;
+        int ACC_REMOTE = 0x02;
+
+        /**
+         * Get interfaces declared by this package
+         *
+         * @return list of interface info, in order of offset
+         */
+        List<InterfaceInfo> getInterfaces();
+
+        /**
+         * Get classes declared by this package
+         *
+         * @return list of class info, in order of offset
+         */
+        List<ClassInfo> getClasses();
+
+        /**
+         * Get interface by offset
+         *
+         * @param offset interface offset
+         * @return interface info or null when no interface is declared at offset
+         */
+        InterfaceInfo getInterfaceInfo(int offset);
+
+        /**
+         * Get class by offset
+         *
+         * @param offset class offset
+         * @return class info or null when no class is declared at offset
+         */
+        ClassInfo getClassInfo(int offset);
+
+        /**
+         * Check whether class extends another class, directly or indirectly
+         *
+         * @param offset   class offset
+         * @param classRef superclass reference, see {@link CapClassRef}
+         * @return true when class at offset is a subclass of referenced class
+         */
+        boolean isSubclassOf(int offset, int classRef);
+
+        /**
+         * Check whether class implements an interface, directly or through its superclasses and superinterfaces,
+         * such as {@code javacard.framework.Shareable}
+         *
+         * @param offset       class offset
+         * @param interfaceRef interface reference, see {@link CapClassRef}
+         * @return true when class at offset implements referenced interface
+         */
+        boolean isImplementing(int offset, int interfaceRef);
+
+        /**
+         * Get classes of this package extending another class, directly or indirectly
+         *
+         * @param classRef superclass reference, see {@link CapClassRef}
+         * @return ascending offsets of subclasses, empty when there is none
+         */
+        int[] getSubclasses(int classRef);
+
+        /**
+         * Interface info interface
+         *
+         * @author Edi Permadi
+         */
+        interface InterfaceInfo {
+            /**
+             * Get interface offset
+             *
+             * @return offset within class component info item
+             */
+            int getOffset();
+
+            /**
+             * Get interface flags
+             *
+             * @return combination of ACC_INTERFACE, ACC_SHAREABLE and ACC_REMOTE
+             */
+            int getFlags();
+
+            /**
+             * Get superinterfaces
+             *
+             * @return superinterface references, see {@link CapClassRef}
+             */
+            int[] getSuperInterfaces();
+
+            /**
+             * Get name of remote interface
+             *
+             * @return interface name or null when interface is not remote
+             */
+            String getName();
+        }
+
+        /**
+         * Class info interface
+         *
+         * @author Edi Permadi
+         */
+        interface ClassInfo {
+            /**
+             * Get class offset
+             *
+             * @return offset within class component info item
+             */
+            int getOffset();
+
+            /**
+             * Get class flags
+             *
+             * @return combination of ACC_SHAREABLE and ACC_REMOTE
+             */
+            int getFlags();
+
+            /**
+             * Get superclass
+             *
+             * @return superclass reference, see {@link CapClassRef}, or {@link CapClassRef#NONE} for
+             * {@code java.lang.Object}
+             */
+            int getSuperClassRef();
+
+            /**
+             * Get size of instance fields declared by this class, in words
+             *
+             * @return declared instance size
+             */
+            int getDeclaredInstanceSize();
+
+            /**
+             * Get token of first reference type instance field
+             *
+             * @return first reference token or 0xff when there is none
+             */
+            int getFirstReferenceToken();
+
+            /**
+             * Get count of reference type instance fields
+             *
+             * @return reference count
+             */
+            int getReferenceCount();
+
+            /**
+             * Get token of first entry of public virtual method table
+             *
+             * @return public method table base
+             */
+            int getPublicMethodTableBase();
+
+            /**
+             * Get public virtual method table
+             *
+             * @return method offsets, 0xffff for methods inherited from external superclass
+             */
+            int[] getPublicVirtualMethodTable();
+
+            /**
+             * Get token of first entry of package virtual method table
+             *
+             * @return package method table base
+             */
+            int getPackageMethodTableBase();
+
+            /**
+             * Get package virtual method table
+             *
+             * @return method offsets
+             */
+            int[] getPackageVirtualMethodTable();
+
+            /**
+             * Get interfaces implemented by this class
+             *
+             * @return list of implemented interfaces
+             */
+            List<ImplementedInterfaceInfo> getInterfaces();
+
+            /**
+             * Get remote interface info
+             *
+             * @return remote interface info or null when class is not remote
+             */
+            RemoteInterfaceInfo getRemoteInterface();
+        }
+
+        /**
+         * Implemented interface info interface
+         *
+         * @author Edi Permadi
+         */
+        interface ImplementedInterfaceInfo {
+            /**
+             * Get implemented interface
+             *
+             * @return interface reference, see {@link CapClassRef}
+             */
+            int getInterfaceRef();
+
+            /**
+             * Get virtual method tokens implementing interface methods, indexed by interface method token
+             *
+             * @return virtual method tokens
+             */
+            int[] getIndexes();
+        }
+
+        /**
+         * Remote interface info interface
+         *
+         * @author Edi Permadi
+         */
+        interface RemoteInterfaceInfo {
+            /**
+             * Get count of remote methods
+             *
+             * @return count of remote methods
+             */
+            int getRemoteMethodCount();
+
+            /**
+             * Get remote method hash
+             *
+             * @param method remote method index
+             * @return remote method hash
+             */
+            int getRemoteMethodHash(int method);
+
+            /**
+             * Get offset of remote method signature within signature pool
+             *
+             * @param method remote method index
+             * @return signature offset
+             */
+            int getSignatureOffset(int method);
+
+            /**
+             * Get virtual method token of remote method
+             *
+             * @param method remote method index
+             * @return virtual method token
+             */
+            int getVirtualMethodToken(int method);
+
+            /**
+             * Get hash modifier
+             *
+             * @return hash modifier string
+             */
+            String getHashModifier();
+
+            /**
+             * Get class name
+             *
+             * @return class name
+             */
+            String getClassName();
+
+            /**
+             * Get remote interfaces implemented by class
+             *
+             * @return remote interface references, see {@link CapClassRef}
+             */
+            int[] getRemoteInterfaces();
+        }
+    }
+
+    /**
+     * CAP import component interface. Index of imported package is the package token used by external references.
+     *
+     * @author Edi Permadi
+     */
+    interface Import {
+        /**
+         * Get imported packages
+         *
+         * @return list of imported packages, indexed by package token
+         */
+        List<Header.PackageInfo> getPackages();
+
+        /**
+         * Get package token of imported package
+         *
+         * @param aid package AID
+         * @return package token or -1 when package is not imported
+         */
+        int indexOf(Aid aid);
+    }
+
+    /**
+     * CAP export component interface. Exported classes are indexed by class token, their static fields and static
+     * methods by field and method token. Accessors never allocate.
+     *
+     * @author Edi Permadi
+     */
+    interface Export {
+        /**
+         * Get count of exported classes
+         *
+         * @return count of exported classes
+         */
+        int getClassCount();
+
+        /**
+         * Get offset of exported class within class component info item
+         *
+         * @param classToken class token
+         * @return class offset
+         */
+        int getClassOffset(int classToken);
+
+        /**
+         * Get count of exported static fields of class
+         *
+         * @param classToken class token
+         * @return count of static fields
+         */
+        int getStaticFieldCount(int classToken);
+
+        /**
+         * Get offset of exported static field within static field image
+         *
+         * @param classToken class token
+         * @param fieldToken static field token
+         * @return static field offset
+         */
+        int getStaticFieldOffset(int classToken, int fieldToken);
+
+        /**
+         * Get count of exported static methods of class
+         *
+         * @param classToken class token
+         * @return count of static methods
+         */
+        int getStaticMethodCount(int classToken);
+
+        /**
+         * Get offset of exported static method within method component info item
+         *
+         * @param classToken  class token
+         * @param methodToken static method token
+         * @return static method offset
+         */
+        int getStaticMethodOffset(int classToken, int methodToken);
+    }
+
+    /**
+     * CAP reference location component interface. Locations are absolute offsets within method component info item
+     * of bytecode operands holding a 1-byte or a 2-byte constant pool index, in ascending order.
+     *
+     * @author Edi Permadi
+     */
+    interface RefLocation {
+        /**
+         * Get count of 1-byte constant pool index locations
+         *
+         * @return count of locations
+         */
+        int getByteIndexCount();
+
+        /**
+         * Get location of a 1-byte constant pool index
+         *
+         * @param index location index
+         * @return offset within method component info item
+         */
+        int getByteIndexOffset(int index);
+
+        /**
+         * Get locations of 1-byte constant pool indices
+         *
+         * @return copy of ascending offsets within method component info item
+         */
+        int[] getByteIndexOffsets();
+
+        /**
+         * Walk locations of 1-byte constant pool indices straight out of delta encoded table
+         *
+         * @return offset iterator
+         */
+        CapOffsetIterator iterateByteIndexOffsets();
+
+        /**
+         * Get count of 2-byte constant pool index locations
+         *
+         * @return count of locations
+         */
+        int getByte2IndexCount();
+
+        /**
+         * Get location of a 2-byte constant pool index
+         *
+         * @param index location index
+         * @return offset within method component info item
+         */
+        int getByte2IndexOffset(int index);
+
+        /**
+         * Get locations of 2-byte constant pool indices
+         *
+         * @return copy of ascending offsets within method component info item
+         */
+        int[] getByte2IndexOffsets();
+
+        /**
+         * Walk locations of 2-byte constant pool indices straight out of delta encoded table
+         *
+         * @return offset iterator
+         */
+        CapOffsetIterator iterateByte2IndexOffsets();
+    }
+
+    /**
+     * CAP static field component interface. Array initializer values and non-default values are exposed as
+     * read-only views sharing content with component payload.
+     *
+     * @author Edi Permadi
+     */
+    interface StaticField {
+        int TYPE_BOOLEAN = 2;
+        int TYPE_BYTE = 3;
+        int TYPE_SHORT = 4;
+        int TYPE_INT = 5;
+
+        /**
+         * Get size of static field image in bytes
+         *
+         * @return image size
+         */
+        int getImageSize();
+
+        /**
+         * Get count of reference type static fields, including arrays
+         *
+         * @return reference count
+         */
+        int getReferenceCount();
+
+        /**
+         * Get count of array initializers
+         *
+         * @return count of array initializers
+         */
+        int getArrayInitCount();
+
+        /**
+         * Get array initializer element type
+         *
+         * @param index array initializer index
+         * @return one of TYPE_* constants
+         */
+        int getArrayInitType(int index);
+
+        /**
+         * Get array initializer values
+         *
+         * @param index array initializer index
+         * @return read-only view of big-endian initial values
+         */
+        ByteBuffer getArrayInitValues(int index);
+
+        /**
+         * Get total size of array initializer values in bytes
+         *
+         * @return array initializer size
+         */
+        int getArrayInitSize();
+
+        /**
+         * Get count of primitive static fields initialized to default value
+         *
+         * @return default value count
+         */
+        int getDefaultValueCount();
+
+        /**
+         * Get initial values of primitive static fields not initialized to default value
+         *
+         * @return read-only view of non-default values
+         */
+        ByteBuffer getNonDefaultValues();
+    }
+
+    /**
+     * CAP descriptor component interface. Class descriptors are located by a single scan at decoding time and
+     * materialized on first access. Type descriptors are identified by their offset within type descriptor info,
+     * identical type descriptors share a single instance across CAP files decoded with the same intern pool.
+     *
+     * @author Edi Permadi
+     */
+    interface Descriptor {
+        /**
+         * Get count of class descriptors
+         *
+         * @return count of class descriptors
+         */
+        int getClassCount();
+
+        /**
+         * Get class descriptor
+         *
+         * @param index class descriptor index
+         * @return class descriptor
+         */
+        ClassDescriptor getClassDescriptor(int index);
+
+        /**
+         * Get class descriptor by class reference
+         *
+         * @param thisClassRef internal class reference, see {@link CapClassRef}
+         * @return class descriptor or null when class is not described
+         */
+        ClassDescriptor findClassDescriptor(int thisClassRef);
+
+        /**
+         * Get type of constant pool entry
+         *
+         * @param index constant pool index
+         * @return type descriptor or null when entry is a class reference
+         */
+        TypeDescriptor getConstantPoolType(int index);
+
+        /**
+         * Get type descriptor
+         *
+         * @param offset offset within type descriptor info
+         * @return type descriptor or null when no type descriptor starts at offset
+         */
+        TypeDescriptor getType(int offset);
+
+        /**
+         * Class descriptor interface
+         *
+         * @author Edi Permadi
+         */
+        interface ClassDescriptor {
+            /**
+             * Get token
+             *
+             * @return token
+             */
+            int getToken();
+
+            /**
+             * Get access flags
+             *
+             * @return access flags
+             */
+            int getAccessFlags();
+
+            /**
+             * Get described class
+             *
+             * @return class reference, see {@link CapClassRef}
+             */
+            int getThisClassRef();
+
+            /**
+             * Get implemented interfaces
+             *
+             * @return interface references, see {@link CapClassRef}
+             */
+            int[] getInterfaces();
+
+            /**
+             * Get field descriptors
+             *
+             * @return list of field descriptors
+             */
+            List<FieldDescriptor> getFields();
+
+            /**
+             * Get method descriptors
+             *
+             * @return list of method descriptors
+             */
+            List<MethodDescriptor> getMethods();
+        }
+
+        /**
+         * Field descriptor interface
+         *
+         * @author Edi Permadi
+         */
+        interface FieldDescriptor {
+            /**
+             * Get token
+             *
+             * @return token
+             */
+            int getToken();
+
+            /**
+             * Get access flags
+             *
+             * @return access flags
+             */
+            int getAccessFlags();
+
+            /**
+             * Get field reference
+             *
+             * @return static field reference or instance field reference, packed big-endian into 24 bits
+             */
+            int getFieldRef();
+
+            /**
+             * Check whether field is of primitive type
+             *
+             * @return true when primitive
+             */
+            boolean isPrimitive();
+
+            /**
+             * Get primitive type
+             *
+             * @return primitive type (2 boolean, 3 byte, 4 short, 5 int) or -1 when field is a reference
+             */
+            int getPrimitiveType();
+
+            /**
+             * Get reference type
+             *
+             * @return type descriptor or null when field is primitive
+             */
+            TypeDescriptor getReferenceType();
+        }
+
+        /**
+         * Method descriptor interface
+         *
+         * @author Edi Permadi
+         */
+        interface MethodDescriptor {
+            /**
+             * Get token
+             *
+             * @return token
+             */
+            int getToken();
+
+            /**
+             * Get access flags
+             *
+             * @return access flags
+             */
+            int getAccessFlags();
+
+            /**
+             * Get method offset
+             *
+             * @return offset within method component info item, 0 for interface methods
+             */
+            int getMethodOffset();
+
+            /**
+             * Get method signature
+             *
+             * @return type descriptor of parameter types followed by return type
+             */
+            TypeDescriptor getType();
+
+            /**
+             * Get count of bytecode bytes
+             *
+             * @return bytecode count
+             */
+            int getBytecodeCount();
+
+            /**
+             * Get count of exception handlers of method
+             *
+             * @return count of exception handlers
+             */
+            int getExceptionHandlerCount();
+
+            /**
+             * Get index of first exception handler of method
+             *
+             * @return exception handler index
+             */
+            int getExceptionHandlerIndex();
+        }
+
+        /**
+         * Type descriptor interface. Type is a sequence of nibbles: 1 void, 2 boolean, 3 byte, 4 short, 5 int,
+         * 6 reference, 0xa boolean array, 0xb byte array, 0xc short array, 0xd int array, 0xe reference array.
+         * Reference types are followed by 4 nibbles of class reference.
+         *
+         * @author Edi Permadi
+         */
+        interface TypeDescriptor {
+            /**
+             * Get count of nibbles
+             *
+             * @return count of nibbles
+             */
+            int getNibbleCount();
+
+            /**
+             * Get nibble
+             *
+             * @param index nibble index
+             * @return nibble value
+             */
+            int getNibble(int index);
+        }
+    }
+
+    /**
+     * CAP debug component interface, a symbolization index of methods and source lines. Methods are indexed in
+     * ascending order of their offset within method component info item. Names are read out of debug string table
+     * on lookup, they are not retained.
+     *
+     * @author Edi Permadi
+     */
+    interface Debug {
+        /**
+         * Get package name
+         *
+         * @return fully qualified package name, slash separated
+         */
+        String getPackageName();
+
+        /**
+         * Get count of methods
+         *
+         * @return count of methods
+         */
+        int getMethodCount();
+
+        /**
+         * Get index of method whose header or bytecode contains offset
+         *
+         * @param offset offset within method component info item, such as method offset reported by card
+         * @return method index or -1 when offset is outside of every method
+         */
+        int indexOfMethod(int offset);
+
+        /**
+         * Get method offset
+         *
+         * @param method method index
+         * @return offset within method component info item
+         */
+        int getMethodOffset(int method);
+
+        /**
+         * Get method name
+         *
+         * @param method method index
+         * @return method name
+         */
+        String getMethodName(int method);
+
+        /**
+         * Get method descriptor
+         *
+         * @param method method index
+         * @return method descriptor in Java VM format
+         */
+        String getMethodDescriptor(int method);
+
+        /**
+         * Get name of class declaring method
+         *
+         * @param method method index
+         * @return fully qualified class name, slash separated
+         */
+        String getClassName(int method);
+
+        /**
+         * Get source file of class declaring method
+         *
+         * @param method method index
+         * @return source file name
+         */
+        String getSourceFile(int method);
+
+        /**
+         * Get source line of bytecode
+         *
+         * @param method method index
+         * @param pc     bytecode index, relative to first bytecode of method
+         * @return source line or -1 when unknown
+         */
+        int getLineNumber(int method, int pc);
+
+        /**
+         * Resolve source location of bytecode
+         *
+         * @param methodOffset offset within method component info item, such as method offset reported by card
+         * @param pc           bytecode index, relative to first bytecode of method
+         * @return source location or null when offset is outside of every method
+         */
+        Location symbolize(int methodOffset, int pc);
+
+        /**
+         * Source location interface
+         *
+         * @author Edi Permadi
+         */
+        interface Location {
+            /**
+             * Get class name
+             *
+             * @return fully qualified class name, slash separated
+             */
+            String getClassName();
+
+            /**
+             * Get method name
+             *
+             * @return method name
+             */
+            String getMethodName();
+
+            /**
+             * Get source file name
+             *
+             * @return source file name
+             */
+            String getSourceFile();
+
+            /**
+             * Get source line
+             *
+             * @return source line or -1 when unknown
+             */
+            int getLineNumber();
+        }
+    }
 }
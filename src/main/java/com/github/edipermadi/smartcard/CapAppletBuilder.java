@@ -1,6 +1,5 @@
 package com.github.edipermadi.smartcard;
 
-import com.google.gson.annotations.SerializedName;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +19,10 @@ class CapAppletBuilder {
      * @param installMethodOffset applet installation method offset
      * @return this instance
      */
-    CapAppletBuilder addApplet(final String aid, final int installMethodOffset) {
+    CapAppletBuilder addApplet(final Aid aid, final int installMethodOffset) {
+        if (aid == null) {
+            throw new IllegalArgumentException("applet AID is null");
+        }
         applets.add(new CapAppletInfo(aid, installMethodOffset));
         return this;
     }
@@ -40,7 +42,6 @@ class CapAppletBuilder {
      * @author Edi Permadi
      */
     static final class CapApplet implements Cap.Applet {
-        @SerializedName("applets")
         private final List<Info> applets;
 
         /**
@@ -64,10 +65,7 @@ class CapAppletBuilder {
      * @author Edi Permadi
      */
     static final class CapAppletInfo implements Cap.Applet.Info {
-        @SerializedName("aid")
-        private final String aid;
-
-        @SerializedName("install_method_offset")
+        private final Aid aid;
         private final int installMethodOffset;
 
         /**
@@ -75,13 +73,19 @@ class CapAppletBuilder {
          * @param aid applet identifier
          * @param installMethodOffset applet installation method offset
          */
-        CapAppletInfo(final String aid, final int installMethodOffset) {
+        CapAppletInfo(final Aid aid, final int installMethodOffset) {
             this.aid = aid;
             this.installMethodOffset = installMethodOffset;
         }
 
         @Override
+        @Deprecated
         public String getAID() {
+            return aid.toString();
+        }
+
+        @Override
+        public Aid getAid() {
             return aid;
         }
 
@@ -0,0 +1,122 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import com.github.edipermadi.smartcard.exc.CapFormatException;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Single asynchronous decode. The archive is read into memory by chained non-blocking channel reads whose
+ * completion handlers only issue the next read, inflation and parsing are then submitted to caller executor, where
+ * buffered content is decoded in memory so that unselected components are never inflated. Once
+ * the future is completed by anyone (cancelled, timed out or failed) no further read is issued and parsing is
+ * skipped.
+ */
+final class CapAsyncDecode implements CompletionHandler<Integer, Void> {
+    private final CapDecoderImpl decoder;
+    private final Path path;
+    private final AsynchronousFileChannel channel;
+    private final boolean ownsChannel;
+    private final Executor executor;
+    private final CompletableFuture<Cap> result = new CompletableFuture<>();
+    private ByteBuffer buffer;
+
+    /**
+     * Class constructor
+     *
+     * @param decoder     decoder used for parsing
+     * @param path        path channel was opened from, reported to listener, null when unknown
+     * @param channel     channel to read CAP file from
+     * @param ownsChannel true to close channel when decode is done
+     * @param executor    executor running inflation and parsing
+     */
+    CapAsyncDecode(final CapDecoderImpl decoder, final Path path, final AsynchronousFileChannel channel,
+                   final boolean ownsChannel, final Executor executor) {
+        this.decoder = decoder;
+        this.path = path;
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.executor = executor;
+    }
+
+    /**
+     * Start reading
+     *
+     * @return future of CAP object
+     */
+    CompletableFuture<Cap> start() {
+        if (ownsChannel) {
+            /* closing channel also aborts pending read of cancelled decode */
+            result.whenComplete(new BiConsumer<Cap, Throwable>() {
+                @Override
+                public void accept(final Cap cap, final Throwable throwable) {
+                    IOUtils.closeQuietly(channel);
+                }
+            });
+        }
+
+        try {
+            final long size = channel.size();
+            if (size > CapDecoderImplBase.MAX_ARCHIVE_SIZE) {
+                result.completeExceptionally(new CapFormatException("CAP archive is too large"));
+                return result;
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            read();
+        } catch (final IOException ex) {
+            result.completeExceptionally(new CapException("failed to read CAP file", ex));
+        }
+        return result;
+    }
+
+    @Override
+    public void completed(final Integer count, final Void attachment) {
+        if (result.isDone()) {
+            return;
+        } else if ((count >= 0) && buffer.hasRemaining()) {
+            read();
+            return;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    try {
+                        buffer.flip();
+                        result.complete(decoder.decode(buffer, path));
+                    } catch (final CapException | RuntimeException ex) {
+                        result.completeExceptionally(ex);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    @Override
+    public void failed(final Throwable ex, final Void attachment) {
+        result.completeExceptionally(new CapException("failed to read CAP file", ex));
+    }
+
+    private void read() {
+        try {
+            channel.read(buffer, buffer.position(), null, this);
+        } catch (final RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+}
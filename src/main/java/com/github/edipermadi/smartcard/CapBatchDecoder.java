@@ -0,0 +1,176 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel CAP batch decoder. Every file is decoded on executor, failure of a file is captured in its
+ * {@link CapDecodeResult} and never aborts the batch.
+ */
+public final class CapBatchDecoder implements Closeable {
+    private final CapDecoder decoder;
+    private final ExecutorService executor;
+    private final boolean ownedExecutor;
+
+    /**
+     * Class constructor, decodes on a fixed thread pool sized to available processors. The pool is released
+     * by {@link #close()}.
+     *
+     * @param decoder CAP decoder, must be safe for concurrent use
+     */
+    public CapBatchDecoder(final CapDecoder decoder) {
+        this(decoder, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param decoder  CAP decoder, must be safe for concurrent use
+     * @param executor executor to decode on, such as {@link java.util.concurrent.ForkJoinPool}; not shut down by
+     *                 {@link #close()}
+     */
+    public CapBatchDecoder(final CapDecoder decoder, final ExecutorService executor) {
+        this(decoder, executor, false);
+    }
+
+    private CapBatchDecoder(final CapDecoder decoder, final ExecutorService executor, final boolean ownedExecutor) {
+        if (decoder == null) {
+            throw new IllegalArgumentException("decoder is null");
+        } else if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        this.decoder = decoder;
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * Decode CAP files in parallel
+     *
+     * @param paths paths to CAP files
+     * @return decoding results, in the same order as paths
+     * @throws InterruptedException when interrupted while waiting for results
+     */
+    public List<CapDecodeResult> decodeAll(final Collection<Path> paths) throws InterruptedException {
+        if (paths == null) {
+            throw new IllegalArgumentException("paths is null");
+        }
+
+        final List<Future<CapDecodeResult>> futures = new ArrayList<>(paths.size());
+        try {
+            for (final Path path : paths) {
+                futures.add(executor.submit(new DecodeTask(path)));
+            }
+
+            final List<CapDecodeResult> results = new ArrayList<>(futures.size());
+            for (final Future<CapDecodeResult> future : futures) {
+                results.add(getResult(future));
+            }
+            return results;
+        } finally {
+            for (final Future<CapDecodeResult> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Decode CAP files in parallel, results are reported as soon as they complete
+     *
+     * @param paths    paths to CAP files
+     * @param callback callback receiving results in completion order, invoked from calling thread
+     * @throws InterruptedException when interrupted while waiting for results
+     */
+    public void decodeAll(final Collection<Path> paths, final Callback callback) throws InterruptedException {
+        if (paths == null) {
+            throw new IllegalArgumentException("paths is null");
+        } else if (callback == null) {
+            throw new IllegalArgumentException("callback is null");
+        }
+
+        final CompletionService<CapDecodeResult> completion = new ExecutorCompletionService<>(executor);
+        final List<Future<CapDecodeResult>> futures = new ArrayList<>(paths.size());
+        try {
+            for (final Path path : paths) {
+                futures.add(completion.submit(new DecodeTask(path)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                callback.onResult(getResult(completion.take()));
+            }
+        } finally {
+            for (final Future<CapDecodeResult> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Release thread pool when owned by this batch decoder
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static CapDecodeResult getResult(final Future<CapDecodeResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException ex) {
+            /* decode task captures every exception, only errors get here */
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("unexpected CAP decoding failure", cause);
+        }
+    }
+
+    /**
+     * Batch result callback interface
+     */
+    public interface Callback {
+        /**
+         * Called when decoding of a file completes
+         *
+         * @param result decoding result
+         */
+        void onResult(CapDecodeResult result);
+    }
+
+    /**
+     * Task decoding a single CAP file
+     */
+    private final class DecodeTask implements Callable<CapDecodeResult> {
+        private final Path path;
+
+        DecodeTask(final Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public CapDecodeResult call() {
+            try {
+                return new CapDecodeResult(path, decoder.decode(path), null);
+            } catch (final CapException ex) {
+                return new CapDecodeResult(path, null, ex);
+            } catch (final RuntimeException ex) {
+                return new CapDecodeResult(path, null, new CapException("failed to decode CAP file " + path, ex));
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.List;
+
+/**
+ * Compact binary codec of CAP object model. The following is the structure of encoded CAP object
+ * <pre>
+ * cap {
+ *     header_info header
+ *     directory_info directory
+ *     u1 has_applet
+ *     applet_info applet (present when has_applet is 1)
+ * }
+ *
+ * header_info {
+ *     u2 version
+ *     u1 flags
+ *     u2 package_version
+ *     u1 AID_length
+ *     u1 AID[AID_length]
+ *     u2 name_length (0xffff when package name is absent)
+ *     u1 name[name_length]
+ * }
+ *
+ * directory_info {
+ *     u1 component_sizes_count
+ *     u2 component_sizes[component_sizes_count]
+ *     u2 image_size
+ *     u2 array_init_count
+ *     u2 array_init_size
+ *     u1 import_count
+ *     u1 applet_count
+ *     u1 custom_count
+ *     {
+ *         u1 component_tag
+ *         u2 size (0 when unknown)
+ *         u1 AID_length
+ *         u1 AID[AID_length]
+ *     } custom_components[custom_count]
+ * }
+ *
+ * applet_info {
+ *     u1 count
+ *     {
+ *         u1 AID_length
+ *         u1 AID[AID_length]
+ *         u2 install_method_offset
+ *     } applets[count]
+ * }
+ * </pre>
+ * Versions are encoded in 0xaabb (major, minor) and raw components are not part of the encoding.
+ */
+final class CapBinaryCodec {
+    private static final int NO_NAME = 0xffff;
+
+    private CapBinaryCodec() {
+    }
+
+    /**
+     * Encode CAP object
+     *
+     * @param cap    CAP object
+     * @param writer target writer
+     */
+    static void write(final Cap cap, final CapComponentWriter writer) {
+        /* header */
+        final Cap.Header header = cap.getHeader();
+        final Cap.Header.PackageInfo packageInfo = header.getPackage();
+        writer.writeU2(header.getVersion())
+                .writeU1(header.getFlags())
+                .writeU2(packageInfo.getVersion());
+        writeAid(packageInfo.getAid(), writer);
+
+        final Cap.Header.PackageNameInfo packageName = header.getPackageName();
+        if ((packageName == null) || (packageName.getName() == null)) {
+            writer.writeU2(NO_NAME);
+        } else {
+            final int lengthPosition = writer.position();
+            writer.writeU2(0).writeUtf8(packageName.getName());
+            writer.writeU2At(lengthPosition, writer.position() - lengthPosition - 2);
+        }
+
+        /* directory */
+        final Cap.Directory directory = cap.getDirectory();
+        final List<Integer> componentSizes = directory.getComponentSizes();
+        writer.writeU1(componentSizes.size());
+        for (final Integer componentSize : componentSizes) {
+            writer.writeU2(componentSize);
+        }
+
+        final Cap.Directory.StaticFieldSizeInfo staticFieldSize = directory.getStaticFieldSize();
+        writer.writeU2(staticFieldSize.getImageSize())
+                .writeU2(staticFieldSize.getArrayInitCount())
+                .writeU2(staticFieldSize.getArrayInitSize())
+                .writeU1(directory.getImportCount())
+                .writeU1(directory.getAppletCount());
+
+        final List<Cap.Directory.CustomComponentInfo> customComponents = directory.getCustomComponents();
+        writer.writeU1(customComponents.size());
+        for (final Cap.Directory.CustomComponentInfo customComponent : customComponents) {
+            writer.writeU1(customComponent.getTag())
+                    .writeU2(Math.max(customComponent.getSize(), 0));
+            writeAid(customComponent.getAid(), writer);
+        }
+
+        /* applet */
+        final Cap.Applet applet = cap.getApplet();
+        if (applet == null) {
+            writer.writeU1(0);
+        } else {
+            final List<Cap.Applet.Info> applets = applet.getApplets();
+            writer.writeU1(1).writeU1(applets.size());
+            for (final Cap.Applet.Info info : applets) {
+                writeAid(info.getAid(), writer);
+                writer.writeU2(info.getInstallMethodOffset());
+            }
+        }
+    }
+
+    /**
+     * Decode CAP object
+     *
+     * @param reader source reader
+     * @return CAP object
+     * @throws java.nio.BufferUnderflowException when encoded CAP object is truncated
+     */
+    static Cap read(final CapComponentReader reader) {
+        final CapBuilder builder = new CapBuilder();
+
+        /* header */
+        final CapHeaderBuilder headerBuilder = new CapHeaderBuilder()
+                .setHeaderVersion(reader.readU2())
+                .setHeaderFlags(reader.readU1());
+        final int packageVersion = reader.readU2();
+        headerBuilder.setPackageInfo(packageVersion, reader.readAid(reader.readU1()));
+        final int nameLength = reader.readU2();
+        if (nameLength != NO_NAME) {
+            headerBuilder.setPackageName(reader.readUtf8(nameLength));
+        }
+        builder.setHeader(headerBuilder.build());
+
+        /* directory */
+        final CapDirectoryBuilder directoryBuilder = new CapDirectoryBuilder();
+        final int componentSizesCount = reader.readU1();
+        for (int i = 0; i < componentSizesCount; i++) {
+            directoryBuilder.addComponentSize(reader.readU2());
+        }
+        final int imageSize = reader.readU2();
+        final int arrayInitCount = reader.readU2();
+        final int arrayInitSize = reader.readU2();
+        directoryBuilder.setStaticFieldSize(imageSize, arrayInitCount, arrayInitSize)
+                .setImportCount(reader.readU1())
+                .setAppletCount(reader.readU1());
+        final int customCount = reader.readU1();
+        for (int i = 0; i < customCount; i++) {
+            final int tag = reader.readU1();
+            final int size = reader.readU2();
+            directoryBuilder.addCustomComponent(tag, size, reader.readAid(reader.readU1()));
+        }
+        builder.setDirectory(directoryBuilder.build());
+
+        /* applet */
+        if (reader.readU1() != 0) {
+            final CapAppletBuilder appletBuilder = new CapAppletBuilder();
+            final int count = reader.readU1();
+            for (int i = 0; i < count; i++) {
+                final Aid aid = reader.readAid(reader.readU1());
+                appletBuilder.addApplet(aid, reader.readU2());
+            }
+            builder.setApplet(appletBuilder.build());
+        }
+
+        return builder.build();
+    }
+
+    private static void writeAid(final Aid aid, final CapComponentWriter writer) {
+        writer.writeU1(aid.length()).writeAid(aid);
+    }
+}
@@ -1,8 +1,10 @@
 package com.github.edipermadi.smartcard;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * CAP builder class
@@ -10,10 +12,22 @@ import com.google.gson.annotations.SerializedName;
  * @author Edi Permadi
  */
 public final class CapBuilder {
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private Cap.Header header;
     private Cap.Directory directory;
     private Cap.Applet applet;
+    private Cap.Method method;
+    private Cap.ConstantPool constantPool;
+    private Cap.Class classComponent;
+    private Cap.Import importComponent;
+    private Cap.Export export;
+    private Cap.RefLocation refLocation;
+    private Cap.StaticField staticField;
+    private Cap.Descriptor descriptor;
+    private Cap.Debug debug;
+    private final EnumMap<CapComponentType, ByteBuffer> rawComponents = new EnumMap<>(CapComponentType.class);
+    private final Map<String, ByteBuffer> customComponents = new LinkedHashMap<>();
+    private ByteBuffer manifest;
+    private String componentDirectory;
 
     /**
      * Set CAP header component
@@ -57,6 +71,201 @@ public final class CapBuilder {
         return this;
     }
 
+    /**
+     * Set CAP method component
+     *
+     * @param method method component
+     * @return this instance
+     */
+    public CapBuilder setMethod(final Cap.Method method) {
+        if (method == null) {
+            throw new IllegalArgumentException("CAP method is null");
+        }
+        this.method = method;
+        return this;
+    }
+
+    /**
+     * Set CAP constant pool component
+     *
+     * @param constantPool constant pool component
+     * @return this instance
+     */
+    public CapBuilder setConstantPool(final Cap.ConstantPool constantPool) {
+        if (constantPool == null) {
+            throw new IllegalArgumentException("CAP constant pool is null");
+        }
+        this.constantPool = constantPool;
+        return this;
+    }
+
+    /**
+     * Set CAP class component
+     *
+     * @param classComponent class component
+     * @return this instance
+     */
+    public CapBuilder setClassComponent(final Cap.Class classComponent) {
+        if (classComponent == null) {
+            throw new IllegalArgumentException("CAP class is null");
+        }
+        this.classComponent = classComponent;
+        return this;
+    }
+
+    /**
+     * Set CAP import component
+     *
+     * @param importComponent import component
+     * @return this instance
+     */
+    public CapBuilder setImport(final Cap.Import importComponent) {
+        if (importComponent == null) {
+            throw new IllegalArgumentException("CAP import is null");
+        }
+        this.importComponent = importComponent;
+        return this;
+    }
+
+    /**
+     * Set CAP export component
+     *
+     * @param export export component
+     * @return this instance
+     */
+    public CapBuilder setExport(final Cap.Export export) {
+        if (export == null) {
+            throw new IllegalArgumentException("CAP export is null");
+        }
+        this.export = export;
+        return this;
+    }
+
+    /**
+     * Set CAP reference location component
+     *
+     * @param refLocation reference location component
+     * @return this instance
+     */
+    public CapBuilder setRefLocation(final Cap.RefLocation refLocation) {
+        if (refLocation == null) {
+            throw new IllegalArgumentException("CAP reference location is null");
+        }
+        this.refLocation = refLocation;
+        return this;
+    }
+
+    /**
+     * Set CAP static field component
+     *
+     * @param staticField static field component
+     * @return this instance
+     */
+    public CapBuilder setStaticField(final Cap.StaticField staticField) {
+        if (staticField == null) {
+            throw new IllegalArgumentException("CAP static field is null");
+        }
+        this.staticField = staticField;
+        return this;
+    }
+
+    /**
+     * Set CAP descriptor component
+     *
+     * @param descriptor descriptor component
+     * @return this instance
+     */
+    public CapBuilder setDescriptor(final Cap.Descriptor descriptor) {
+        if (descriptor == null) {
+            throw new IllegalArgumentException("CAP descriptor is null");
+        }
+        this.descriptor = descriptor;
+        return this;
+    }
+
+    /**
+     * Set CAP debug component
+     *
+     * @param debug debug component
+     * @return this instance
+     */
+    public CapBuilder setDebug(final Cap.Debug debug) {
+        if (debug == null) {
+            throw new IllegalArgumentException("CAP debug is null");
+        }
+        this.debug = debug;
+        return this;
+    }
+
+    /**
+     * Set raw payload of component which is not materialized into CAP object
+     *
+     * @param type    component type
+     * @param payload component payload
+     * @return this instance
+     */
+    public CapBuilder setRawComponent(final CapComponentType type, final ByteBuffer payload) {
+        if (type == null) {
+            throw new IllegalArgumentException("component type is null");
+        } else if ((type == CapComponentType.HEADER) || (type == CapComponentType.DIRECTORY)
+                || (type == CapComponentType.APPLET)) {
+            throw new IllegalArgumentException("component " + type + " is materialized");
+        } else if (payload == null) {
+            throw new IllegalArgumentException("component payload is null");
+        }
+        this.rawComponents.put(type, payload.asReadOnlyBuffer());
+        return this;
+    }
+
+    /**
+     * Add raw payload of custom component
+     *
+     * @param fileName component file name, such as {@code Custom.cap}
+     * @param payload  component payload, starting with component tag
+     * @return this instance
+     */
+    public CapBuilder addCustomComponent(final String fileName, final ByteBuffer payload) {
+        if ((fileName == null) || fileName.isEmpty() || (fileName.indexOf('/') >= 0)) {
+            throw new IllegalArgumentException("custom component file name is invalid");
+        } else if (CapComponentType.forFileName(fileName) != null) {
+            throw new IllegalArgumentException("custom component file name is reserved");
+        } else if (payload == null) {
+            throw new IllegalArgumentException("custom component payload is null");
+        }
+        this.customComponents.put(fileName, payload.asReadOnlyBuffer());
+        return this;
+    }
+
+    /**
+     * Set raw content of archive manifest
+     *
+     * @param manifest content of META-INF/MANIFEST.MF
+     * @return this instance
+     */
+    public CapBuilder setManifest(final ByteBuffer manifest) {
+        if (manifest == null) {
+            throw new IllegalArgumentException("manifest is null");
+        }
+        this.manifest = manifest.asReadOnlyBuffer();
+        return this;
+    }
+
+    /**
+     * Set directory holding standard components within archive, see {@link Cap#getComponentDirectory()}
+     *
+     * @param componentDirectory directory ending with '/', empty for archive root
+     * @return this instance
+     */
+    public CapBuilder setComponentDirectory(final String componentDirectory) {
+        if (componentDirectory == null) {
+            throw new IllegalArgumentException("component directory is null");
+        } else if (!componentDirectory.isEmpty() && !componentDirectory.endsWith("/")) {
+            throw new IllegalArgumentException("component directory must end with '/'");
+        }
+        this.componentDirectory = componentDirectory;
+        return this;
+    }
+
     /**
      * Build instance of {@link Cap}
      *
@@ -78,14 +287,22 @@ public final class CapBuilder {
      * @author Edi Permadi
      */
     static final class CapImpl implements Cap {
-        @SerializedName("header")
-        private final CapHeaderBuilder.CapHeader header;
-
-        @SerializedName("directory")
-        private final CapDirectoryBuilder.CapDirectory directory;
-
-        @SerializedName("applet")
-        private final CapAppletBuilder.CapApplet applet;
+        private final Header header;
+        private final Directory directory;
+        private final Applet applet;
+        private final Method method;
+        private final ConstantPool constantPool;
+        private final Class classComponent;
+        private final Import importComponent;
+        private final Export export;
+        private final RefLocation refLocation;
+        private final StaticField staticField;
+        private final Descriptor descriptor;
+        private final Debug debug;
+        private final EnumMap<CapComponentType, ByteBuffer> rawComponents;
+        private final Map<String, ByteBuffer> customComponents;
+        private final ByteBuffer manifest;
+        private final String componentDirectory;
 
         /**
          * Class constructor
@@ -93,9 +310,22 @@ public final class CapBuilder {
          * @param builder CAP builder object
          */
         CapImpl(final CapBuilder builder) {
-            this.header = (CapHeaderBuilder.CapHeader) builder.header;
-            this.directory = (CapDirectoryBuilder.CapDirectory) builder.directory;
-            this.applet = (CapAppletBuilder.CapApplet)builder.applet;
+            this.header = builder.header;
+            this.directory = builder.directory;
+            this.applet = builder.applet;
+            this.method = builder.method;
+            this.constantPool = builder.constantPool;
+            this.classComponent = builder.classComponent;
+            this.importComponent = builder.importComponent;
+            this.export = builder.export;
+            this.refLocation = builder.refLocation;
+            this.staticField = builder.staticField;
+            this.descriptor = builder.descriptor;
+            this.debug = builder.debug;
+            this.rawComponents = new EnumMap<>(builder.rawComponents);
+            this.customComponents = new LinkedHashMap<>(builder.customComponents);
+            this.manifest = builder.manifest;
+            this.componentDirectory = builder.componentDirectory;
         }
 
         @Override
@@ -113,9 +343,92 @@ public final class CapBuilder {
             return applet;
         }
 
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public ConstantPool getConstantPool() {
+            return constantPool;
+        }
+
+        @Override
+        public Class getClassComponent() {
+            return classComponent;
+        }
+
+        @Override
+        public Import getImport() {
+            return importComponent;
+        }
+
+        @Override
+        public Export getExport() {
+            return export;
+        }
+
+        @Override
+        public RefLocation getRefLocation() {
+            return refLocation;
+        }
+
+        @Override
+        public StaticField getStaticField() {
+            return staticField;
+        }
+
+        @Override
+        public Descriptor getDescriptor() {
+            return descriptor;
+        }
+
+        @Override
+        public Debug getDebug() {
+            return debug;
+        }
+
+        @Override
+        public ByteBuffer getRawComponent(final CapComponentType type) {
+            final ByteBuffer payload = rawComponents.get(type);
+            return (payload == null) ? null : payload.duplicate();
+        }
+
+        @Override
+        public Map<String, ByteBuffer> getCustomComponents() {
+            return duplicate(customComponents);
+        }
+
+        @Override
+        public ByteBuffer getManifest() {
+            return (manifest == null) ? null : manifest.duplicate();
+        }
+
+        @Override
+        public String getComponentDirectory() {
+            return componentDirectory;
+        }
+
         @Override
         public String toString() {
-            return gson.toJson(this);
+            return CapJsonWriter.toString(this);
+        }
+    }
+
+    /**
+     * Duplicate payloads so that callers do not share buffer positions
+     *
+     * @param payloads payloads keyed by name
+     * @return unmodifiable map of duplicated payloads
+     */
+    static Map<String, ByteBuffer> duplicate(final Map<String, ByteBuffer> payloads) {
+        if (payloads.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, ByteBuffer> copy = new LinkedHashMap<>();
+        for (final Map.Entry<String, ByteBuffer> e : payloads.entrySet()) {
+            copy.put(e.getKey(), e.getValue().duplicate());
         }
+        return Collections.unmodifiableMap(copy);
     }
 }
@@ -0,0 +1,169 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching CAP decoder. Decoded CAP objects are keyed by SHA-256 of CAP archive content, hence identical archives
+ * uploaded under different names share a single entry. Least recently used entries are evicted once either entry
+ * limit or total archive size limit is exceeded. Safe for concurrent use as long as delegate decoder is.
+ */
+public final class CapCachingDecoder implements CapDecoder {
+    private final CapDecoder decoder;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<ByteBuffer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Class constructor
+     *
+     * @param decoder    delegate decoder
+     * @param maxEntries maximum count of cached CAP objects
+     * @param maxBytes   maximum total size of archives whose CAP objects are cached
+     */
+    public CapCachingDecoder(final CapDecoder decoder, final int maxEntries, final long maxBytes) {
+        if (decoder == null) {
+            throw new IllegalArgumentException("decoder is null");
+        } else if (maxEntries < 1) {
+            throw new IllegalArgumentException("invalid max entries");
+        } else if (maxBytes < 1) {
+            throw new IllegalArgumentException("invalid max bytes");
+        }
+        this.decoder = decoder;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Cap decode(final InputStream stream) throws CapException {
+        if (stream == null) {
+            throw new IllegalArgumentException("CAP stream is null");
+        }
+
+        return decode(CapDecoderImpl.readArchive(stream), null);
+    }
+
+    @Override
+    public Cap decode(final Path path) throws CapException {
+        if (path == null) {
+            throw new IllegalArgumentException("CAP path is null");
+        }
+
+        return decode(CapDecoderImpl.readArchive(path), path);
+    }
+
+    @Override
+    public Cap decode(final ByteBuffer archive, final Path path) throws CapException {
+        if (archive == null) {
+            throw new IllegalArgumentException("CAP archive is null");
+        }
+
+        final MessageDigest digest = DigestUtils.getSha256Digest();
+        digest.update(archive.duplicate());
+        final ByteBuffer key = ByteBuffer.wrap(digest.digest());
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                return entry.cap;
+            }
+        }
+
+        /* decode outside lock, concurrent misses of same content may both decode, last one wins */
+        missCount.incrementAndGet();
+        final Cap cap = decoder.decode(archive.duplicate(), path);
+        put(key, new Entry(cap, archive.remaining()));
+        return cap;
+    }
+
+    /**
+     * Get count of cache hits
+     *
+     * @return count of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get count of cache misses
+     *
+     * @return count of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get count of evicted entries
+     *
+     * @return count of evicted entries
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Get count of cached CAP objects
+     *
+     * @return count of cached CAP objects
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Discard every cached CAP object, counters are kept
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private synchronized void put(final ByteBuffer key, final Entry entry) {
+        final Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.size;
+        }
+        bytes += entry.size;
+
+        final Iterator<Map.Entry<ByteBuffer, Entry>> it = entries.entrySet().iterator();
+        while (((entries.size() > maxEntries) || (bytes > maxBytes)) && it.hasNext()) {
+            final Map.Entry<ByteBuffer, Entry> eldest = it.next();
+            if (eldest.getValue() == entry) {
+                /* never evict entry being inserted, even when it alone exceeds size limit */
+                continue;
+            }
+            bytes -= eldest.getValue().size;
+            it.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cached CAP object along with size of its archive
+     */
+    private static final class Entry {
+        private final Cap cap;
+        private final long size;
+
+        Entry(final Cap cap, final long size) {
+            this.cap = cap;
+            this.size = size;
+        }
+    }
+}
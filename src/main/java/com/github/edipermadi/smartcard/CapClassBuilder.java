@@ -0,0 +1,448 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * CAP class component builder. Interfaces and classes must be added in ascending order of offset.
+ */
+final class CapClassBuilder {
+    private static final int[] EMPTY = new int[0];
+
+    private final List<Cap.Class.InterfaceInfo> interfaces = new ArrayList<>();
+    private final List<Cap.Class.ClassInfo> classes = new ArrayList<>();
+
+    /**
+     * Add interface
+     *
+     * @param info interface info
+     * @return this instance
+     */
+    CapClassBuilder addInterface(final Cap.Class.InterfaceInfo info) {
+        if (info == null) {
+            throw new IllegalArgumentException("interface info is null");
+        }
+        interfaces.add(info);
+        return this;
+    }
+
+    /**
+     * Add class
+     *
+     * @param info class info
+     * @return this instance
+     */
+    CapClassBuilder addClass(final Cap.Class.ClassInfo info) {
+        if (info == null) {
+            throw new IllegalArgumentException("class info is null");
+        }
+        classes.add(info);
+        return this;
+    }
+
+    /**
+     * Build CAP class component object, computing type hierarchy index
+     *
+     * @return CAP class component object
+     */
+    Cap.Class build() {
+        return new CapClass(this);
+    }
+
+    /**
+     * CAP class component implementation
+     */
+    static final class CapClass implements Cap.Class {
+        private final List<InterfaceInfo> interfaces;
+        private final List<ClassInfo> classes;
+        private final int[] interfaceOffsets;
+        private final int[] classOffsets;
+
+        /* per class, sorted references of superclasses and of implemented interfaces */
+        private final int[][] ancestors;
+        private final int[][] implemented;
+
+        /* per class reference, sorted offsets of subclasses */
+        private final Map<Integer, int[]> subclasses;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP class builder
+         */
+        CapClass(final CapClassBuilder builder) {
+            this.interfaces = Collections.unmodifiableList(new ArrayList<>(builder.interfaces));
+            this.classes = Collections.unmodifiableList(new ArrayList<>(builder.classes));
+            this.interfaceOffsets = new int[interfaces.size()];
+            for (int i = 0; i < interfaceOffsets.length; i++) {
+                interfaceOffsets[i] = interfaces.get(i).getOffset();
+            }
+            this.classOffsets = new int[classes.size()];
+            for (int i = 0; i < classOffsets.length; i++) {
+                classOffsets[i] = classes.get(i).getOffset();
+            }
+
+            this.ancestors = new int[classOffsets.length][];
+            this.implemented = new int[classOffsets.length][];
+            final Map<Integer, TreeSet<Integer>> subclassSets = new HashMap<>();
+            for (int i = 0; i < classOffsets.length; i++) {
+                final TreeSet<Integer> superclasses = new TreeSet<>();
+                final TreeSet<Integer> superinterfaces = new TreeSet<>();
+
+                /* walk superclass chain within this package, bounded against cyclic chains */
+                ClassInfo info = classes.get(i);
+                for (int depth = 0; (info != null) && (depth <= classOffsets.length); depth++) {
+                    for (final ImplementedInterfaceInfo implementedInterface : info.getInterfaces()) {
+                        collectInterface(implementedInterface.getInterfaceRef(), superinterfaces);
+                    }
+
+                    final int superRef = info.getSuperClassRef();
+                    if ((superRef == CapClassRef.NONE) || !superclasses.add(superRef)) {
+                        break;
+                    }
+                    info = CapClassRef.isExternal(superRef) ? null : getClassInfo(superRef);
+                }
+
+                ancestors[i] = toArray(superclasses);
+                implemented[i] = toArray(superinterfaces);
+                for (final Integer superRef : superclasses) {
+                    TreeSet<Integer> set = subclassSets.get(superRef);
+                    if (set == null) {
+                        set = new TreeSet<>();
+                        subclassSets.put(superRef, set);
+                    }
+                    set.add(classOffsets[i]);
+                }
+            }
+
+            this.subclasses = new HashMap<>();
+            for (final Map.Entry<Integer, TreeSet<Integer>> e : subclassSets.entrySet()) {
+                subclasses.put(e.getKey(), toArray(e.getValue()));
+            }
+        }
+
+        private void collectInterface(final int interfaceRef, final TreeSet<Integer> collected) {
+            if (!collected.add(interfaceRef) || CapClassRef.isExternal(interfaceRef)) {
+                return;
+            }
+
+            final InterfaceInfo info = getInterfaceInfo(interfaceRef);
+            if (info != null) {
+                for (final int superRef : info.getSuperInterfaces()) {
+                    collectInterface(superRef, collected);
+                }
+            }
+        }
+
+        private static int[] toArray(final TreeSet<Integer> set) {
+            if (set.isEmpty()) {
+                return EMPTY;
+            }
+            final int[] array = new int[set.size()];
+            int i = 0;
+            for (final Integer v : set) {
+                array[i++] = v;
+            }
+            return array;
+        }
+
+        @Override
+        public List<InterfaceInfo> getInterfaces() {
+            return interfaces;
+        }
+
+        @Override
+        public List<ClassInfo> getClasses() {
+            return classes;
+        }
+
+        @Override
+        public InterfaceInfo getInterfaceInfo(final int offset) {
+            final int i = Arrays.binarySearch(interfaceOffsets, offset);
+            return (i < 0) ? null : interfaces.get(i);
+        }
+
+        @Override
+        public ClassInfo getClassInfo(final int offset) {
+            final int i = Arrays.binarySearch(classOffsets, offset);
+            return (i < 0) ? null : classes.get(i);
+        }
+
+        @Override
+        public boolean isSubclassOf(final int offset, final int classRef) {
+            final int i = Arrays.binarySearch(classOffsets, offset);
+            return (i >= 0) && (Arrays.binarySearch(ancestors[i], classRef) >= 0);
+        }
+
+        @Override
+        public boolean isImplementing(final int offset, final int interfaceRef) {
+            final int i = Arrays.binarySearch(classOffsets, offset);
+            return (i >= 0) && (Arrays.binarySearch(implemented[i], interfaceRef) >= 0);
+        }
+
+        @Override
+        public int[] getSubclasses(final int classRef) {
+            final int[] offsets = subclasses.get(classRef);
+            return (offsets == null) ? EMPTY : offsets.clone();
+        }
+    }
+
+    /**
+     * CAP interface info implementation
+     */
+    static final class CapInterfaceInfo implements Cap.Class.InterfaceInfo {
+        private final int offset;
+        private final int flags;
+        private final int[] superInterfaces;
+        private final String name;
+
+        /**
+         * Class constructor
+         *
+         * @param offset          interface offset
+         * @param flags           interface flags
+         * @param superInterfaces superinterface references
+         * @param name            remote interface name, null when interface is not remote
+         */
+        CapInterfaceInfo(final int offset, final int flags, final int[] superInterfaces, final String name) {
+            this.offset = offset;
+            this.flags = flags;
+            this.superInterfaces = superInterfaces;
+            this.name = name;
+        }
+
+        @Override
+        public int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public int getFlags() {
+            return flags;
+        }
+
+        @Override
+        public int[] getSuperInterfaces() {
+            return superInterfaces.clone();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * CAP class info implementation
+     */
+    static final class CapClassInfo implements Cap.Class.ClassInfo {
+        private final int offset;
+        private final int flags;
+        private final int superClassRef;
+        private final int declaredInstanceSize;
+        private final int firstReferenceToken;
+        private final int referenceCount;
+        private final int publicMethodTableBase;
+        private final int[] publicVirtualMethodTable;
+        private final int packageMethodTableBase;
+        private final int[] packageVirtualMethodTable;
+        private final List<Cap.Class.ImplementedInterfaceInfo> interfaces;
+        private final Cap.Class.RemoteInterfaceInfo remoteInterface;
+
+        /**
+         * Class constructor
+         *
+         * @param offset                    class offset
+         * @param flags                     class flags
+         * @param superClassRef             superclass reference
+         * @param declaredInstanceSize      declared instance size
+         * @param firstReferenceToken       first reference token
+         * @param referenceCount            reference count
+         * @param publicMethodTableBase     public method table base
+         * @param publicVirtualMethodTable  public virtual method table
+         * @param packageMethodTableBase    package method table base
+         * @param packageVirtualMethodTable package virtual method table
+         * @param interfaces                implemented interfaces
+         * @param remoteInterface           remote interface info, null when class is not remote
+         */
+        CapClassInfo(final int offset, final int flags, final int superClassRef, final int declaredInstanceSize,
+                     final int firstReferenceToken, final int referenceCount, final int publicMethodTableBase,
+                     final int[] publicVirtualMethodTable, final int packageMethodTableBase,
+                     final int[] packageVirtualMethodTable, final List<Cap.Class.ImplementedInterfaceInfo> interfaces,
+                     final Cap.Class.RemoteInterfaceInfo remoteInterface) {
+            this.offset = offset;
+            this.flags = flags;
+            this.superClassRef = superClassRef;
+            this.declaredInstanceSize = declaredInstanceSize;
+            this.firstReferenceToken = firstReferenceToken;
+            this.referenceCount = referenceCount;
+            this.publicMethodTableBase = publicMethodTableBase;
+            this.publicVirtualMethodTable = publicVirtualMethodTable;
+            this.packageMethodTableBase = packageMethodTableBase;
+            this.packageVirtualMethodTable = packageVirtualMethodTable;
+            this.interfaces = Collections.unmodifiableList(interfaces);
+            this.remoteInterface = remoteInterface;
+        }
+
+        @Override
+        public int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public int getFlags() {
+            return flags;
+        }
+
+        @Override
+        public int getSuperClassRef() {
+            return superClassRef;
+        }
+
+        @Override
+        public int getDeclaredInstanceSize() {
+            return declaredInstanceSize;
+        }
+
+        @Override
+        public int getFirstReferenceToken() {
+            return firstReferenceToken;
+        }
+
+        @Override
+        public int getReferenceCount() {
+            return referenceCount;
+        }
+
+        @Override
+        public int getPublicMethodTableBase() {
+            return publicMethodTableBase;
+        }
+
+        @Override
+        public int[] getPublicVirtualMethodTable() {
+            return publicVirtualMethodTable.clone();
+        }
+
+        @Override
+        public int getPackageMethodTableBase() {
+            return packageMethodTableBase;
+        }
+
+        @Override
+        public int[] getPackageVirtualMethodTable() {
+            return packageVirtualMethodTable.clone();
+        }
+
+        @Override
+        public List<Cap.Class.ImplementedInterfaceInfo> getInterfaces() {
+            return interfaces;
+        }
+
+        @Override
+        public Cap.Class.RemoteInterfaceInfo getRemoteInterface() {
+            return remoteInterface;
+        }
+    }
+
+    /**
+     * CAP implemented interface info implementation
+     */
+    static final class CapImplementedInterfaceInfo implements Cap.Class.ImplementedInterfaceInfo {
+        private final int interfaceRef;
+        private final int[] indexes;
+
+        /**
+         * Class constructor
+         *
+         * @param interfaceRef interface reference
+         * @param indexes      virtual method tokens
+         */
+        CapImplementedInterfaceInfo(final int interfaceRef, final int[] indexes) {
+            this.interfaceRef = interfaceRef;
+            this.indexes = indexes;
+        }
+
+        @Override
+        public int getInterfaceRef() {
+            return interfaceRef;
+        }
+
+        @Override
+        public int[] getIndexes() {
+            return indexes.clone();
+        }
+    }
+
+    /**
+     * CAP remote interface info implementation. Remote methods are stored in parallel primitive arrays.
+     */
+    static final class CapRemoteInterfaceInfo implements Cap.Class.RemoteInterfaceInfo {
+        private final char[] hashes;
+        private final char[] signatureOffsets;
+        private final byte[] tokens;
+        private final String hashModifier;
+        private final String className;
+        private final int[] remoteInterfaces;
+
+        /**
+         * Class constructor
+         *
+         * @param hashes           remote method hashes
+         * @param signatureOffsets remote method signature offsets
+         * @param tokens           remote method virtual method tokens
+         * @param hashModifier     hash modifier
+         * @param className        class name
+         * @param remoteInterfaces remote interface references
+         */
+        CapRemoteInterfaceInfo(final char[] hashes, final char[] signatureOffsets, final byte[] tokens,
+                               final String hashModifier, final String className, final int[] remoteInterfaces) {
+            this.hashes = hashes;
+            this.signatureOffsets = signatureOffsets;
+            this.tokens = tokens;
+            this.hashModifier = hashModifier;
+            this.className = className;
+            this.remoteInterfaces = remoteInterfaces;
+        }
+
+        @Override
+        public int getRemoteMethodCount() {
+            return hashes.length;
+        }
+
+        @Override
+        public int getRemoteMethodHash(final int method) {
+            return hashes[method];
+        }
+
+        @Override
+        public int getSignatureOffset(final int method) {
+            return signatureOffsets[method];
+        }
+
+        @Override
+        public int getVirtualMethodToken(final int method) {
+            return tokens[method] & 0xff;
+        }
+
+        @Override
+        public String getHashModifier() {
+            return hashModifier;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public int[] getRemoteInterfaces() {
+            return remoteInterfaces.clone();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.edipermadi.smartcard;
+
+/**
+ * Helpers of CAP class references. A class reference is an unsigned 16-bit value, either an internal reference
+ * holding offset of class within class component info item, or an external reference having its most significant
+ * bit set, followed by a 7-bit package token (index into import component) and an 8-bit class token.
+ */
+public final class CapClassRef {
+    /**
+     * Superclass reference of {@code java.lang.Object}
+     */
+    public static final int NONE = 0xffff;
+
+    private CapClassRef() {
+    }
+
+    /**
+     * Create internal class reference
+     *
+     * @param offset class offset within class component info item
+     * @return class reference
+     */
+    public static int internal(final int offset) {
+        if ((offset < 0) || (offset > 0x7fff)) {
+            throw new IllegalArgumentException("invalid class offset " + offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Create external class reference
+     *
+     * @param packageToken package token, index into import component
+     * @param classToken   class token within package
+     * @return class reference
+     */
+    public static int external(final int packageToken, final int classToken) {
+        if ((packageToken < 0) || (packageToken > 0x7f)) {
+            throw new IllegalArgumentException("invalid package token " + packageToken);
+        } else if ((classToken < 0) || (classToken > 0xff)) {
+            throw new IllegalArgumentException("invalid class token " + classToken);
+        }
+        return 0x8000 | (packageToken << 8) | classToken;
+    }
+
+    /**
+     * Check whether class reference is external
+     *
+     * @param classRef class reference
+     * @return true when external
+     */
+    public static boolean isExternal(final int classRef) {
+        return ((classRef & 0x8000) != 0) && (classRef != NONE);
+    }
+
+    /**
+     * Get package token of external class reference
+     *
+     * @param classRef class reference
+     * @return package token or -1 when reference is internal
+     */
+    public static int getPackageToken(final int classRef) {
+        return isExternal(classRef) ? ((classRef >> 8) & 0x7f) : -1;
+    }
+
+    /**
+     * Get class token of external class reference
+     *
+     * @param classRef class reference
+     * @return class token or -1 when reference is internal
+     */
+    public static int getClassToken(final int classRef) {
+        return isExternal(classRef) ? (classRef & 0xff) : -1;
+    }
+
+    /**
+     * Get class offset of internal class reference
+     *
+     * @param classRef class reference
+     * @return class offset or -1 when reference is external
+     */
+    public static int getOffset(final int classRef) {
+        return ((classRef & 0x8000) == 0) ? classRef : -1;
+    }
+}
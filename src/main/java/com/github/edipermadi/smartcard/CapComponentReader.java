@@ -0,0 +1,183 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor over CAP component payload. Fields are read in place using absolute access, the backing buffer
+ * (either heap or direct) is never copied nor its position modified.
+ */
+final class CapComponentReader {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Class constructor
+     *
+     * @param buffer component payload, read from its current position up to its limit
+     */
+    CapComponentReader(final ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer is null");
+        }
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Get count of unread bytes
+     *
+     * @return count of unread bytes
+     */
+    int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * Get absolute position of cursor within backing buffer
+     *
+     * @return cursor position
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Read unsigned 8-bit value
+     *
+     * @return unsigned 8-bit value
+     */
+    int readU1() {
+        ensure(1);
+        return buffer.get(position++) & 0xff;
+    }
+
+    /**
+     * Read unsigned big-endian 16-bit value
+     *
+     * @return unsigned 16-bit value
+     */
+    int readU2() {
+        ensure(2);
+        final int v = ((buffer.get(position) & 0xff) << 8) | (buffer.get(position + 1) & 0xff);
+        position += 2;
+        return v;
+    }
+
+    /**
+     * Read big-endian 32-bit value
+     *
+     * @return 32-bit value
+     */
+    int readU4() {
+        ensure(4);
+        final int v = ((buffer.get(position) & 0xff) << 24)
+                | ((buffer.get(position + 1) & 0xff) << 16)
+                | ((buffer.get(position + 2) & 0xff) << 8)
+                | (buffer.get(position + 3) & 0xff);
+        position += 4;
+        return v;
+    }
+
+    /**
+     * Read big-endian 64-bit value
+     *
+     * @return 64-bit value
+     */
+    long readU8() {
+        final long hi = readU4() & 0xffffffffL;
+        final long lo = readU4() & 0xffffffffL;
+        return (hi << 32) | lo;
+    }
+
+    /**
+     * Read version encoded as minor then major byte
+     *
+     * @return version encoded in 0xaabb (major, minor)
+     */
+    int readVersion() {
+        final int minor = readU1();
+        final int major = readU1();
+        return (major << 8) | minor;
+    }
+
+    /**
+     * Skip bytes
+     *
+     * @param length count of bytes to skip
+     */
+    void skip(final int length) {
+        ensure(length);
+        position += length;
+    }
+
+    /**
+     * Get a view of the next bytes and advance the cursor. The returned buffer shares content with backing buffer.
+     *
+     * @param length length of view
+     * @return read-only view of length bytes
+     */
+    ByteBuffer slice(final int length) {
+        ensure(length);
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.limit(position + length).position(position);
+        position += length;
+        return view.slice();
+    }
+
+    /**
+     * Read AID, bytes are packed straight out of backing buffer
+     *
+     * @param length AID length
+     * @return AID value
+     */
+    Aid readAid(final int length) {
+        ensure(length);
+        final Aid aid = Aid.valueOf(buffer, position, length);
+        position += length;
+        return aid;
+    }
+
+    /**
+     * Read bytes as UTF-8 string. Heap buffers are decoded straight out of the backing array
+     *
+     * @param length count of bytes
+     * @return decoded string
+     */
+    String readUtf8(final int length) {
+        ensure(length);
+        final String s = readUtf8(buffer, position, length);
+        position += length;
+        return s;
+    }
+
+    /**
+     * Decode bytes as UTF-8 string using absolute access. Heap buffers are decoded straight out of the backing
+     * array, read-only and direct buffers are bulk copied first.
+     *
+     * @param buffer buffer holding UTF-8 bytes, its position is not modified
+     * @param offset absolute offset of bytes within buffer
+     * @param length count of bytes
+     * @return decoded string
+     */
+    static String readUtf8(final ByteBuffer buffer, final int offset, final int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+
+        final byte[] tmp = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.limit(offset + length).position(offset);
+        view.get(tmp);
+        return new String(tmp, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(final int length) {
+        if ((length < 0) || (limit - position < length)) {
+            throw new BufferUnderflowException();
+        }
+    }
+}
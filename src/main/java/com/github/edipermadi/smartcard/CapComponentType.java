@@ -0,0 +1,82 @@
+package com.github.edipermadi.smartcard;
+
+/**
+ * CAP component types, as identified by component tag and file name within CAP archive
+ */
+public enum CapComponentType {
+    HEADER(1, CapDecoderImplBase.COMPONENT_Header),
+    DIRECTORY(2, CapDecoderImplBase.COMPONENT_Directory),
+    APPLET(3, CapDecoderImplBase.COMPONENT_Applet),
+    IMPORT(4, CapDecoderImplBase.COMPONENT_Import),
+    CONSTANT_POOL(5, CapDecoderImplBase.COMPONENT_ConstantPool),
+    CLASS(6, CapDecoderImplBase.COMPONENT_Class),
+    METHOD(7, CapDecoderImplBase.COMPONENT_Method),
+    STATIC_FIELD(8, CapDecoderImplBase.COMPONENT_StaticField),
+    REFERENCE_LOCATION(9, CapDecoderImplBase.COMPONENT_ReferenceLocation),
+    EXPORT(10, CapDecoderImplBase.COMPONENT_Export),
+    DESCRIPTOR(11, CapDecoderImplBase.COMPONENT_Descriptor),
+    DEBUG(12, CapDecoderImplBase.COMPONENT_Debug);
+
+    private final int tag;
+    private final String fileName;
+
+    CapComponentType(final int tag, final String fileName) {
+        this.tag = tag;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Get component tag
+     *
+     * @return component tag
+     */
+    public int getTag() {
+        return tag;
+    }
+
+    /**
+     * Get component file name
+     *
+     * @return component file name, such as Header.cap
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Lookup component type by file name
+     *
+     * @param fileName component file name, without directory
+     * @return component type or null when file name is not a standard component
+     */
+    public static CapComponentType forFileName(final String fileName) {
+        switch (fileName) {
+            case CapDecoderImplBase.COMPONENT_Header:
+                return HEADER;
+            case CapDecoderImplBase.COMPONENT_Directory:
+                return DIRECTORY;
+            case CapDecoderImplBase.COMPONENT_Applet:
+                return APPLET;
+            case CapDecoderImplBase.COMPONENT_Import:
+                return IMPORT;
+            case CapDecoderImplBase.COMPONENT_ConstantPool:
+                return CONSTANT_POOL;
+            case CapDecoderImplBase.COMPONENT_Class:
+                return CLASS;
+            case CapDecoderImplBase.COMPONENT_Method:
+                return METHOD;
+            case CapDecoderImplBase.COMPONENT_StaticField:
+                return STATIC_FIELD;
+            case CapDecoderImplBase.COMPONENT_ReferenceLocation:
+                return REFERENCE_LOCATION;
+            case CapDecoderImplBase.COMPONENT_Export:
+                return EXPORT;
+            case CapDecoderImplBase.COMPONENT_Descriptor:
+                return DESCRIPTOR;
+            case CapDecoderImplBase.COMPONENT_Debug:
+                return DEBUG;
+            default:
+                return null;
+        }
+    }
+}
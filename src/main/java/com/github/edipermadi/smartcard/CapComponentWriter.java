@@ -0,0 +1,155 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable growable buffer used to encode CAP component payload. Counterpart of {@link CapComponentReader}.
+ */
+final class CapComponentWriter {
+    private ByteBuffer buffer;
+
+    /**
+     * Class constructor
+     *
+     * @param capacity initial capacity
+     */
+    CapComponentWriter(final int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Discard written content, keeping allocated buffer
+     *
+     * @return this instance
+     */
+    CapComponentWriter reset() {
+        buffer.clear();
+        return this;
+    }
+
+    /**
+     * Get count of written bytes
+     *
+     * @return count of written bytes
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    CapComponentWriter writeU1(final int v) {
+        ensure(1);
+        buffer.put((byte) v);
+        return this;
+    }
+
+    CapComponentWriter writeU2(final int v) {
+        ensure(2);
+        buffer.putShort((short) v);
+        return this;
+    }
+
+    CapComponentWriter writeU4(final int v) {
+        ensure(4);
+        buffer.putInt(v);
+        return this;
+    }
+
+    CapComponentWriter writeU8(final long v) {
+        ensure(8);
+        buffer.putLong(v);
+        return this;
+    }
+
+    /**
+     * Write bytes
+     *
+     * @param bytes bytes to be written, from position to limit; position is not modified
+     * @return this instance
+     */
+    CapComponentWriter writeBytes(final ByteBuffer bytes) {
+        ensure(bytes.remaining());
+        buffer.put(bytes.duplicate());
+        return this;
+    }
+
+    /**
+     * Write version as minor then major byte
+     *
+     * @param version version encoded in 0xaabb (major, minor)
+     * @return this instance
+     */
+    CapComponentWriter writeVersion(final int version) {
+        return writeU1(version & 0xff).writeU1((version >> 8) & 0xff);
+    }
+
+    /**
+     * Write 16-bit value at absolute position, used to patch component size
+     *
+     * @param position absolute position
+     * @param v        value
+     * @return this instance
+     */
+    CapComponentWriter writeU2At(final int position, final int v) {
+        buffer.putShort(position, (short) v);
+        return this;
+    }
+
+    /**
+     * Write 32-bit value at absolute position, used to patch length
+     *
+     * @param position absolute position
+     * @param v        value
+     * @return this instance
+     */
+    CapComponentWriter writeU4At(final int position, final int v) {
+        buffer.putInt(position, v);
+        return this;
+    }
+
+    /**
+     * Write AID bytes, without length
+     *
+     * @param aid AID
+     * @return this instance
+     */
+    CapComponentWriter writeAid(final Aid aid) {
+        final int length = aid.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(aid.byteAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Write bytes of string in UTF-8
+     *
+     * @param s string to be written
+     * @return this instance
+     */
+    CapComponentWriter writeUtf8(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    /**
+     * Get backing array
+     *
+     * @return backing array, valid from 0 up to {@link #position()}
+     */
+    byte[] array() {
+        return buffer.array();
+    }
+
+    private void ensure(final int length) {
+        if (buffer.remaining() < length) {
+            final ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() << 1, buffer.position() + length));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.edipermadi.smartcard;
+
+/**
+ * CAP constant pool component builder. Entries are stored as parallel primitive arrays, a tag array and an array
+ * of the 3 info bytes packed big-endian into an int.
+ */
+final class CapConstantPoolBuilder {
+    private final byte[] tags;
+    private final int[] infos;
+    private int count;
+
+    /**
+     * Class constructor
+     *
+     * @param count count of entries to be added
+     */
+    CapConstantPoolBuilder(final int count) {
+        this.tags = new byte[count];
+        this.infos = new int[count];
+    }
+
+    /**
+     * Add constant pool entry
+     *
+     * @param tag  entry tag
+     * @param info 3 bytes of entry info, packed big-endian
+     * @return this instance
+     */
+    CapConstantPoolBuilder addEntry(final int tag, final int info) {
+        tags[count] = (byte) tag;
+        infos[count] = info & 0xffffff;
+        count++;
+        return this;
+    }
+
+    /**
+     * Build CAP constant pool component object
+     *
+     * @return CAP constant pool component object
+     */
+    Cap.ConstantPool build() {
+        if (count != tags.length) {
+            throw new IllegalStateException("expected " + tags.length + " constant pool entries, got " + count);
+        }
+        return new CapConstantPool(this);
+    }
+
+    /**
+     * CAP constant pool component implementation
+     */
+    static final class CapConstantPool implements Cap.ConstantPool {
+        private final byte[] tags;
+        private final int[] infos;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP constant pool builder
+         */
+        CapConstantPool(final CapConstantPoolBuilder builder) {
+            this.tags = builder.tags;
+            this.infos = builder.infos;
+        }
+
+        @Override
+        public int getCount() {
+            return tags.length;
+        }
+
+        @Override
+        public int getTag(final int index) {
+            return tags[index];
+        }
+
+        @Override
+        public boolean isExternal(final int index) {
+            return (infos[index] & 0x800000) != 0;
+        }
+
+        @Override
+        public int getPackageToken(final int index) {
+            return isExternal(index) ? ((infos[index] >> 16) & 0x7f) : -1;
+        }
+
+        @Override
+        public int getClassToken(final int index) {
+            return isExternal(index) ? ((infos[index] >> 8) & 0xff) : -1;
+        }
+
+        @Override
+        public int getMemberToken(final int index) {
+            switch (tags[index]) {
+                case CONSTANT_InstanceFieldref:
+                case CONSTANT_VirtualMethodref:
+                case CONSTANT_SuperMethodref:
+                    return infos[index] & 0xff;
+                case CONSTANT_StaticFieldref:
+                case CONSTANT_StaticMethodref:
+                    return isExternal(index) ? (infos[index] & 0xff) : -1;
+                default:
+                    return -1;
+            }
+        }
+
+        @Override
+        public int getInternalOffset(final int index) {
+            if (isExternal(index)) {
+                return -1;
+            }
+            switch (tags[index]) {
+                case CONSTANT_StaticFieldref:
+                case CONSTANT_StaticMethodref:
+                    return infos[index] & 0xffff;
+                default:
+                    return (infos[index] >> 8) & 0xffff;
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CAP debug component builder. The symbolization index is flattened into primitive arrays sorted by method offset,
+ * names are kept as indices into debug string table which stays in component payload. Lines of every method are
+ * appended into one growable array, each method holding the start index of its own run.
+ */
+final class CapDebugBuilder {
+    private final ByteBuffer payload;
+    private final int[] stringPositions;
+    private final int packageNameIndex;
+    private final List<int[]> classes = new ArrayList<>();
+    private final List<int[]> methods = new ArrayList<>();
+    private long[] lines = new long[64];
+    private int lineCount;
+
+    /**
+     * Class constructor
+     *
+     * @param payload          debug component payload, strings are read from it using absolute access
+     * @param stringPositions  absolute position of every utf8_info of string table
+     * @param packageNameIndex string index of package name
+     */
+    CapDebugBuilder(final ByteBuffer payload, final int[] stringPositions, final int packageNameIndex) {
+        if (payload == null) {
+            throw new IllegalArgumentException("debug payload is null");
+        }
+        this.payload = payload.asReadOnlyBuffer();
+        this.stringPositions = stringPositions;
+        this.packageNameIndex = packageNameIndex;
+    }
+
+    /**
+     * Add class
+     *
+     * @param nameIndex       string index of class name
+     * @param sourceFileIndex string index of source file name
+     * @return this instance
+     */
+    CapDebugBuilder addClass(final int nameIndex, final int sourceFileIndex) {
+        classes.add(new int[]{nameIndex, sourceFileIndex});
+        return this;
+    }
+
+    /**
+     * Add method of the last added class
+     *
+     * @param nameIndex       string index of method name
+     * @param descriptorIndex string index of method descriptor
+     * @param location        method offset
+     * @param size            method header and body size
+     * @return this instance
+     */
+    CapDebugBuilder addMethod(final int nameIndex, final int descriptorIndex, final int location, final int size) {
+        if (classes.isEmpty()) {
+            throw new IllegalStateException("method added before class");
+        }
+        methods.add(new int[]{classes.size() - 1, nameIndex, descriptorIndex, location, size, lineCount});
+        return this;
+    }
+
+    /**
+     * Add line of the last added method
+     *
+     * @param startPc    first bytecode index of line
+     * @param endPc      last bytecode index of line, inclusive
+     * @param sourceLine source line
+     * @return this instance
+     */
+    CapDebugBuilder addLine(final int startPc, final int endPc, final int sourceLine) {
+        if (methods.isEmpty()) {
+            throw new IllegalStateException("line added before method");
+        }
+        if (lineCount == lines.length) {
+            lines = Arrays.copyOf(lines, lineCount << 1);
+        }
+        lines[lineCount++] = ((long) startPc << 32) | ((long) endPc << 16) | sourceLine;
+        return this;
+    }
+
+    /**
+     * Build CAP debug component object
+     *
+     * @return CAP debug component object
+     */
+    Cap.Debug build() {
+        return new CapDebug(this);
+    }
+
+    /**
+     * CAP debug component implementation
+     */
+    static final class CapDebug implements Cap.Debug {
+        private final ByteBuffer payload;
+        private final int[] stringPositions;
+        private final int packageNameIndex;
+
+        /* per class */
+        private final char[] classNames;
+        private final char[] sourceFiles;
+
+        /* per method, sorted by offset */
+        private final int[] methodOffsets;
+        private final int[] methodEnds;
+        private final char[] methodClasses;
+        private final char[] methodNames;
+        private final char[] methodDescriptors;
+        private final int[] lineStarts;
+
+        /* per line, grouped by method and sorted by start PC */
+        private final char[] lineStartPcs;
+        private final char[] lineEndPcs;
+        private final char[] lineNumbers;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP debug builder
+         */
+        CapDebug(final CapDebugBuilder builder) {
+            this.payload = builder.payload;
+            this.stringPositions = builder.stringPositions;
+            this.packageNameIndex = builder.packageNameIndex;
+
+            this.classNames = new char[builder.classes.size()];
+            this.sourceFiles = new char[builder.classes.size()];
+            for (int i = 0; i < classNames.length; i++) {
+                classNames[i] = (char) builder.classes.get(i)[0];
+                sourceFiles[i] = (char) builder.classes.get(i)[1];
+            }
+
+            /* sort methods by offset, original index packed into low half of key */
+            final int methodCount = builder.methods.size();
+            final long[] keys = new long[methodCount];
+            for (int i = 0; i < methodCount; i++) {
+                keys[i] = ((long) builder.methods.get(i)[3] << 32) | i;
+            }
+            Arrays.sort(keys);
+            final int lineCount = builder.lineCount;
+
+            this.methodOffsets = new int[methodCount];
+            this.methodEnds = new int[methodCount];
+            this.methodClasses = new char[methodCount];
+            this.methodNames = new char[methodCount];
+            this.methodDescriptors = new char[methodCount];
+            this.lineStarts = new int[methodCount + 1];
+            this.lineStartPcs = new char[lineCount];
+            this.lineEndPcs = new char[lineCount];
+            this.lineNumbers = new char[lineCount];
+            int line = 0;
+            for (int i = 0; i < methodCount; i++) {
+                final int j = (int) keys[i];
+                final int[] method = builder.methods.get(j);
+                methodClasses[i] = (char) method[0];
+                methodNames[i] = (char) method[1];
+                methodDescriptors[i] = (char) method[2];
+                methodOffsets[i] = method[3];
+                methodEnds[i] = method[3] + method[4];
+
+                /* lines of method j run up to lines of method j + 1, which was added next */
+                final int from = method[5];
+                final int to = (j + 1 < methodCount) ? builder.methods.get(j + 1)[5] : lineCount;
+                Arrays.sort(builder.lines, from, to);
+                lineStarts[i] = line;
+                for (int k = from; k < to; k++) {
+                    final long l = builder.lines[k];
+                    lineStartPcs[line] = (char) (l >>> 32);
+                    lineEndPcs[line] = (char) (l >>> 16);
+                    lineNumbers[line] = (char) l;
+                    line++;
+                }
+            }
+            lineStarts[methodCount] = line;
+        }
+
+        @Override
+        public String getPackageName() {
+            return string(packageNameIndex);
+        }
+
+        @Override
+        public int getMethodCount() {
+            return methodOffsets.length;
+        }
+
+        @Override
+        public int indexOfMethod(final int offset) {
+            int i = Arrays.binarySearch(methodOffsets, offset);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return ((i >= 0) && (offset < methodEnds[i])) ? i : -1;
+        }
+
+        @Override
+        public int getMethodOffset(final int method) {
+            return methodOffsets[method];
+        }
+
+        @Override
+        public String getMethodName(final int method) {
+            return string(methodNames[method]);
+        }
+
+        @Override
+        public String getMethodDescriptor(final int method) {
+            return string(methodDescriptors[method]);
+        }
+
+        @Override
+        public String getClassName(final int method) {
+            return string(classNames[methodClasses[method]]);
+        }
+
+        @Override
+        public String getSourceFile(final int method) {
+            return string(sourceFiles[methodClasses[method]]);
+        }
+
+        @Override
+        public int getLineNumber(final int method, final int pc) {
+            /* last line starting at or before PC, lines are sorted by start PC within method */
+            int lo = lineStarts[method];
+            int hi = lineStarts[method + 1] - 1;
+            int found = -1;
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (lineStartPcs[mid] <= pc) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return ((found >= 0) && (pc <= lineEndPcs[found])) ? lineNumbers[found] : -1;
+        }
+
+        @Override
+        public Location symbolize(final int methodOffset, final int pc) {
+            final int method = indexOfMethod(methodOffset);
+            return (method < 0) ? null : new CapDebugLocation(this, method, getLineNumber(method, pc));
+        }
+
+        /**
+         * Read string out of debug string table
+         */
+        private String string(final int index) {
+            final int position = stringPositions[index];
+            final int length = ((payload.get(position) & 0xff) << 8) | (payload.get(position + 1) & 0xff);
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = payload.get(position + 2 + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * CAP debug source location implementation, names are resolved on access
+     */
+    static final class CapDebugLocation implements Cap.Debug.Location {
+        private final Cap.Debug debug;
+        private final int method;
+        private final int lineNumber;
+
+        /**
+         * Class constructor
+         *
+         * @param debug      debug component
+         * @param method     method index
+         * @param lineNumber source line or -1 when unknown
+         */
+        CapDebugLocation(final Cap.Debug debug, final int method, final int lineNumber) {
+            this.debug = debug;
+            this.method = method;
+            this.lineNumber = lineNumber;
+        }
+
+        @Override
+        public String getClassName() {
+            return debug.getClassName(method);
+        }
+
+        @Override
+        public String getMethodName() {
+            return debug.getMethodName(method);
+        }
+
+        @Override
+        public String getSourceFile() {
+            return debug.getSourceFile(method);
+        }
+
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        public String toString() {
+            return getClassName() + "." + getMethodName() + "(" + getSourceFile() + ":" + lineNumber + ")";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * CAP decoding options. Components which are not selected are skipped without being buffered.
+ * Header and directory components are mandatory, hence always selected. Selected components which are not
+ * materialized into CAP object are available through {@link Cap#getRawComponent(CapComponentType)}. Selecting method
+ * component also selects descriptor component, which holds method boundaries.
+ */
+public final class CapDecodeOptions {
+    private final EnumSet<CapComponentType> components;
+    private boolean lazy;
+    private CapInternPool internPool;
+    private CapDecoderListener listener;
+    private boolean extraEntries;
+
+    /**
+     * Class constructor, selects header, directory and applet components with eager decoding
+     */
+    public CapDecodeOptions() {
+        this.components = EnumSet.of(CapComponentType.HEADER, CapComponentType.DIRECTORY, CapComponentType.APPLET);
+    }
+
+    /**
+     * Copy constructor
+     *
+     * @param options options to be copied
+     */
+    public CapDecodeOptions(final CapDecodeOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options is null");
+        }
+        this.components = EnumSet.copyOf(options.components);
+        this.lazy = options.lazy;
+        this.internPool = options.internPool;
+        this.listener = options.listener;
+        this.extraEntries = options.extraEntries;
+    }
+
+    /**
+     * Set selected components
+     *
+     * @param components components to be decoded
+     * @return this instance
+     */
+    public CapDecodeOptions setComponents(final CapComponentType... components) {
+        if (components == null) {
+            throw new IllegalArgumentException("components is null");
+        }
+        return setComponents(Arrays.asList(components));
+    }
+
+    /**
+     * Set selected components
+     *
+     * @param components components to be decoded
+     * @return this instance
+     */
+    public CapDecodeOptions setComponents(final Collection<CapComponentType> components) {
+        if (components == null) {
+            throw new IllegalArgumentException("components is null");
+        }
+        this.components.clear();
+        this.components.add(CapComponentType.HEADER);
+        this.components.add(CapComponentType.DIRECTORY);
+        this.components.addAll(components);
+        if (this.components.contains(CapComponentType.METHOD)) {
+            this.components.add(CapComponentType.DESCRIPTOR);
+        }
+        return this;
+    }
+
+    /**
+     * Set lazy decoding mode
+     *
+     * @param lazy when true, components are kept raw and decoded on first access of {@link Cap} getters, decoding
+     *             failure is then reported as {@link com.github.edipermadi.smartcard.exc.CapUncheckedException}
+     * @return this instance
+     */
+    public CapDecodeOptions setLazy(final boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    /**
+     * Set intern pool sharing identical AIDs and package names across decoded CAP objects
+     *
+     * @param internPool intern pool, null to disable interning
+     * @return this instance
+     */
+    public CapDecodeOptions setInternPool(final CapInternPool internPool) {
+        this.internPool = internPool;
+        return this;
+    }
+
+    /**
+     * Set instrumentation listener
+     *
+     * @param listener listener notified of decode and component timings, null to disable instrumentation
+     * @return this instance
+     */
+    public CapDecodeOptions setListener(final CapDecoderListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Set whether archive entries other than standard components are kept, being META-INF/MANIFEST.MF and custom
+     * components. They are available through {@link Cap#getManifest()} and {@link Cap#getCustomComponents()} and are
+     * required to encode decoded CAP back without losing them.
+     *
+     * @param extraEntries true to keep manifest and custom components
+     * @return this instance
+     */
+    public CapDecodeOptions setExtraEntries(final boolean extraEntries) {
+        this.extraEntries = extraEntries;
+        return this;
+    }
+
+    /**
+     * Get selected components
+     *
+     * @return unmodifiable set of selected components
+     */
+    public Set<CapComponentType> getComponents() {
+        return Collections.unmodifiableSet(components);
+    }
+
+    /**
+     * Check whether a component is selected
+     *
+     * @param type component type
+     * @return true when selected
+     */
+    public boolean isSelected(final CapComponentType type) {
+        return components.contains(type);
+    }
+
+    /**
+     * Check whether lazy decoding is enabled
+     *
+     * @return true when lazy
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Get intern pool
+     *
+     * @return intern pool or null when interning is disabled
+     */
+    public CapInternPool getInternPool() {
+        return internPool;
+    }
+
+    /**
+     * Get instrumentation listener
+     *
+     * @return listener or null when instrumentation is disabled
+     */
+    public CapDecoderListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Check whether manifest and custom components are kept
+     *
+     * @return true when kept
+     */
+    public boolean isExtraEntries() {
+        return extraEntries;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of decoding a single CAP file within a batch, holding either decoded CAP or decoding failure
+ */
+public final class CapDecodeResult {
+    private final Path path;
+    private final Cap cap;
+    private final CapException exception;
+
+    /**
+     * Class constructor
+     *
+     * @param path      path to CAP file
+     * @param cap       decoded CAP, null on failure
+     * @param exception decoding failure, null on success
+     */
+    CapDecodeResult(final Path path, final Cap cap, final CapException exception) {
+        this.path = path;
+        this.cap = cap;
+        this.exception = exception;
+    }
+
+    /**
+     * Get path to CAP file
+     *
+     * @return path to CAP file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Check whether decoding succeeded
+     *
+     * @return true when CAP is decoded
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    /**
+     * Get decoded CAP
+     *
+     * @return decoded CAP or null on failure
+     */
+    public Cap getCap() {
+        return cap;
+    }
+
+    /**
+     * Get decoding failure
+     *
+     * @return decoding failure or null on success
+     */
+    public CapException getException() {
+        return exception;
+    }
+}
@@ -2,8 +2,67 @@ package com.github.edipermadi.smartcard;
 
 import com.github.edipermadi.smartcard.exc.CapException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+/**
+ * CAP decoder interface
+ *
+ * @author Edi Permadi
+ */
 public interface CapDecoder {
+    /**
+     * Decode CAP file from stream, every ZIP entry is read sequentially
+     *
+     * @param stream CAP file stream
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
     Cap decode(InputStream stream) throws CapException;
+
+    /**
+     * Decode CAP file from file system. Default implementation reads file as stream, implementations may override it
+     * to only read required ZIP entries.
+     *
+     * @param path path to CAP file
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
+    default Cap decode(final Path path) throws CapException {
+        if (path == null) {
+            throw new IllegalArgumentException("CAP path is null");
+        }
+
+        try (final InputStream stream = Files.newInputStream(path)) {
+            return decode(stream);
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP file " + path, ex);
+        }
+    }
+
+    /**
+     * Decode in-memory CAP file. Default implementation reads content as stream, implementations may override it to
+     * only inflate required ZIP entries.
+     *
+     * @param archive CAP file content, from its position to its limit
+     * @param path    path the content was read from, only used to identify the file, may be null
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
+    default Cap decode(final ByteBuffer archive, final Path path) throws CapException {
+        if (archive == null) {
+            throw new IllegalArgumentException("CAP archive is null");
+        } else if (archive.hasArray()) {
+            return decode(new ByteArrayInputStream(archive.array(), archive.arrayOffset() + archive.position(),
+                    archive.remaining()));
+        }
+
+        final byte[] content = new byte[archive.remaining()];
+        archive.duplicate().get(content);
+        return decode(new ByteArrayInputStream(content));
+    }
 }
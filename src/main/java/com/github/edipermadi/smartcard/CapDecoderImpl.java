@@ -1,17 +1,29 @@
 package com.github.edipermadi.smartcard;
 
 import com.github.edipermadi.smartcard.exc.*;
-import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -20,12 +32,298 @@ import java.util.zip.ZipInputStream;
  * @author Edi Permadi
  */
 public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
+    private static final UnaryOperator<CapDecoderListener> JFR_WRAPPER = loadJfrWrapper();
+
+    private final CapDecodeOptions options;
+
+    /**
+     * Class constructor, decodes header, directory and applet components eagerly
+     */
+    public CapDecoderImpl() {
+        this(new CapDecodeOptions());
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param options decoding options, copied at construction
+     */
+    public CapDecoderImpl(final CapDecodeOptions options) {
+        this.options = new CapDecodeOptions(options);
+    }
 
     @Override
     public Cap decode(final InputStream stream) throws CapException {
+        return decode(null, stream, null);
+    }
+
+    /**
+     * Decode CAP file by random access. Entries are located through ZIP central directory, only selected components
+     * are inflated, the remaining entries (such as method and debug components) are never read.
+     *
+     * @param path path to CAP file
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
+    @Override
+    public Cap decode(final Path path) throws CapException {
+        return decode(path, null, null);
+    }
+
+    /**
+     * Decode in-memory CAP file. Entries are located through ZIP central directory, only selected components are
+     * inflated.
+     *
+     * @param archive CAP file content, from its position to its limit
+     * @param path    path the content was read from, reported to listener, may be null
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
+    @Override
+    public Cap decode(final ByteBuffer archive, final Path path) throws CapException {
+        if (archive == null) {
+            throw new IllegalArgumentException("CAP archive is null");
+        }
+        return decode(path, null, archive);
+    }
+
+    /**
+     * Decode CAP file out of either memory, file system or stream, reporting decode entry and exit to listener. JFR
+     * events are emitted through an additional listener while they are enabled in a running recording.
+     *
+     * @param path    path to CAP file, null when decoding from stream
+     * @param stream  CAP file stream, ignored when either path or archive is given
+     * @param archive in-memory CAP file, null when decoding from either file system or stream
+     * @return CAP object
+     * @throws CapException when decoding failed
+     */
+    private Cap decode(final Path path, final InputStream stream, final ByteBuffer archive) throws CapException {
+        final CapDecoderListener listener = (JFR_WRAPPER == null)
+                ? options.getListener() : JFR_WRAPPER.apply(options.getListener());
+        final Map<String, ByteBuffer> extras = options.isExtraEntries() ? new LinkedHashMap<String, ByteBuffer>() : null;
+        if (listener == null) {
+            return build(readComponents(path, stream, archive, extras, null), extras, null);
+        }
+
+        listener.onDecodeStart(path, archiveSize(path, archive));
+        final long start = System.nanoTime();
+        try {
+            final Cap cap = build(readComponents(path, stream, archive, extras, listener), extras, listener);
+            listener.onDecodeEnd(path, System.nanoTime() - start, null);
+            return cap;
+        } catch (final CapException | RuntimeException ex) {
+            listener.onDecodeEnd(path, System.nanoTime() - start, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Determine CAP archive size reported to listener
+     *
+     * @param path    path to CAP file, null when decoding from stream
+     * @param archive in-memory CAP file, null when decoding from either file system or stream
+     * @return archive size in bytes or -1 when unknown
+     */
+    private static long archiveSize(final Path path, final ByteBuffer archive) {
+        if (archive != null) {
+            return archive.remaining();
+        }
+        try {
+            return (path == null) ? -1 : Files.size(path);
+        } catch (final IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Decode CAP file asynchronously. The file is read into memory with non-blocking I/O, inflation of selected
+     * components and parsing run on executor. Cancelling or otherwise completing returned future stops pending reads
+     * and closes the file.
+     *
+     * @param path     path to CAP file
+     * @param executor executor running inflation and parsing
+     * @return future of CAP object, failed with {@link CapException} when decoding failed
+     */
+    public CompletableFuture<Cap> decodeAsync(final Path path, final Executor executor) {
+        if (path == null) {
+            throw new IllegalArgumentException("CAP path is null");
+        } else if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+
+        final AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (final IOException ex) {
+            final CompletableFuture<Cap> result = new CompletableFuture<>();
+            result.completeExceptionally(new CapException("failed to read CAP file " + path, ex));
+            return result;
+        }
+        return new CapAsyncDecode(this, path, channel, true, executor).start();
+    }
+
+    /**
+     * Decode CAP file asynchronously out of caller owned channel, read from its beginning. The channel is not
+     * closed, completing returned future early stops further reads but leaves pending read running.
+     *
+     * @param channel  channel to read CAP file from
+     * @param executor executor running inflation and parsing
+     * @return future of CAP object, failed with {@link CapException} when decoding failed
+     */
+    public CompletableFuture<Cap> decodeAsync(final AsynchronousFileChannel channel, final Executor executor) {
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is null");
+        } else if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        return new CapAsyncDecode(this, null, channel, false, executor).start();
+    }
+
+    /**
+     * Parse CAP file from stream and report its content to visitor, no CAP object is built
+     *
+     * @param stream  CAP file stream
+     * @param visitor CAP visitor
+     * @throws CapException when decoding failed
+     */
+    public void accept(final InputStream stream, final CapVisitor visitor) throws CapException {
+        if (visitor == null) {
+            throw new IllegalArgumentException("visitor is null");
+        }
+        accept(readComponents(stream, null, null), visitor);
+    }
+
+    /**
+     * Parse CAP file from file system and report its content to visitor, no CAP object is built. Only selected
+     * components are read.
+     *
+     * @param path    path to CAP file
+     * @param visitor CAP visitor
+     * @throws CapException when decoding failed
+     */
+    public void accept(final Path path, final CapVisitor visitor) throws CapException {
+        if (visitor == null) {
+            throw new IllegalArgumentException("visitor is null");
+        }
+        accept(readComponents(path, null, null), visitor);
+    }
+
+    /**
+     * Report collected component payloads to visitor in tag order
+     *
+     * @param components component payloads
+     * @param visitor    CAP visitor
+     * @throws CapDecodeException when component decoding failed
+     */
+    private static void accept(final EnumMap<CapComponentType, ByteBuffer> components, final CapVisitor visitor)
+            throws CapDecodeException {
+        for (final Map.Entry<CapComponentType, ByteBuffer> e : components.entrySet()) {
+            switch (e.getKey()) {
+                case HEADER:
+                    visitCapHeader(e.getValue(), visitor);
+                    break;
+                case DIRECTORY:
+                    visitCapDirectory(e.getValue(), visitor);
+                    break;
+                case APPLET:
+                    visitCapApplet(e.getValue(), visitor);
+                    break;
+                default:
+                    visitor.visitComponent(e.getKey(), e.getValue().asReadOnlyBuffer());
+                    break;
+            }
+        }
+        visitor.visitEnd();
+    }
+
+    /**
+     * Read selected component payloads out of in-memory archive when given, otherwise out of file system or stream
+     *
+     * @param path     path to CAP file, null when reading from stream
+     * @param stream   CAP file stream, ignored when either path or archive is given
+     * @param archive  in-memory CAP file, null when reading from either file system or stream
+     * @param extras   receives manifest and custom component payloads keyed by entry name, null to skip them
+     * @param listener instrumentation listener, null to disable instrumentation
+     * @return component payloads, ordered by component tag, along with their directory
+     * @throws CapException when reading failed
+     */
+    private Components readComponents(final Path path, final InputStream stream,
+                                                                 final ByteBuffer archive,
+                                                                 final Map<String, ByteBuffer> extras,
+                                                                 final CapDecoderListener listener)
+            throws CapException {
+        if (archive != null) {
+            return readComponents(archive, extras, listener);
+        }
+        return (path == null) ? readComponents(stream, extras, listener) : readComponents(path, extras, listener);
+    }
+
+    /**
+     * Read selected component payloads out of in-memory CAP file, entries are located through ZIP central directory
+     * and unselected entries are never inflated
+     *
+     * @param archive  CAP file content, from its position to its limit
+     * @param extras   receives manifest and custom component payloads keyed by entry name, null to skip them
+     * @param listener instrumentation listener, null to disable instrumentation
+     * @return component payloads, ordered by component tag, along with their directory
+     * @throws CapException when reading failed
+     */
+    private Components readComponents(final ByteBuffer archive,
+                                                                 final Map<String, ByteBuffer> extras,
+                                                                 final CapDecoderListener listener)
+            throws CapException {
+        if (archive.remaining() > MAX_ARCHIVE_SIZE) {
+            throw new CapFormatException("CAP archive is too large");
+        }
+
+        try {
+            final CapZipReader zr = new CapZipReader(archive);
+            final Components components = new Components();
+            while (zr.next()) {
+                if (zr.isDirectory()) {
+                    continue;
+                }
+
+                final CapComponentType type = componentType(zr.getName());
+                components.seen(type, zr.getName());
+                if ((type == null) && (extras != null) && isExtraEntry(zr.getName())) {
+                    extras.put(zr.getName(), zr.read(MAX_COMPONENT_SIZE, "CAP component"));
+                    continue;
+                } else if ((type == null) || !options.isSelected(type)) {
+                    continue;
+                }
+
+                final long start = (listener == null) ? 0 : System.nanoTime();
+                final ByteBuffer payload = zr.read(MAX_COMPONENT_SIZE, "CAP component");
+                if (listener != null) {
+                    listener.onComponentRead(type, zr.getCompressedSize(), payload.remaining(),
+                            System.nanoTime() - start);
+                }
+                components.put(type, payload);
+            }
+
+            return components;
+        } catch (final ZipException ex) {
+            throw new CapFormatException("unrecogzied CAP format", ex);
+        }
+    }
+
+    /**
+     * Read selected component payloads out of CAP stream, every ZIP entry is read sequentially
+     *
+     * @param stream   CAP file stream
+     * @param extras   receives manifest and custom component payloads keyed by entry name, null to skip them
+     * @param listener instrumentation listener, null to disable instrumentation
+     * @return component payloads, ordered by component tag, along with their directory
+     * @throws CapException when reading failed
+     */
+    private Components readComponents(final InputStream stream,
+                                                                 final Map<String, ByteBuffer> extras,
+                                                                 final CapDecoderListener listener)
+            throws CapException {
         final ZipInputStream zis = new ZipInputStream(stream);
         try {
-            final CapBuilder builder = new CapBuilder();
+            final Components components = new Components();
             while (true) {
                 final ZipEntry ze = zis.getNextEntry();
                 if (ze == null) {
@@ -34,34 +332,27 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
                     continue;
                 }
 
-                final String path = ze.getName();
-                final String name = Paths.get(path).toFile().getName();
-                final byte[] payload = IOUtils.toByteArray(zis);
-                zis.closeEntry();
+                /* unselected entries are skipped by next getNextEntry() without being buffered */
+                final CapComponentType type = componentType(ze);
+                components.seen(type, ze.getName());
+                if ((type == null) && (extras != null) && isExtraEntry(ze.getName())) {
+                    extras.put(ze.getName(), readPayload(zis, ze.getSize()));
+                    continue;
+                } else if ((type == null) || !options.isSelected(type)) {
+                    continue;
+                }
 
-                switch (name) {
-                    case COMPONENT_Header:
-                        builder.setHeader(decodeCapHeader(payload));
-                        break;
-                    case COMPONENT_Directory:
-                        builder.setDirectory(decodeCapDirectory(payload));
-                        break;
-                    case COMPONENT_Applet:
-                        builder.setApplet(decodeCapApplet(payload));
-                        break;
-                    case COMPONENT_Import:
-                    case COMPONENT_ConstantPool:
-                    case COMPONENT_Class:
-                    case COMPONENT_Method:
-                    case COMPONENT_StaticField:
-                    case COMPONENT_ReferenceLocation:
-                    case COMPONENT_Export:
-                    case COMPONENT_Descriptor:
-                    case COMPONENT_Debug:
+                final long start = (listener == null) ? 0 : System.nanoTime();
+                final ByteBuffer payload = readPayload(zis, ze.getSize());
+                zis.closeEntry();
+                if (listener != null) {
+                    listener.onComponentRead(type, ze.getCompressedSize(), payload.remaining(),
+                            System.nanoTime() - start);
                 }
+                components.put(type, payload);
             }
 
-            return builder.build();
+            return components;
         } catch (final IOException ex) {
             throw new CapFormatException("unrecogzied CAP format", ex);
         } finally {
@@ -69,6 +360,243 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
         }
     }
 
+    /**
+     * Read selected component payloads out of CAP file, entries are located through ZIP central directory
+     *
+     * @param path     path to CAP file
+     * @param extras   receives manifest and custom component payloads keyed by entry name, null to skip them
+     * @param listener instrumentation listener, null to disable instrumentation
+     * @return component payloads, ordered by component tag, along with their directory
+     * @throws CapException when reading failed
+     */
+    private Components readComponents(final Path path,
+                                                                 final Map<String, ByteBuffer> extras,
+                                                                 final CapDecoderListener listener)
+            throws CapException {
+        if (path == null) {
+            throw new IllegalArgumentException("CAP path is null");
+        }
+
+        ZipFile zf = null;
+        try {
+            zf = new ZipFile(path.toFile());
+            final Components components = new Components();
+            final Enumeration<? extends ZipEntry> entries = zf.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry ze = entries.nextElement();
+                if (ze.isDirectory()) {
+                    continue;
+                }
+
+                final CapComponentType type = componentType(ze);
+                components.seen(type, ze.getName());
+                if ((type == null) && (extras != null) && isExtraEntry(ze.getName())) {
+                    final InputStream is = zf.getInputStream(ze);
+                    try {
+                        extras.put(ze.getName(), readPayload(is, ze.getSize()));
+                    } finally {
+                        IOUtils.closeQuietly(is);
+                    }
+                    continue;
+                } else if ((type == null) || !options.isSelected(type)) {
+                    continue;
+                }
+
+                final long start = (listener == null) ? 0 : System.nanoTime();
+                final InputStream is = zf.getInputStream(ze);
+                final ByteBuffer payload;
+                try {
+                    payload = readPayload(is, ze.getSize());
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+                if (listener != null) {
+                    listener.onComponentRead(type, ze.getCompressedSize(), payload.remaining(),
+                            System.nanoTime() - start);
+                }
+                components.put(type, payload);
+            }
+
+            return components;
+        } catch (final ZipException ex) {
+            throw new CapFormatException("unrecogzied CAP format", ex);
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP file " + path, ex);
+        } finally {
+            IOUtils.closeQuietly(zf);
+        }
+    }
+
+    /**
+     * Build CAP object out of collected component payloads
+     *
+     * @param components component payloads
+     * @param extras     manifest and custom component payloads keyed by entry name, null when not kept
+     * @param listener   instrumentation listener, null to disable instrumentation
+     * @return CAP object, lazily or eagerly decoded depending on decoder mode
+     * @throws CapDecodeException when component decoding failed
+     */
+    private Cap build(final Components components, final Map<String, ByteBuffer> extras,
+                      final CapDecoderListener listener) throws CapDecodeException {
+        final CapLazyBuilder builder = new CapLazyBuilder(options.getInternPool(), listener);
+        builder.setComponentDirectory(components.directory);
+        for (final Map.Entry<CapComponentType, ByteBuffer> e : components.entrySet()) {
+            builder.setComponent(e.getKey(), e.getValue());
+        }
+        if (extras != null) {
+            for (final Map.Entry<String, ByteBuffer> e : extras.entrySet()) {
+                builder.setExtraEntry(e.getKey(), e.getValue());
+            }
+        }
+        return options.isLazy() ? builder.build() : builder.buildEager();
+    }
+
+    /**
+     * Load JFR listener wrapper. It is compiled apart for Java 11 and looked up by name, so that this class still
+     * loads on Java 8 runtimes, with or without JFR
+     *
+     * @return wrapper of listener registered in decode options, null when JFR is not available
+     */
+    @SuppressWarnings("unchecked")
+    private static UnaryOperator<CapDecoderListener> loadJfrWrapper() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (UnaryOperator<CapDecoderListener>) Class.forName(
+                    "com.github.edipermadi.smartcard.CapJfrListener$Wrapper").getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Get canonical AID instance when interning is enabled
+     *
+     * @param pool intern pool, null when interning is disabled
+     * @param aid  AID
+     * @return canonical AID or given AID
+     */
+    private static Aid intern(final CapInternPool pool, final Aid aid) {
+        return (pool == null) ? aid : pool.intern(aid);
+    }
+
+    /**
+     * Read component payload into a buffer, sized by ZIP entry size when available. Component size is an u2, hence
+     * entries larger than {@link #MAX_COMPONENT_SIZE} are rejected before anything is allocated.
+     *
+     * @param is   entry stream
+     * @param size entry uncompressed size or -1 when unknown
+     * @return inflated entry payload
+     * @throws IOException         when reading failed
+     * @throws CapFormatException when entry is too large
+     */
+    private static ByteBuffer readPayload(final InputStream is, final long size)
+            throws IOException, CapFormatException {
+        return ByteBuffer.wrap(readBounded(is, size, MAX_COMPONENT_SIZE, "CAP component"));
+    }
+
+    /**
+     * Read whole CAP archive out of stream into memory
+     *
+     * @param stream CAP file stream, not closed
+     * @return archive content
+     * @throws CapException when reading failed or archive is larger than {@link #MAX_ARCHIVE_SIZE}
+     */
+    static ByteBuffer readArchive(final InputStream stream) throws CapException {
+        try {
+            return ByteBuffer.wrap(readBounded(stream, -1, MAX_ARCHIVE_SIZE, "CAP archive"));
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP stream", ex);
+        }
+    }
+
+    /**
+     * Read whole CAP archive out of file system into memory
+     *
+     * @param path path to CAP file
+     * @return archive content
+     * @throws CapException when reading failed or archive is larger than {@link #MAX_ARCHIVE_SIZE}
+     */
+    static ByteBuffer readArchive(final Path path) throws CapException {
+        try (final InputStream is = Files.newInputStream(path)) {
+            return ByteBuffer.wrap(readBounded(is, Files.size(path), MAX_ARCHIVE_SIZE, "CAP archive"));
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP file " + path, ex);
+        }
+    }
+
+    /**
+     * Read stream content up to a limit. Declared size is only trusted up to limit, content which turns out to be
+     * larger than limit is rejected once limit is crossed.
+     *
+     * @param is    stream
+     * @param size  declared size or -1 when unknown
+     * @param limit maximum accepted size
+     * @param what  description of content, used in exception message
+     * @return stream content
+     * @throws IOException         when reading failed
+     * @throws CapFormatException when content is larger than limit
+     */
+    private static byte[] readBounded(final InputStream is, final long size, final int limit, final String what)
+            throws IOException, CapFormatException {
+        if (size > limit) {
+            throw new CapFormatException(what + " is too large");
+        } else if (size >= 0) {
+            final byte[] content = new byte[(int) size];
+            IOUtils.readFully(is, content);
+            if (is.read() >= 0) {
+                throw new CapFormatException(what + " is larger than declared");
+            }
+            return content;
+        }
+
+        byte[] content = new byte[8192];
+        int length = 0;
+        while (true) {
+            if (length == content.length) {
+                if (length > limit) {
+                    throw new CapFormatException(what + " is too large");
+                }
+                content = Arrays.copyOf(content, Math.min(length * 2, limit + 1));
+            }
+            final int n = is.read(content, length, content.length - length);
+            if (n < 0) {
+                return Arrays.copyOf(content, length);
+            }
+            length += n;
+        }
+    }
+
+    /**
+     * Get component type out of ZIP entry
+     *
+     * @param ze ZIP entry
+     * @return component type or null when entry is not a standard component
+     */
+    static CapComponentType componentType(final ZipEntry ze) {
+        return componentType(ze.getName());
+    }
+
+    /**
+     * Get component type out of ZIP entry name
+     *
+     * @param path entry name within archive
+     * @return component type or null when entry is not a standard component
+     */
+    static CapComponentType componentType(final String path) {
+        final int i = path.lastIndexOf('/');
+        return CapComponentType.forFileName((i < 0) ? path : path.substring(i + 1));
+    }
+
+    /**
+     * Check whether entry which is not a standard component is either manifest or custom component
+     *
+     * @param name entry name within archive
+     * @return true when entry is manifest or custom component
+     */
+    static boolean isExtraEntry(final String name) {
+        return ENTRY_Manifest.equals(name) || (name.contains("/javacard/") && name.endsWith(".cap"));
+    }
+
     /**
      * Decode CAP header. The following is the structure of CAP header
      * <pre>
@@ -96,79 +624,95 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
      * }
      * </pre>
      *
-     * @param payload CAP header payload
+     * @param payload CAP header payload, read from its position to its limit
      * @return CAP Header object
      * @throws CapDecodeException when CAP Header decoding failed
      */
-    private Cap.Header decodeCapHeader(final byte[] payload) throws CapDecodeException {
-        if (ArrayUtils.isEmpty(payload)) {
+    static Cap.Header decodeCapHeader(final ByteBuffer payload) throws CapDecodeException {
+        return decodeCapHeader(payload, null);
+    }
+
+    /**
+     * Decode CAP header, see {@link #decodeCapHeader(ByteBuffer)} for structure
+     *
+     * @param payload CAP header payload, read from its position to its limit
+     * @param pool    intern pool of AID and package name, null to disable interning
+     * @return CAP Header object
+     * @throws CapDecodeException when CAP Header decoding failed
+     */
+    static Cap.Header decodeCapHeader(final ByteBuffer payload, final CapInternPool pool) throws CapDecodeException {
+        final CapModelVisitor model = new CapModelVisitor(pool);
+        visitCapHeader(payload, model);
+        return model.getHeader();
+    }
+
+    /**
+     * Parse CAP header and report its content to visitor, see {@link #decodeCapHeader(ByteBuffer)} for structure
+     *
+     * @param payload CAP header payload, read from its position to its limit
+     * @param visitor CAP visitor
+     * @throws CapDecodeException when CAP Header decoding failed
+     */
+    static void visitCapHeader(final ByteBuffer payload, final CapVisitor visitor) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
             throw new IllegalArgumentException("header payload is null");
         }
 
-        final CapHeaderBuilder builder = new CapHeaderBuilder();
-        final ByteArrayInputStream bais = new ByteArrayInputStream(payload);
-        final DataInputStream dis = new DataInputStream(bais);
+        final CapComponentReader reader = new CapComponentReader(payload);
+        final ByteBuffer view = payload.asReadOnlyBuffer();
         try {
             /* parse tag */
-            final int componentTag = dis.readByte();
+            final int componentTag = reader.readU1();
             if (componentTag != TAG_COMPONENT_Header) {
                 throw CapDecodeHeaderException.invalidTag(componentTag);
             }
 
             /* parse size */
-            final int componentSize = dis.readShort();
-            if ((componentSize < 0) || (dis.available() < componentSize)) {
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
                 throw CapDecodeHeaderException.invalidSize();
             }
 
             /* parse magic */
-            final int componentMagicCode = dis.readInt();
+            final int componentMagicCode = reader.readU4();
             if (componentMagicCode != 0xdecaffed) {
                 throw CapDecodeHeaderException.invalidMagic();
             }
 
             /* parse version and flags */
-            builder.setHeaderVersion(parseVersion(dis))
-                    .setHeaderFlags(dis.readByte());
+            final int version = reader.readVersion();
+            visitor.visitHeader(version, reader.readU1());
 
             /* parse package info */
-            final int packageInfoVersion = parseVersion(dis);
-            final int aidLength = dis.readByte();
+            final int packageInfoVersion = reader.readVersion();
+            final int aidLength = reader.readU1();
             if ((aidLength < 5) || (aidLength > 16)) {
                 throw CapDecodeHeaderException.invalidAidLength();
             }
 
             /* parse AID payload */
-            final byte[] aid = new byte[aidLength];
-            if (dis.read(aid) != aidLength) {
+            if (reader.remaining() < aidLength) {
                 throw CapDecodeHeaderException.invalidPackageAID();
             }
-            builder.setPackageInfo(packageInfoVersion, Hex.encodeHexString(aid));
+            visitor.visitPackage(packageInfoVersion, view, reader.position(), aidLength);
+            reader.skip(aidLength);
 
             /* optionally set package name info */
-            if (bais.available() > 0) {
-                final int nameLength = dis.readByte();
-                if (nameLength < 0) {
-                    throw CapDecodeHeaderException.invalidPackageNameLength();
-                }
+            if (reader.remaining() > 0) {
+                final int nameLength = reader.readU1();
 
                 /* parse package name */
                 if (nameLength > 0) {
-                    final byte[] name = new byte[nameLength];
-                    if (dis.read(name) != nameLength) {
+                    if (reader.remaining() < nameLength) {
                         throw CapDecodeHeaderException.invalidPackageName();
                     }
 
-                    builder.setPackageName(new String(name, StandardCharsets.UTF_8));
+                    visitor.visitPackageName(view, reader.position(), nameLength);
+                    reader.skip(nameLength);
                 }
             }
-
-            return builder.build();
-        } catch (final IOException ex) {
+        } catch (final BufferUnderflowException ex) {
             throw new CapDecodeException("failed to parse CAP header", ex);
-        } finally {
-            IOUtils.closeQuietly(dis);
-            IOUtils.closeQuietly(bais);
         }
     }
 
@@ -178,7 +722,7 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
      * directory_component {
      *     u1 tag
      *     u2 size
-     *     u2 component_sizes[12]
+     *     u2 component_sizes[component_count]
      *     static_field_size_info static_field_size
      *     u1 import_count
      *     u1 applet_count
@@ -199,121 +743,195 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
      *     u1 AID[AID_length]
      * }
      * </pre>
+     * Component count is 11 before CAP format 2.2 and 12 as of 2.2, which adds debug component. Since header
+     * component is not required to parse directory, the count is derived from directory size.
+     *
+     * @param payload CAP directory component payload, read from its position to its limit
+     * @return CAP directory component
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Directory decodeCapDirectory(final ByteBuffer payload) throws CapDecodeException {
+        return decodeCapDirectory(payload, null);
+    }
+
+    /**
+     * Decode CAP directory component, see {@link #decodeCapDirectory(ByteBuffer)} for structure
      *
-     * @param payload CAP directory component payload
+     * @param payload CAP directory component payload, read from its position to its limit
+     * @param pool    intern pool of AID, null to disable interning
      * @return CAP directory component
      * @throws CapDecodeException when decoding failed
      */
-    private Cap.Directory decodeCapDirectory(final byte[] payload) throws CapDecodeException {
-        if (ArrayUtils.isEmpty(payload)) {
+    static Cap.Directory decodeCapDirectory(final ByteBuffer payload, final CapInternPool pool)
+            throws CapDecodeException {
+        final CapModelVisitor model = new CapModelVisitor(pool);
+        visitCapDirectory(payload, model);
+        return model.getDirectory();
+    }
+
+    /**
+     * Parse CAP directory component and report its content to visitor, see {@link #decodeCapDirectory(ByteBuffer)}
+     * for structure
+     *
+     * @param payload CAP directory component payload, read from its position to its limit
+     * @param visitor CAP visitor
+     * @throws CapDecodeException when decoding failed
+     */
+    static void visitCapDirectory(final ByteBuffer payload, final CapVisitor visitor) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
             throw new IllegalArgumentException("directory payload is null");
         }
 
-        final CapDirectoryBuilder builder = new CapDirectoryBuilder();
-        final ByteArrayInputStream bais = new ByteArrayInputStream(payload);
-        final DataInputStream dis = new DataInputStream(bais);
+        final CapComponentReader reader = new CapComponentReader(payload);
+        final ByteBuffer view = payload.asReadOnlyBuffer();
         try {
             /* parse tag */
-            final int componentTag = dis.readByte();
+            final int componentTag = reader.readU1();
             if (componentTag != TAG_COMPONENT_Directory) {
                 throw CapDecodeDirectoryException.invalidTag(componentTag);
             }
 
             /* parse size */
-            final int componentSize = dis.readShort();
-            if ((componentSize < 0) || (dis.available() < componentSize)) {
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
                 throw CapDecodeDirectoryException.invalidSize();
             }
 
             /* parse component sizes */
-            for (int i = 0; i < 11; i++) {
-                final int v = dis.readShort();
-                builder.addComponentSize(v);
+            final int componentCount = directoryComponentCount(payload, reader.position(), componentSize);
+            for (int i = 0; i < componentCount; i++) {
+                visitor.visitComponentSize(i + 1, reader.readU2());
             }
 
             /* parse static_field_size_info */
-            final int imageSize = dis.readShort();
-            final int arrayInitCount = dis.readShort();
-            final int arrayInitSize = dis.readShort();
+            final int imageSize = reader.readU2();
+            final int arrayInitCount = reader.readU2();
+            final int arrayInitSize = reader.readU2();
 
             /* set static_field_size_info, import_count and applet_count */
-            builder.setStaticFieldSize(imageSize, arrayInitCount, arrayInitSize)
-                    .setImportCount(dis.readByte())
-                    .setAppletCount(dis.readByte());
+            visitor.visitStaticFieldSize(imageSize, arrayInitCount, arrayInitSize);
+            final int importCount = reader.readU1();
+            visitor.visitCounts(importCount, reader.readU1());
 
             /* parse array of custom component info */
-            final int customCount = dis.readByte();
-            if ((customCount < 0) || (customCount > 127)) {
+            final int customCount = reader.readU1();
+            if (customCount > 127) {
                 throw CapDecodeDirectoryException.invalidComponentTag();
             }
 
             for (int i = 0; i < customCount; i++) {
                 /* decode component tag */
-                final int customComponentTag = dis.readByte();
+                final int customComponentTag = reader.readU1();
                 if (customComponentTag < 128) {
                     throw CapDecodeDirectoryException.invalidComponentTag();
                 }
 
-                /* decode component size */
-                final int customComponentSize = dis.readShort();
-                if (dis.available() < customComponentSize) {
-                    throw CapDecodeDirectoryException.truncatedComponent();
-                }
+                /* decode component size, it refers to the custom component itself */
+                final int customComponentSize = reader.readU2();
 
                 /* decode component AID length */
-                final int customComponentAidLength = dis.readByte();
+                final int customComponentAidLength = reader.readU1();
                 if ((customComponentAidLength < 5) || (customComponentAidLength > 16)) {
                     throw CapDecodeDirectoryException.invalidCustomComponentAIDLength();
                 }
 
                 /* decode component AID payload */
-                final byte[] customComponentAid = new byte[customComponentAidLength];
-                if (dis.read(customComponentAid) != customComponentAidLength) {
+                if (reader.remaining() < customComponentAidLength) {
                     throw CapDecodeDirectoryException.truncatedComponent();
                 }
 
-                builder.addCustomComponent(componentTag, Hex.encodeHexString(customComponentAid));
+                visitor.visitCustomComponent(customComponentTag, customComponentSize, view, reader.position(),
+                        customComponentAidLength);
+                reader.skip(customComponentAidLength);
             }
-
-            return builder.build();
-        } catch (final IOException ex) {
+        } catch (final BufferUnderflowException ex) {
             throw new CapDecodeException("failed to parse CAP directory", ex);
-        } finally {
-            IOUtils.closeQuietly(dis);
-            IOUtils.closeQuietly(bais);
         }
     }
 
+    /**
+     * Determine count of component sizes of directory component, being the one whose layout ends exactly at
+     * component end. Falls back on size alone when custom component info is malformed, parsing then fails later on.
+     *
+     * @param payload       CAP directory component payload
+     * @param start         absolute position of component sizes
+     * @param componentSize directory component size
+     * @return count of component sizes, either 11 or 12
+     */
+    private static int directoryComponentCount(final ByteBuffer payload, final int start, final int componentSize) {
+        final int end = start + componentSize;
+        for (int count = DIRECTORY_COMPONENT_COUNT_2_2; count >= DIRECTORY_COMPONENT_COUNT_2_1; count--) {
+            /* static_field_size_info, import_count and applet_count precede custom_count */
+            int position = start + count * 2 + 8;
+            if (position >= end) {
+                continue;
+            }
+            final int customCount = payload.get(position++) & 0xff;
+            for (int i = 0; (i < customCount) && (position + 4 <= end); i++) {
+                position += 4 + (payload.get(position + 3) & 0xff);
+            }
+            if (position == end) {
+                return count;
+            }
+        }
+        return (componentSize >= DIRECTORY_COMPONENT_COUNT_2_2 * 2 + 9)
+                ? DIRECTORY_COMPONENT_COUNT_2_2 : DIRECTORY_COMPONENT_COUNT_2_1;
+    }
+
     /**
      * Decode CAP Applet
      *
-     * @param payload CAP applet component payload
+     * @param payload CAP applet component payload, read from its position to its limit
      * @return CAP applet component object
      * @throws CapDecodeException hwn decoding failed
      */
-    private Cap.Applet decodeCapApplet(final byte[] payload) throws CapDecodeException {
-        if (ArrayUtils.isEmpty(payload)) {
-            throw new IllegalArgumentException("applet payload is null");
-        }
+    static Cap.Applet decodeCapApplet(final ByteBuffer payload) throws CapDecodeException {
+        return decodeCapApplet(payload, null);
+    }
+
+    /**
+     * Decode CAP Applet, see {@link #decodeCapApplet(ByteBuffer)}
+     *
+     * @param payload CAP applet component payload, read from its position to its limit
+     * @param pool    intern pool of AID, null to disable interning
+     * @return CAP applet component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Applet decodeCapApplet(final ByteBuffer payload, final CapInternPool pool) throws CapDecodeException {
+        final CapModelVisitor model = new CapModelVisitor(pool);
+        visitCapApplet(payload, model);
+        return model.getApplet();
+    }
 
-        final CapAppletBuilder builder = new CapAppletBuilder();
-        final ByteArrayInputStream bais = new ByteArrayInputStream(payload);
-        final DataInputStream dis = new DataInputStream(bais);
+    /**
+     * Parse CAP applet component and report its content to visitor
+     *
+     * @param payload CAP applet component payload, read from its position to its limit
+     * @param visitor CAP visitor
+     * @throws CapDecodeException when decoding failed
+     */
+    static void visitCapApplet(final ByteBuffer payload, final CapVisitor visitor) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("applet payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        final ByteBuffer view = payload.asReadOnlyBuffer();
         try {
             /* parse tag */
-            final int componentTag = dis.readByte();
+            final int componentTag = reader.readU1();
             if (componentTag != TAG_COMPONENT_Applet) {
                 throw CapDecodeAppletException.invalidTag(componentTag);
             }
 
             /* parse size */
-            final int componentSize = dis.readShort();
-            if ((componentSize < 0) || (dis.available() < componentSize)) {
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
                 throw CapDecodeAppletException.invalidSize();
             }
 
             /* parse count of applet */
-            final int count = dis.readByte();
+            final int count = reader.readU1();
             if (count < 1) {
                 throw CapDecodeAppletException.invalidAppletCount();
             }
@@ -321,39 +939,998 @@ public class CapDecoderImpl extends CapDecoderImplBase implements CapDecoder {
             /* parse applet entries */
             for (int i = 0; i < count; i++) {
                 /* parse AID length */
-                int aidLength = dis.readByte();
+                final int aidLength = reader.readU1();
                 if ((aidLength < 5) || (aidLength > 16)) {
                     throw CapDecodeAppletException.invalidAIDLength();
                 }
 
                 /* parse AID */
-                final byte[] aid = new byte[aidLength];
-                if (dis.read(aid) != aidLength) {
+                if (reader.remaining() < aidLength) {
                     throw CapDecodeAppletException.invalidAID();
                 }
+                final int aidOffset = reader.position();
+                reader.skip(aidLength);
 
                 /* parse install method offset */
-                final int installMethodOffset = dis.readShort();
-                if (installMethodOffset < 0) {
-                    throw CapDecodeAppletException.invalidInstallMethodOffset();
+                visitor.visitApplet(view, aidOffset, aidLength, reader.readU2());
+            }
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP applet", ex);
+        }
+    }
+
+    /**
+     * Decode CAP import component. The following is the structure of import component
+     * <pre>
+     * import_component {
+     *     u1 tag
+     *     u2 size
+     *     u1 count
+     *     package_info packages[count]
+     * }
+     *
+     * package_info {
+     *     u1 minor_version
+     *     u1 major_version
+     *     u1 AID_length
+     *     u1 AID[AID_length]
+     * }
+     * </pre>
+     *
+     * @param payload CAP import component payload, read from its position to its limit
+     * @param pool    intern pool of AID, null to disable interning
+     * @return CAP import component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Import decodeCapImport(final ByteBuffer payload, final CapInternPool pool) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("import payload is null");
+        }
+
+        final CapImportBuilder builder = new CapImportBuilder();
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Import) {
+                throw CapDecodeImportException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeImportException.invalidSize();
+            }
+
+            /* parse count of imported packages, package tokens are 7-bit */
+            final int count = reader.readU1();
+            if (count > 128) {
+                throw CapDecodeImportException.invalidImportCount();
+            }
+
+            /* parse package entries */
+            for (int i = 0; i < count; i++) {
+                final int version = reader.readVersion();
+                final int aidLength = reader.readU1();
+                if ((aidLength < 5) || (aidLength > 16)) {
+                    throw CapDecodeImportException.invalidAIDLength();
                 }
+                builder.addPackage(version, intern(pool, reader.readAid(aidLength)));
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP import", ex);
+        }
+    }
+
+    /**
+     * Decode CAP export component. The following is the structure of export component
+     * <pre>
+     * export_component {
+     *     u1 tag
+     *     u2 size
+     *     u1 class_count
+     *     class_export_info class_exports[class_count]
+     * }
+     *
+     * class_export_info {
+     *     u2 class_offset
+     *     u1 static_field_count
+     *     u1 static_method_count
+     *     u2 static_field_offsets[static_field_count]
+     *     u2 static_method_offsets[static_method_count]
+     * }
+     * </pre>
+     *
+     * @param payload CAP export component payload, read from its position to its limit
+     * @return CAP export component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Export decodeCapExport(final ByteBuffer payload) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("export payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Export) {
+                throw CapDecodeExportException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeExportException.invalidSize();
+            }
 
-                builder.addApplet(Hex.encodeHexString(aid), installMethodOffset);
+            /* parse class exports */
+            final int classCount = reader.readU1();
+            final CapExportBuilder builder = new CapExportBuilder(classCount);
+            for (int i = 0; i < classCount; i++) {
+                final int classOffset = reader.readU2();
+                final int staticFieldCount = reader.readU1();
+                final int staticMethodCount = reader.readU1();
+                builder.addClass(classOffset, readU2Array(reader, staticFieldCount),
+                        readU2Array(reader, staticMethodCount));
             }
 
             return builder.build();
-        } catch (final IOException ex) {
-            throw new CapDecodeException("failed to parse CAP applet", ex);
-        } finally {
-            IOUtils.closeQuietly(dis);
-            IOUtils.closeQuietly(bais);
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP export", ex);
         }
     }
 
-    private int parseVersion(final DataInputStream dis) throws IOException {
-        int version;
-        version = dis.readByte() & 0xff;
-        version += (dis.readByte() & 0xff) << 8;
-        return version;
+    /**
+     * Decode CAP constant pool component. The following is the structure of constant pool component
+     * <pre>
+     * constant_pool_component {
+     *     u1 tag
+     *     u2 size
+     *     u2 count
+     *     cp_info constant_pool[count]
+     * }
+     *
+     * cp_info {
+     *     u1 tag
+     *     u1 info[3]
+     * }
+     * </pre>
+     *
+     * @param payload CAP constant pool component payload, read from its position to its limit
+     * @return CAP constant pool component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.ConstantPool decodeCapConstantPool(final ByteBuffer payload) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("constant pool payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_ConstantPool) {
+                throw CapDecodeConstantPoolException.invalidTag(componentTag);
+            }
+
+            /* parse size and count */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeConstantPoolException.invalidSize();
+            }
+            final int count = reader.readU2();
+            if (count * 4 + 2 != componentSize) {
+                throw CapDecodeConstantPoolException.invalidSize();
+            }
+
+            /* parse entries */
+            final CapConstantPoolBuilder builder = new CapConstantPoolBuilder(count);
+            for (int i = 0; i < count; i++) {
+                final int tag = reader.readU1();
+                if ((tag < Cap.ConstantPool.CONSTANT_Classref) || (tag > Cap.ConstantPool.CONSTANT_StaticMethodref)) {
+                    throw CapDecodeConstantPoolException.invalidEntryTag(i, tag);
+                }
+                builder.addEntry(tag, (reader.readU1() << 16) | reader.readU2());
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP constant pool", ex);
+        }
+    }
+
+    /**
+     * Decode CAP class component. Signature pool is present as of CAP format 2.2. The following is the structure
+     * of class component
+     * <pre>
+     * class_component {
+     *     u1 tag
+     *     u2 size
+     *     u2 signature_pool_length
+     *     type_descriptor signature_pool[]
+     *     interface_info interfaces[]
+     *     class_info classes[]
+     * }
+     *
+     * interface_info {
+     *     u1 bitfield {
+     *         bit[4] flags
+     *         bit[4] interface_count
+     *     }
+     *     class_ref superinterfaces[interface_count]
+     *     interface_name_info interface_name
+     * }
+     *
+     * class_info {
+     *     u1 bitfield {
+     *         bit[4] flags
+     *         bit[4] interface_count
+     *     }
+     *     class_ref super_class_ref
+     *     u1 declared_instance_size
+     *     u1 first_reference_token
+     *     u1 reference_count
+     *     u1 public_method_table_base
+     *     u1 public_method_table_count
+     *     u1 package_method_table_base
+     *     u1 package_method_table_count
+     *     u2 public_virtual_method_table[public_method_table_count]
+     *     u2 package_virtual_method_table[package_method_table_count]
+     *     implemented_interface_info interfaces[interface_count]
+     *     remote_interface_info remote_interfaces
+     * }
+     *
+     * implemented_interface_info {
+     *     class_ref interface
+     *     u1 count
+     *     u1 index[count]
+     * }
+     *
+     * remote_interface_info {
+     *     u1 remote_methods_count
+     *     remote_method_info remote_methods[remote_methods_count]
+     *     u1 hash_modifier_length
+     *     u1 hash_modifier[hash_modifier_length]
+     *     u1 class_name_length
+     *     u1 class_name[class_name_length]
+     *     u1 remote_interfaces_count
+     *     class_ref remote_interfaces[remote_interfaces_count]
+     * }
+     *
+     * remote_method_info {
+     *     u2 remote_method_hash
+     *     u2 signature_offset
+     *     u1 virtual_method_token
+     * }
+     * </pre>
+     * Interface name and remote interface info are present only when ACC_REMOTE flag is set.
+     *
+     * @param payload CAP class component payload, read from its position to its limit
+     * @param version CAP format version, encoded in 0xaabb (major, minor)
+     * @return CAP class component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Class decodeCapClass(final ByteBuffer payload, final int version) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("class payload is null");
+        }
+
+        final CapClassBuilder builder = new CapClassBuilder();
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Class) {
+                throw CapDecodeClassException.invalidTag(componentTag);
+            }
+
+            /* parse size, offsets are relative to the info item which follows */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeClassException.invalidSize();
+            }
+            final int infoStart = reader.position();
+            final int infoEnd = infoStart + componentSize;
+
+            /* skip signature pool */
+            if (version >= 0x0202) {
+                final int signaturePoolLength = reader.readU2();
+                if (signaturePoolLength > componentSize - 2) {
+                    throw CapDecodeClassException.invalidSignaturePool();
+                }
+                reader.skip(signaturePoolLength);
+            }
+
+            /* parse interfaces and classes */
+            while (reader.position() < infoEnd) {
+                final int offset = reader.position() - infoStart;
+                final int bitField = reader.readU1();
+                final int flags = bitField >> 4;
+                final int interfaceCount = bitField & 0x0f;
+
+                if ((flags & Cap.Class.ACC_INTERFACE) != 0) {
+                    final int[] superInterfaces = readU2Array(reader, interfaceCount);
+                    final String name = ((flags & Cap.Class.ACC_REMOTE) != 0) ? reader.readUtf8(reader.readU1())
+                            : null;
+                    builder.addInterface(new CapClassBuilder.CapInterfaceInfo(offset, flags, superInterfaces,
+                            name));
+                    continue;
+                }
+
+                final int superClassRef = reader.readU2();
+                final int declaredInstanceSize = reader.readU1();
+                final int firstReferenceToken = reader.readU1();
+                final int referenceCount = reader.readU1();
+                final int publicMethodTableBase = reader.readU1();
+                final int publicMethodTableCount = reader.readU1();
+                final int packageMethodTableBase = reader.readU1();
+                final int packageMethodTableCount = reader.readU1();
+                final int[] publicVirtualMethodTable = readU2Array(reader, publicMethodTableCount);
+                final int[] packageVirtualMethodTable = readU2Array(reader, packageMethodTableCount);
+
+                final List<Cap.Class.ImplementedInterfaceInfo> interfaces = new ArrayList<>(interfaceCount);
+                for (int i = 0; i < interfaceCount; i++) {
+                    final int interfaceRef = reader.readU2();
+                    final int[] indexes = new int[reader.readU1()];
+                    for (int j = 0; j < indexes.length; j++) {
+                        indexes[j] = reader.readU1();
+                    }
+                    interfaces.add(new CapClassBuilder.CapImplementedInterfaceInfo(interfaceRef, indexes));
+                }
+
+                final Cap.Class.RemoteInterfaceInfo remoteInterface = ((flags & Cap.Class.ACC_REMOTE) != 0)
+                        ? decodeRemoteInterface(reader) : null;
+
+                builder.addClass(new CapClassBuilder.CapClassInfo(offset, flags, superClassRef,
+                        declaredInstanceSize, firstReferenceToken, referenceCount, publicMethodTableBase,
+                        publicVirtualMethodTable, packageMethodTableBase, packageVirtualMethodTable, interfaces,
+                        remoteInterface));
+            }
+            if (reader.position() != infoEnd) {
+                throw CapDecodeClassException.invalidSize();
+            }
+
+            /* internal superclass references must point to a class of this package */
+            final Cap.Class component = builder.build();
+            for (final Cap.Class.ClassInfo info : component.getClasses()) {
+                final int superClassRef = info.getSuperClassRef();
+                if ((superClassRef != CapClassRef.NONE) && !CapClassRef.isExternal(superClassRef)
+                        && (component.getClassInfo(superClassRef) == null)) {
+                    throw CapDecodeClassException.invalidHierarchy(info.getOffset());
+                }
+            }
+            return component;
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP class", ex);
+        }
+    }
+
+    private static Cap.Class.RemoteInterfaceInfo decodeRemoteInterface(final CapComponentReader reader) {
+        final int remoteMethodCount = reader.readU1();
+        final char[] hashes = new char[remoteMethodCount];
+        final char[] signatureOffsets = new char[remoteMethodCount];
+        final byte[] tokens = new byte[remoteMethodCount];
+        for (int i = 0; i < remoteMethodCount; i++) {
+            hashes[i] = (char) reader.readU2();
+            signatureOffsets[i] = (char) reader.readU2();
+            tokens[i] = (byte) reader.readU1();
+        }
+        final String hashModifier = reader.readUtf8(reader.readU1());
+        final String className = reader.readUtf8(reader.readU1());
+        final int[] remoteInterfaces = readU2Array(reader, reader.readU1());
+        return new CapClassBuilder.CapRemoteInterfaceInfo(hashes, signatureOffsets, tokens, hashModifier, className,
+                remoteInterfaces);
+    }
+
+    private static int[] readU2Array(final CapComponentReader reader, final int count) {
+        final int[] refs = new int[count];
+        for (int i = 0; i < count; i++) {
+            refs[i] = reader.readU2();
+        }
+        return refs;
+    }
+
+    /**
+     * Decode CAP static field component, validated against static field size info of directory component. The
+     * following is the structure of static field component
+     * <pre>
+     * static_field_component {
+     *     u1 tag
+     *     u2 size
+     *     u2 image_size
+     *     u2 reference_count
+     *     u2 array_init_count
+     *     array_init_info array_init[array_init_count]
+     *     u2 default_value_count
+     *     u2 non_default_value_count
+     *     u1 non_default_values[non_default_value_count]
+     * }
+     *
+     * array_init_info {
+     *     u1 type
+     *     u2 count
+     *     u1 values[count]
+     * }
+     * </pre>
+     *
+     * @param payload   CAP static field component payload, read from its position to its limit
+     * @param directory CAP directory component, null to skip validation
+     * @return CAP static field component object
+     * @throws CapDecodeException when decoding or validation failed
+     */
+    static Cap.StaticField decodeCapStaticField(final ByteBuffer payload, final Cap.Directory directory)
+            throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("static field payload is null");
+        }
+
+        final CapStaticFieldBuilder builder = new CapStaticFieldBuilder();
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_StaticField) {
+                throw CapDecodeStaticFieldException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeStaticFieldException.invalidSize();
+            }
+
+            /* parse image size and reference count */
+            final int imageSize = reader.readU2();
+            builder.setImage(imageSize, reader.readU2());
+
+            /* parse array initializers, values are kept as views */
+            final int arrayInitCount = reader.readU2();
+            for (int i = 0; i < arrayInitCount; i++) {
+                final int type = reader.readU1();
+                if ((type < Cap.StaticField.TYPE_BOOLEAN) || (type > Cap.StaticField.TYPE_INT)) {
+                    throw CapDecodeStaticFieldException.invalidArrayInitType(type);
+                }
+                builder.addArrayInit(type, reader.slice(reader.readU2()));
+            }
+
+            /* parse primitive values */
+            final int defaultValueCount = reader.readU2();
+            builder.setValues(defaultValueCount, reader.slice(reader.readU2()));
+
+            /* validate against directory */
+            if (directory != null) {
+                final Cap.Directory.StaticFieldSizeInfo sizeInfo = directory.getStaticFieldSize();
+                if (sizeInfo.getImageSize() != imageSize) {
+                    throw CapDecodeStaticFieldException.sizeMismatch("image size", sizeInfo.getImageSize(),
+                            imageSize);
+                } else if (sizeInfo.getArrayInitCount() != arrayInitCount) {
+                    throw CapDecodeStaticFieldException.sizeMismatch("array init count",
+                            sizeInfo.getArrayInitCount(), arrayInitCount);
+                } else if (sizeInfo.getArrayInitSize() != builder.getArrayInitSize()) {
+                    throw CapDecodeStaticFieldException.sizeMismatch("array init size", sizeInfo.getArrayInitSize(),
+                            builder.getArrayInitSize());
+                }
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP static field", ex);
+        }
+    }
+
+    /**
+     * Decode CAP reference location component. The following is the structure of reference location component
+     * <pre>
+     * reference_location_component {
+     *     u1 tag
+     *     u2 size
+     *     u2 byte_index_count
+     *     u1 offsets_to_byte_indices[byte_index_count]
+     *     u2 byte2_index_count
+     *     u1 offsets_to_byte2_indices[byte2_index_count]
+     * }
+     * </pre>
+     *
+     * @param payload CAP reference location component payload, read from its position to its limit
+     * @return CAP reference location component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.RefLocation decodeCapRefLocation(final ByteBuffer payload) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("reference location payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_ReferenceLocation) {
+                throw CapDecodeRefLocationException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeRefLocationException.invalidSize();
+            }
+
+            /* tables are kept as views, offsets are decoded by builder in a single pass */
+            final CapRefLocationBuilder builder = new CapRefLocationBuilder()
+                    .setByteIndexDeltas(reader.slice(reader.readU2()))
+                    .setByte2IndexDeltas(reader.slice(reader.readU2()));
+            if (reader.position() - payload.position() != componentSize + 3) {
+                throw CapDecodeRefLocationException.invalidSize();
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP reference location", ex);
+        }
+    }
+
+    /**
+     * Decode CAP descriptor component. Class descriptors are only located by this scan, they are parsed on first
+     * access. The following is the structure of descriptor component
+     * <pre>
+     * descriptor_component {
+     *     u1 tag
+     *     u2 size
+     *     u1 class_count
+     *     class_descriptor_info classes[class_count]
+     *     type_descriptor_info types
+     * }
+     *
+     * class_descriptor_info {
+     *     u1 token
+     *     u1 access_flags
+     *     class_ref this_class_ref
+     *     u1 interface_count
+     *     u2 field_count
+     *     u2 method_count
+     *     class_ref interfaces[interface_count]
+     *     field_descriptor_info fields[field_count]
+     *     method_descriptor_info methods[method_count]
+     * }
+     *
+     * field_descriptor_info {
+     *     u1 token
+     *     u1 access_flags
+     *     u1 field_ref[3]
+     *     u2 type
+     * }
+     *
+     * method_descriptor_info {
+     *     u1 token
+     *     u1 access_flags
+     *     u2 method_offset
+     *     u2 type_offset
+     *     u2 bytecode_count
+     *     u2 exception_handler_count
+     *     u2 exception_handler_index
+     * }
+     *
+     * type_descriptor_info {
+     *     u2 constant_pool_count
+     *     u2 constant_pool_types[constant_pool_count]
+     *     type_descriptor type_desc[]
+     * }
+     *
+     * type_descriptor {
+     *     u1 nibble_count
+     *     u1 type[(nibble_count+1) / 2]
+     * }
+     * </pre>
+     *
+     * @param payload CAP descriptor component payload, read from its position to its limit
+     * @return CAP descriptor component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Descriptor decodeCapDescriptor(final ByteBuffer payload) throws CapDecodeException {
+        return decodeCapDescriptor(payload, null);
+    }
+
+    /**
+     * Decode CAP descriptor component, see {@link #decodeCapDescriptor(ByteBuffer)} for structure
+     *
+     * @param payload CAP descriptor component payload, read from its position to its limit
+     * @param pool    intern pool of type descriptors, null to disable interning
+     * @return CAP descriptor component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Descriptor decodeCapDescriptor(final ByteBuffer payload, final CapInternPool pool)
+            throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("descriptor payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Descriptor) {
+                throw CapDecodeDescriptorException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeDescriptorException.invalidSize();
+            }
+            final int componentEnd = reader.position() + componentSize;
+
+            /* locate class descriptors */
+            final int classCount = reader.readU1();
+            final CapDescriptorBuilder builder = new CapDescriptorBuilder(payload, classCount, pool);
+            for (int i = 0; i < classCount; i++) {
+                final int position = reader.position();
+                reader.skip(2);
+                final int thisClassRef = reader.readU2();
+                final int interfaceCount = reader.readU1();
+                final int fieldCount = reader.readU2();
+                final int methodCount = reader.readU2();
+                reader.skip(interfaceCount * 2 + fieldCount * 7 + methodCount * 12);
+                builder.addClass(position, thisClassRef);
+            }
+
+            /* parse constant pool types, type offsets are relative to type_descriptor_info */
+            final int typesStart = reader.position();
+            final char[] constantPoolTypes = new char[reader.readU2()];
+            for (int i = 0; i < constantPoolTypes.length; i++) {
+                constantPoolTypes[i] = (char) reader.readU2();
+            }
+            builder.setConstantPoolTypes(constantPoolTypes);
+
+            /* parse type descriptors */
+            while (reader.position() < componentEnd) {
+                final int offset = reader.position() - typesStart;
+                final int nibbleCount = reader.readU1();
+                final byte[] nibbles = new byte[(nibbleCount + 1) / 2];
+                reader.slice(nibbles.length).get(nibbles);
+                builder.addType(offset, nibbles, nibbleCount);
+            }
+            if (reader.position() != componentEnd) {
+                throw CapDecodeDescriptorException.invalidSize();
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP descriptor", ex);
+        }
+    }
+
+    /**
+     * Decode CAP debug component into symbolization index
+     *
+     * @param payload debug component payload
+     * @return CAP debug object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Debug decodeCapDebug(final ByteBuffer payload) throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("debug payload is null");
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Debug) {
+                throw CapDecodeDebugException.invalidTag(componentTag);
+            }
+
+            /* parse size */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeDebugException.invalidSize();
+            }
+            final int componentEnd = reader.position() + componentSize;
+
+            /* locate strings, their content is decoded on lookup */
+            final int[] stringPositions = new int[reader.readU2()];
+            for (int i = 0; i < stringPositions.length; i++) {
+                stringPositions[i] = reader.position();
+                reader.skip(reader.readU2());
+            }
+            final int packageNameIndex = readDebugStringIndex(reader, stringPositions.length);
+            final CapDebugBuilder builder = new CapDebugBuilder(payload, stringPositions, packageNameIndex);
+
+            /* parse classes */
+            final int classCount = reader.readU2();
+            for (int i = 0; i < classCount; i++) {
+                final int nameIndex = readDebugStringIndex(reader, stringPositions.length);
+                reader.skip(6);
+                final int sourceFileIndex = readDebugStringIndex(reader, stringPositions.length);
+                final int interfaceCount = reader.readU1();
+                final int fieldCount = reader.readU2();
+                final int methodCount = reader.readU2();
+                reader.skip(interfaceCount * 2 + fieldCount * 10);
+                builder.addClass(nameIndex, sourceFileIndex);
+
+                /* parse methods */
+                for (int j = 0; j < methodCount; j++) {
+                    final int methodNameIndex = readDebugStringIndex(reader, stringPositions.length);
+                    final int descriptorIndex = readDebugStringIndex(reader, stringPositions.length);
+                    reader.skip(2);
+                    final int location = reader.readU2();
+                    final int headerSize = reader.readU1();
+                    final int bodySize = reader.readU2();
+                    final int variableCount = reader.readU2();
+                    final int lineCount = reader.readU2();
+                    reader.skip(variableCount * 9);
+                    builder.addMethod(methodNameIndex, descriptorIndex, location, headerSize + bodySize);
+                    for (int k = 0; k < lineCount; k++) {
+                        builder.addLine(reader.readU2(), reader.readU2(), reader.readU2());
+                    }
+                }
+            }
+            if (reader.position() != componentEnd) {
+                throw CapDecodeDebugException.invalidSize();
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP debug", ex);
+        }
+    }
+
+    /**
+     * Decode CAP method component. Method boundaries are not encoded in method component, hence methods are located
+     * through method descriptors of descriptor component. The following is the structure of method component
+     * <pre>
+     * method_component {
+     *     u1 tag
+     *     u2 size
+     *     u1 handler_count
+     *     exception_handler_info exception_handlers[handler_count]
+     *     method_info methods[]
+     * }
+     *
+     * exception_handler_info {
+     *     u2 start_offset
+     *     u2 bitfield {
+     *         bit[1] stop_bit
+     *         bit[15] active_length
+     *     }
+     *     u2 handler_offset
+     *     u2 catch_type_index
+     * }
+     *
+     * method_info {
+     *     method_header_info method_header
+     *     u1 bytecodes[]
+     * }
+     *
+     * method_header_info {
+     *     u1 bitfield {
+     *         bit[4] flags
+     *         bit[4] max_stack
+     *     }
+     *     u1 bitfield {
+     *         bit[4] nargs
+     *         bit[4] max_locals
+     *     }
+     * }
+     *
+     * extended_method_header_info {
+     *     u1 bitfield {
+     *         bit[4] flags
+     *         bit[4] padding
+     *     }
+     *     u1 max_stack
+     *     u1 nargs
+     *     u1 max_locals
+     * }
+     * </pre>
+     *
+     * @param payload    CAP method component payload, read from its position to its limit
+     * @param descriptor CAP descriptor component payload, read from its position to its limit
+     * @return CAP method component object
+     * @throws CapDecodeException when decoding failed
+     */
+    static Cap.Method decodeCapMethod(final ByteBuffer payload, final ByteBuffer descriptor)
+            throws CapDecodeException {
+        if ((payload == null) || !payload.hasRemaining()) {
+            throw new IllegalArgumentException("method payload is null");
+        } else if (descriptor == null) {
+            throw CapDecodeMethodException.invalidDescriptor();
+        }
+
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            /* parse tag */
+            final int componentTag = reader.readU1();
+            if (componentTag != TAG_COMPONENT_Method) {
+                throw CapDecodeMethodException.invalidTag(componentTag);
+            }
+
+            /* parse size, offsets are relative to the info item which follows */
+            final int componentSize = reader.readU2();
+            if (reader.remaining() < componentSize) {
+                throw CapDecodeMethodException.invalidSize();
+            }
+            final ByteBuffer info = reader.slice(componentSize);
+            final CapComponentReader infoReader = new CapComponentReader(info);
+
+            /* locate methods through descriptor, sorted by offset packed into high half of key */
+            final long[] keys = decodeMethodDescriptors(descriptor);
+            Arrays.sort(keys);
+
+            /* parse exception handlers */
+            final int handlerCount = infoReader.readU1();
+            final CapMethodBuilder builder = new CapMethodBuilder(info, handlerCount, keys.length);
+            for (int i = 0; i < handlerCount; i++) {
+                final int startOffset = infoReader.readU2();
+                final int bitField = infoReader.readU2();
+                final int handlerOffset = infoReader.readU2();
+                final int catchTypeIndex = infoReader.readU2();
+                if ((startOffset + (bitField & 0x7fff) > componentSize) || (handlerOffset >= componentSize)) {
+                    throw CapDecodeMethodException.invalidExceptionHandler();
+                }
+                builder.addExceptionHandler(startOffset, bitField, handlerOffset, catchTypeIndex);
+            }
+
+            /* parse method headers */
+            final int methodsStart = infoReader.position() - info.position();
+            for (int i = 0; i < keys.length; i++) {
+                final int offset = (int) (keys[i] >>> 32);
+                if ((i > 0) && (offset == (int) (keys[i - 1] >>> 32))) {
+                    continue;
+                } else if ((offset < methodsStart) || (offset + 2 > componentSize)) {
+                    throw CapDecodeMethodException.invalidMethodOffset(offset);
+                }
+
+                final int bytecodeCount = (int) ((keys[i] >>> 16) & 0xffff);
+                final int b0 = info.get(offset) & 0xff;
+                final int flags = b0 >> 4;
+                if ((flags & ACC_METHOD_EXTENDED) != 0) {
+                    if (offset + 4 + bytecodeCount > componentSize) {
+                        throw CapDecodeMethodException.invalidMethodOffset(offset);
+                    }
+                    builder.addMethod(offset, flags, info.get(offset + 1) & 0xff, info.get(offset + 2) & 0xff,
+                            info.get(offset + 3) & 0xff, bytecodeCount, descriptorHandlerIndex(keys[i]),
+                            descriptorHandlerCount(keys[i]));
+                } else {
+                    if (offset + 2 + bytecodeCount > componentSize) {
+                        throw CapDecodeMethodException.invalidMethodOffset(offset);
+                    }
+                    final int b1 = info.get(offset + 1) & 0xff;
+                    builder.addMethod(offset, flags, b0 & 0x0f, b1 >> 4, b1 & 0x0f, bytecodeCount,
+                            descriptorHandlerIndex(keys[i]), descriptorHandlerCount(keys[i]));
+                }
+            }
+
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeException("failed to parse CAP method", ex);
+        }
+    }
+
+    /**
+     * Collect method descriptors having method body. Every descriptor is packed into a key holding method offset,
+     * bytecode count, handler index and handler count, from most to least significant. Handler index and count are
+     * packed into 8 bits each since method component holds at most 255 exception handlers.
+     * <pre>
+     * descriptor_component {
+     *     u1 tag
+     *     u2 size
+     *     u1 class_count
+     *     class_descriptor_info classes[class_count]
+     *     type_descriptor_info types
+     * }
+     *
+     * class_descriptor_info {
+     *     u1 token
+     *     u1 access_flags
+     *     class_ref this_class_ref
+     *     u1 interface_count
+     *     u2 field_count
+     *     u2 method_count
+     *     class_ref interfaces[interface_count]
+     *     field_descriptor_info fields[field_count]
+     *     method_descriptor_info methods[method_count]
+     * }
+     *
+     * method_descriptor_info {
+     *     u1 token
+     *     u1 access_flags
+     *     u2 method_offset
+     *     u2 type_offset
+     *     u2 bytecode_count
+     *     u2 exception_handler_count
+     *     u2 exception_handler_index
+     * }
+     * </pre>
+     *
+     * @param payload CAP descriptor component payload, read from its position to its limit
+     * @return unsorted method keys
+     * @throws CapDecodeException when decoding failed
+     */
+    private static long[] decodeMethodDescriptors(final ByteBuffer payload) throws CapDecodeException {
+        final CapComponentReader reader = new CapComponentReader(payload);
+        try {
+            if (reader.readU1() != TAG_COMPONENT_Descriptor) {
+                throw CapDecodeMethodException.invalidDescriptor();
+            }
+            reader.skip(2);
+
+            long[] keys = new long[64];
+            int count = 0;
+            final int classCount = reader.readU1();
+            for (int i = 0; i < classCount; i++) {
+                reader.skip(4);
+                final int interfaceCount = reader.readU1();
+                final int fieldCount = reader.readU2();
+                final int methodCount = reader.readU2();
+                reader.skip(interfaceCount * 2 + fieldCount * 7);
+                for (int j = 0; j < methodCount; j++) {
+                    reader.skip(2);
+                    final long methodOffset = reader.readU2();
+                    reader.skip(2);
+                    final long bytecodeCount = reader.readU2();
+                    final long handlerCount = reader.readU2();
+                    final long handlerIndex = reader.readU2();
+
+                    /* interface and native methods have no body */
+                    if (methodOffset == 0) {
+                        continue;
+                    }
+                    if (count == keys.length) {
+                        keys = Arrays.copyOf(keys, count << 1);
+                    }
+                    keys[count++] = (methodOffset << 32) | (bytecodeCount << 16)
+                            | (handlerIndex << 8 & 0xff00) | (handlerCount & 0xff);
+                }
+            }
+            return Arrays.copyOf(keys, count);
+        } catch (final BufferUnderflowException ex) {
+            throw new CapDecodeMethodException("failed to parse CAP method descriptors", ex);
+        }
+    }
+
+    private static int descriptorHandlerIndex(final long key) {
+        return (int) ((key >>> 8) & 0xff);
+    }
+
+    private static int descriptorHandlerCount(final long key) {
+        return (int) (key & 0xff);
+    }
+
+    private static int readDebugStringIndex(final CapComponentReader reader, final int stringCount)
+            throws CapDecodeDebugException {
+        final int index = reader.readU2();
+        if (index >= stringCount) {
+            throw CapDecodeDebugException.invalidStringIndex(index);
+        }
+        return index;
+    }
+
+    /**
+     * Component payloads ordered by component tag, along with archive directory holding standard components
+     */
+    private static final class Components extends EnumMap<CapComponentType, ByteBuffer> {
+        private static final long serialVersionUID = 1L;
+        private String directory;
+
+        /**
+         * Class constructor
+         */
+        Components() {
+            super(CapComponentType.class);
+        }
+
+        /**
+         * Remember directory of the first standard component entry, selected or not
+         *
+         * @param type component type, null when entry is not a standard component
+         * @param name entry name within archive
+         */
+        void seen(final CapComponentType type, final String name) {
+            if ((type != null) && (directory == null)) {
+                directory = name.substring(0, name.lastIndexOf('/') + 1);
+            }
+        }
     }
 }
@@ -18,12 +18,41 @@ abstract class CapDecoderImplBase {
     static final String COMPONENT_Export = "Export.cap";
     static final String COMPONENT_Descriptor = "Descriptor.cap";
     static final String COMPONENT_Debug = "Debug.cap";
+    static final String ENTRY_Manifest = "META-INF/MANIFEST.MF";
 
     static final int TAG_COMPONENT_Header = 1;
     static final int TAG_COMPONENT_Directory = 2;
     static final int TAG_COMPONENT_Applet = 3;
+    static final int TAG_COMPONENT_Import = 4;
+    static final int TAG_COMPONENT_ConstantPool = 5;
+    static final int TAG_COMPONENT_Class = 6;
+    static final int TAG_COMPONENT_Method = 7;
+    static final int TAG_COMPONENT_StaticField = 8;
+    static final int TAG_COMPONENT_ReferenceLocation = 9;
+    static final int TAG_COMPONENT_Export = 10;
+    static final int TAG_COMPONENT_Descriptor = 11;
+    static final int TAG_COMPONENT_Debug = 12;
+
+    /**
+     * Largest component entry, u2 component size plus tag and size
+     */
+    static final int MAX_COMPONENT_SIZE = 0xffff + 3;
+
+    /**
+     * Count of component sizes of directory component, before and as of CAP format 2.2
+     */
+    static final int DIRECTORY_COMPONENT_COUNT_2_1 = 11;
+    static final int DIRECTORY_COMPONENT_COUNT_2_2 = 12;
+
+    /**
+     * Largest CAP archive read into memory as a whole
+     */
+    static final int MAX_ARCHIVE_SIZE = 16 * 1024 * 1024;
 
     static final int ACC_INT = 0x01;
     static final int ACC_EXPORT = 0x02;
     static final int ACC_APPLET = 0x04;
+
+    static final int ACC_METHOD_EXTENDED = 0x08;
+    static final int ACC_METHOD_ABSTRACT = 0x04;
 }
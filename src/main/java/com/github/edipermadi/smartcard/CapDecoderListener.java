@@ -0,0 +1,58 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.file.Path;
+
+/**
+ * CAP decoder instrumentation listener, registered through {@link CapDecodeOptions#setListener(CapDecoderListener)}.
+ * Decoder reports entry and exit of every decode and, for every selected component, time spent reading and
+ * inflating its ZIP entry then time spent parsing it. Lazily decoded components are parsed on first access, possibly
+ * after decode completed and from another thread, hence implementations must be thread-safe. When no listener is
+ * registered decoder neither reads the clock nor allocates anything on behalf of instrumentation.
+ */
+public interface CapDecoderListener {
+    /**
+     * Called when decode starts
+     *
+     * @param path path to CAP file or null when decoding from stream
+     */
+    void onDecodeStart(Path path);
+
+    /**
+     * Called when decode starts, along with CAP archive size. Delegates to {@link #onDecodeStart(Path)} by default.
+     *
+     * @param path        path to CAP file or null when decoding from stream
+     * @param archiveSize CAP archive size in bytes or -1 when unknown
+     */
+    default void onDecodeStart(Path path, long archiveSize) {
+        onDecodeStart(path);
+    }
+
+    /**
+     * Called when a selected component entry has been read and inflated into memory
+     *
+     * @param type           component type
+     * @param compressedSize compressed entry size in bytes or -1 when unknown
+     * @param size           uncompressed component size in bytes
+     * @param nanos          time spent reading and inflating entry, in nanoseconds
+     */
+    void onComponentRead(CapComponentType type, long compressedSize, long size, long nanos);
+
+    /**
+     * Called when a component has been parsed into CAP object model
+     *
+     * @param type    component type
+     * @param size    component size in bytes
+     * @param nanos   time spent parsing component, in nanoseconds
+     * @param failure parsing failure or null on success
+     */
+    void onComponentParsed(CapComponentType type, long size, long nanos, Throwable failure);
+
+    /**
+     * Called when decode completes, excluding lazily parsed components
+     *
+     * @param path    path to CAP file or null when decoding from stream
+     * @param nanos   total decode time, in nanoseconds
+     * @param failure decode failure or null on success
+     */
+    void onDecodeEnd(Path path, long nanos, Throwable failure);
+}
@@ -0,0 +1,211 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Package dependency graph over a corpus of CAP files. Every CAP is registered under a caller supplied key (such
+ * as its path) along with its own package and imported packages. Reverse dependencies are indexed by imported
+ * package AID then by imported version, hence dependents of a package at or above a version are answered by a
+ * sorted map range rather than by rescanning the corpus. Registering a key again replaces its edges, so the graph
+ * is updated incrementally as CAP files change. Safe for concurrent use.
+ *
+ * @param <K> CAP key type
+ */
+public final class CapDependencyGraph<K> {
+    private final Map<K, Node> nodes = new HashMap<>();
+    private final Map<Aid, NavigableMap<Integer, Set<K>>> dependents = new HashMap<>();
+    private final Map<Aid, Set<K>> providers = new HashMap<>();
+
+    /**
+     * Register CAP, replacing previous registration of key
+     *
+     * @param key CAP key
+     * @param cap CAP object, decoded with import component selected
+     */
+    public synchronized void put(final K key, final Cap cap) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        } else if (cap == null) {
+            throw new IllegalArgumentException("CAP is null");
+        } else if (cap.getImport() == null) {
+            throw new IllegalArgumentException("CAP import component is not decoded");
+        }
+
+        remove(key);
+        final Node node = new Node(cap.getHeader().getPackage().getAid(), cap.getImport().getPackages());
+        nodes.put(key, node);
+        for (final Cap.Header.PackageInfo imported : node.imports) {
+            NavigableMap<Integer, Set<K>> versions = dependents.get(imported.getAid());
+            if (versions == null) {
+                versions = new TreeMap<>();
+                dependents.put(imported.getAid(), versions);
+            }
+            Set<K> keys = versions.get(imported.getVersion());
+            if (keys == null) {
+                keys = new LinkedHashSet<>();
+                versions.put(imported.getVersion(), keys);
+            }
+            keys.add(key);
+        }
+
+        Set<K> keys = providers.get(node.aid);
+        if (keys == null) {
+            keys = new LinkedHashSet<>();
+            providers.put(node.aid, keys);
+        }
+        keys.add(key);
+    }
+
+    /**
+     * Unregister CAP
+     *
+     * @param key CAP key
+     * @return true when key was registered
+     */
+    public synchronized boolean remove(final K key) {
+        final Node node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+
+        for (final Cap.Header.PackageInfo imported : node.imports) {
+            /* package imported twice by the same CAP is already unlinked */
+            final NavigableMap<Integer, Set<K>> versions = dependents.get(imported.getAid());
+            final Set<K> keys = (versions == null) ? null : versions.get(imported.getVersion());
+            if (keys == null) {
+                continue;
+            }
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                versions.remove(imported.getVersion());
+                if (versions.isEmpty()) {
+                    dependents.remove(imported.getAid());
+                }
+            }
+        }
+
+        final Set<K> keys = providers.get(node.aid);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            providers.remove(node.aid);
+        }
+        return true;
+    }
+
+    /**
+     * Get CAPs importing a package at any version
+     *
+     * @param aid package AID
+     * @return keys of dependent CAPs
+     */
+    public Set<K> getDependents(final Aid aid) {
+        return getDependents(aid, 0);
+    }
+
+    /**
+     * Get CAPs importing a package at or above a version
+     *
+     * @param aid        package AID
+     * @param minVersion minimum imported version, encoded in 0xaabb (major, minor)
+     * @return keys of dependent CAPs
+     */
+    public synchronized Set<K> getDependents(final Aid aid, final int minVersion) {
+        final Set<K> result = new LinkedHashSet<>();
+        collectDependents(aid, minVersion, result);
+        return result;
+    }
+
+    /**
+     * Get CAPs depending on a package, either directly at or above a version, or indirectly through packages of
+     * other dependent CAPs at any version
+     *
+     * @param aid        package AID
+     * @param minVersion minimum version imported by direct dependents, encoded in 0xaabb (major, minor)
+     * @return keys of direct and indirect dependent CAPs
+     */
+    public synchronized Set<K> getTransitiveDependents(final Aid aid, final int minVersion) {
+        final Set<K> result = new LinkedHashSet<>();
+        collectDependents(aid, minVersion, result);
+
+        final Queue<K> pending = new ArrayDeque<>(result);
+        final Set<Aid> visited = new LinkedHashSet<>();
+        visited.add(aid);
+        while (!pending.isEmpty()) {
+            final Aid dependent = nodes.get(pending.remove()).aid;
+            if (!visited.add(dependent)) {
+                continue;
+            }
+
+            final Set<K> next = new LinkedHashSet<>();
+            collectDependents(dependent, 0, next);
+            for (final K key : next) {
+                if (result.add(key)) {
+                    pending.add(key);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get CAPs declaring a package
+     *
+     * @param aid package AID
+     * @return keys of CAPs whose header declares package
+     */
+    public synchronized Set<K> getProviders(final Aid aid) {
+        final Set<K> keys = providers.get(aid);
+        return (keys == null) ? Collections.<K>emptySet() : new LinkedHashSet<>(keys);
+    }
+
+    /**
+     * Get packages imported by CAP
+     *
+     * @param key CAP key
+     * @return imported packages or null when key is not registered
+     */
+    public synchronized List<Cap.Header.PackageInfo> getDependencies(final K key) {
+        final Node node = nodes.get(key);
+        return (node == null) ? null : node.imports;
+    }
+
+    /**
+     * Get count of registered CAPs
+     *
+     * @return count of registered CAPs
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    private void collectDependents(final Aid aid, final int minVersion, final Set<K> result) {
+        final NavigableMap<Integer, Set<K>> versions = dependents.get(aid);
+        if (versions != null) {
+            for (final Set<K> keys : versions.tailMap(minVersion, true).values()) {
+                result.addAll(keys);
+            }
+        }
+    }
+
+    /**
+     * Registered CAP, its own package and imported packages
+     */
+    private static final class Node {
+        private final Aid aid;
+        private final List<Cap.Header.PackageInfo> imports;
+
+        Node(final Aid aid, final List<Cap.Header.PackageInfo> imports) {
+            this.aid = aid;
+            this.imports = imports;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * CAP descriptor component builder. Class descriptors are recorded by position only, they are parsed out of
+ * component payload on first access. Type descriptors are parsed upfront and, when an intern pool is given, shared
+ * with identical type descriptors of other CAP files.
+ */
+final class CapDescriptorBuilder {
+    private final ByteBuffer payload;
+    private final int[] classPositions;
+    private final char[] thisClassRefs;
+    private int classCount;
+    private char[] constantPoolTypes = new char[0];
+    private int[] typeOffsets = new int[16];
+    private Cap.Descriptor.TypeDescriptor[] types = new Cap.Descriptor.TypeDescriptor[16];
+    private int typeCount;
+    private final CapInternPool pool;
+
+    /**
+     * Class constructor
+     *
+     * @param payload    descriptor component payload, class descriptors are parsed from it using absolute access
+     * @param classCount count of class descriptors to be added
+     * @param pool       intern pool canonicalizing type descriptors, null to keep them as parsed
+     */
+    CapDescriptorBuilder(final ByteBuffer payload, final int classCount, final CapInternPool pool) {
+        if (payload == null) {
+            throw new IllegalArgumentException("descriptor payload is null");
+        }
+        this.payload = payload.asReadOnlyBuffer();
+        this.classPositions = new int[classCount];
+        this.thisClassRefs = new char[classCount];
+        this.pool = pool;
+    }
+
+    /**
+     * Add class descriptor
+     *
+     * @param position     absolute position of class descriptor within payload
+     * @param thisClassRef described class reference
+     * @return this instance
+     */
+    CapDescriptorBuilder addClass(final int position, final int thisClassRef) {
+        classPositions[classCount] = position;
+        thisClassRefs[classCount] = (char) thisClassRef;
+        classCount++;
+        return this;
+    }
+
+    /**
+     * Set constant pool types
+     *
+     * @param constantPoolTypes type offsets indexed by constant pool index, 0xffff for class references
+     * @return this instance
+     */
+    CapDescriptorBuilder setConstantPoolTypes(final char[] constantPoolTypes) {
+        if (constantPoolTypes == null) {
+            throw new IllegalArgumentException("constant pool types is null");
+        }
+        this.constantPoolTypes = constantPoolTypes;
+        return this;
+    }
+
+    /**
+     * Add type descriptor, type descriptors must be added in ascending order of offset
+     *
+     * @param offset  offset within type descriptor info
+     * @param nibbles packed nibbles, high nibble first
+     * @param count   count of nibbles
+     * @return this instance
+     */
+    CapDescriptorBuilder addType(final int offset, final byte[] nibbles, final int count) {
+        final Cap.Descriptor.TypeDescriptor type = new CapTypeDescriptor(nibbles, count);
+        if (typeCount == typeOffsets.length) {
+            typeOffsets = Arrays.copyOf(typeOffsets, typeCount << 1);
+            types = Arrays.copyOf(types, typeCount << 1);
+        }
+        typeOffsets[typeCount] = offset;
+        types[typeCount] = (pool == null) ? type : pool.intern(type);
+        typeCount++;
+        return this;
+    }
+
+    /**
+     * Build CAP descriptor component object
+     *
+     * @return CAP descriptor component object
+     */
+    Cap.Descriptor build() {
+        if (classCount != classPositions.length) {
+            throw new IllegalStateException("expected " + classPositions.length + " class descriptors, got "
+                    + classCount);
+        }
+        return new CapDescriptor(this);
+    }
+
+    /**
+     * CAP descriptor component implementation. Class descriptors are materialized on first access, concurrent
+     * first accesses may parse the same class twice, the first one published wins.
+     */
+    static final class CapDescriptor implements Cap.Descriptor {
+        private final ByteBuffer payload;
+        private final int[] classPositions;
+        private final char[] thisClassRefs;
+        private final AtomicReferenceArray<ClassDescriptor> classes;
+        private final char[] constantPoolTypes;
+        private final int[] typeOffsets;
+        private final TypeDescriptor[] types;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP descriptor builder
+         */
+        CapDescriptor(final CapDescriptorBuilder builder) {
+            this.payload = builder.payload;
+            this.classPositions = builder.classPositions;
+            this.thisClassRefs = builder.thisClassRefs;
+            this.classes = new AtomicReferenceArray<>(classPositions.length);
+            this.constantPoolTypes = builder.constantPoolTypes;
+            this.typeOffsets = Arrays.copyOf(builder.typeOffsets, builder.typeCount);
+            this.types = Arrays.copyOf(builder.types, builder.typeCount);
+        }
+
+        @Override
+        public int getClassCount() {
+            return classPositions.length;
+        }
+
+        @Override
+        public ClassDescriptor getClassDescriptor(final int index) {
+            ClassDescriptor descriptor = classes.get(index);
+            if (descriptor == null) {
+                descriptor = parseClass(classPositions[index]);
+                if (!classes.compareAndSet(index, null, descriptor)) {
+                    descriptor = classes.get(index);
+                }
+            }
+            return descriptor;
+        }
+
+        @Override
+        public ClassDescriptor findClassDescriptor(final int thisClassRef) {
+            for (int i = 0; i < thisClassRefs.length; i++) {
+                if (thisClassRefs[i] == thisClassRef) {
+                    return getClassDescriptor(i);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public TypeDescriptor getConstantPoolType(final int index) {
+            final int offset = constantPoolTypes[index];
+            return (offset == 0xffff) ? null : getType(offset);
+        }
+
+        @Override
+        public TypeDescriptor getType(final int offset) {
+            final int i = Arrays.binarySearch(typeOffsets, offset);
+            return (i < 0) ? null : types[i];
+        }
+
+        /**
+         * Parse class descriptor, bounds were checked by the scan performed at decoding time
+         */
+        private ClassDescriptor parseClass(final int position) {
+            final ByteBuffer view = payload.duplicate();
+            view.position(position);
+            final CapComponentReader reader = new CapComponentReader(view);
+
+            final int token = reader.readU1();
+            final int accessFlags = reader.readU1();
+            final int thisClassRef = reader.readU2();
+            final int interfaceCount = reader.readU1();
+            final int fieldCount = reader.readU2();
+            final int methodCount = reader.readU2();
+
+            final int[] interfaces = new int[interfaceCount];
+            for (int i = 0; i < interfaceCount; i++) {
+                interfaces[i] = reader.readU2();
+            }
+
+            final List<FieldDescriptor> fields = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                final int fieldToken = reader.readU1();
+                final int fieldAccessFlags = reader.readU1();
+                final int fieldRef = (reader.readU1() << 16) | reader.readU2();
+                final int type = reader.readU2();
+                fields.add(new CapFieldDescriptor(fieldToken, fieldAccessFlags, fieldRef, type,
+                        ((type & 0x8000) != 0) ? null : getType(type)));
+            }
+
+            final List<MethodDescriptor> methods = new ArrayList<>(methodCount);
+            for (int i = 0; i < methodCount; i++) {
+                final int methodToken = reader.readU1();
+                final int methodAccessFlags = reader.readU1();
+                final int methodOffset = reader.readU2();
+                final TypeDescriptor type = getType(reader.readU2());
+                methods.add(new CapMethodDescriptor(methodToken, methodAccessFlags, methodOffset, type,
+                        reader.readU2(), reader.readU2(), reader.readU2()));
+            }
+
+            return new CapClassDescriptor(token, accessFlags, thisClassRef, interfaces, fields, methods);
+        }
+    }
+
+    /**
+     * CAP class descriptor implementation
+     */
+    static final class CapClassDescriptor implements Cap.Descriptor.ClassDescriptor {
+        private final int token;
+        private final int accessFlags;
+        private final int thisClassRef;
+        private final int[] interfaces;
+        private final List<Cap.Descriptor.FieldDescriptor> fields;
+        private final List<Cap.Descriptor.MethodDescriptor> methods;
+
+        /**
+         * Class constructor
+         *
+         * @param token        class token
+         * @param accessFlags  access flags
+         * @param thisClassRef described class reference
+         * @param interfaces   implemented interface references
+         * @param fields       field descriptors
+         * @param methods      method descriptors
+         */
+        CapClassDescriptor(final int token, final int accessFlags, final int thisClassRef, final int[] interfaces,
+                           final List<Cap.Descriptor.FieldDescriptor> fields,
+                           final List<Cap.Descriptor.MethodDescriptor> methods) {
+            this.token = token;
+            this.accessFlags = accessFlags;
+            this.thisClassRef = thisClassRef;
+            this.interfaces = interfaces;
+            this.fields = Collections.unmodifiableList(fields);
+            this.methods = Collections.unmodifiableList(methods);
+        }
+
+        @Override
+        public int getToken() {
+            return token;
+        }
+
+        @Override
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        @Override
+        public int getThisClassRef() {
+            return thisClassRef;
+        }
+
+        @Override
+        public int[] getInterfaces() {
+            return interfaces.clone();
+        }
+
+        @Override
+        public List<Cap.Descriptor.FieldDescriptor> getFields() {
+            return fields;
+        }
+
+        @Override
+        public List<Cap.Descriptor.MethodDescriptor> getMethods() {
+            return methods;
+        }
+    }
+
+    /**
+     * CAP field descriptor implementation
+     */
+    static final class CapFieldDescriptor implements Cap.Descriptor.FieldDescriptor {
+        private final int token;
+        private final int accessFlags;
+        private final int fieldRef;
+        private final int type;
+        private final Cap.Descriptor.TypeDescriptor referenceType;
+
+        /**
+         * Class constructor
+         *
+         * @param token         field token
+         * @param accessFlags   access flags
+         * @param fieldRef      packed field reference
+         * @param type          primitive type or reference type offset
+         * @param referenceType reference type descriptor, null when primitive
+         */
+        CapFieldDescriptor(final int token, final int accessFlags, final int fieldRef, final int type,
+                           final Cap.Descriptor.TypeDescriptor referenceType) {
+            this.token = token;
+            this.accessFlags = accessFlags;
+            this.fieldRef = fieldRef;
+            this.type = type;
+            this.referenceType = referenceType;
+        }
+
+        @Override
+        public int getToken() {
+            return token;
+        }
+
+        @Override
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        @Override
+        public int getFieldRef() {
+            return fieldRef;
+        }
+
+        @Override
+        public boolean isPrimitive() {
+            return (type & 0x8000) != 0;
+        }
+
+        @Override
+        public int getPrimitiveType() {
+            return isPrimitive() ? (type & 0x7fff) : -1;
+        }
+
+        @Override
+        public Cap.Descriptor.TypeDescriptor getReferenceType() {
+            return referenceType;
+        }
+    }
+
+    /**
+     * CAP method descriptor implementation
+     */
+    static final class CapMethodDescriptor implements Cap.Descriptor.MethodDescriptor {
+        private final int token;
+        private final int accessFlags;
+        private final int methodOffset;
+        private final Cap.Descriptor.TypeDescriptor type;
+        private final int bytecodeCount;
+        private final int exceptionHandlerCount;
+        private final int exceptionHandlerIndex;
+
+        /**
+         * Class constructor
+         *
+         * @param token                 method token
+         * @param accessFlags           access flags
+         * @param methodOffset          method offset
+         * @param type                  method signature
+         * @param bytecodeCount         count of bytecode bytes
+         * @param exceptionHandlerCount count of exception handlers
+         * @param exceptionHandlerIndex index of first exception handler
+         */
+        CapMethodDescriptor(final int token, final int accessFlags, final int methodOffset,
+                            final Cap.Descriptor.TypeDescriptor type, final int bytecodeCount,
+                            final int exceptionHandlerCount, final int exceptionHandlerIndex) {
+            this.token = token;
+            this.accessFlags = accessFlags;
+            this.methodOffset = methodOffset;
+            this.type = type;
+            this.bytecodeCount = bytecodeCount;
+            this.exceptionHandlerCount = exceptionHandlerCount;
+            this.exceptionHandlerIndex = exceptionHandlerIndex;
+        }
+
+        @Override
+        public int getToken() {
+            return token;
+        }
+
+        @Override
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        @Override
+        public int getMethodOffset() {
+            return methodOffset;
+        }
+
+        @Override
+        public Cap.Descriptor.TypeDescriptor getType() {
+            return type;
+        }
+
+        @Override
+        public int getBytecodeCount() {
+            return bytecodeCount;
+        }
+
+        @Override
+        public int getExceptionHandlerCount() {
+            return exceptionHandlerCount;
+        }
+
+        @Override
+        public int getExceptionHandlerIndex() {
+            return exceptionHandlerIndex;
+        }
+    }
+
+    /**
+     * CAP type descriptor implementation, equal by content
+     */
+    static final class CapTypeDescriptor implements Cap.Descriptor.TypeDescriptor {
+        private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+        private final byte[] nibbles;
+        private final int count;
+
+        /**
+         * Class constructor
+         *
+         * @param nibbles packed nibbles, high nibble first
+         * @param count   count of nibbles
+         */
+        CapTypeDescriptor(final byte[] nibbles, final int count) {
+            this.nibbles = nibbles;
+            this.count = count;
+        }
+
+        @Override
+        public int getNibbleCount() {
+            return count;
+        }
+
+        @Override
+        public int getNibble(final int index) {
+            if ((index < 0) || (index >= count)) {
+                throw new IndexOutOfBoundsException("invalid nibble index " + index);
+            }
+            final int b = nibbles[index >> 1];
+            return ((index & 1) == 0) ? ((b >> 4) & 0x0f) : (b & 0x0f);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof CapTypeDescriptor)) {
+                return false;
+            }
+            final CapTypeDescriptor other = (CapTypeDescriptor) o;
+            return (count == other.count) && Arrays.equals(nibbles, other.nibbles);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(nibbles) + count;
+        }
+
+        /**
+         * Render type descriptor as hex string of its nibbles
+         *
+         * @return nibble string
+         */
+        @Override
+        public String toString() {
+            final char[] out = new char[count];
+            for (int i = 0; i < count; i++) {
+                out[i] = HEX_DIGITS[getNibble(i)];
+            }
+            return new String(out);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.github.edipermadi.smartcard;
 
-import com.google.gson.annotations.SerializedName;
-import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -77,17 +75,20 @@ final class CapDirectoryBuilder {
     /**
      * Add custom component
      *
-     * @param tag tag of custom component
-     * @param aid AID of custom component
+     * @param tag  tag of custom component
+     * @param size size of custom component, -1 when unknown
+     * @param aid  AID of custom component
      * @return this instance
      */
-    CapDirectoryBuilder addCustomComponent(final int tag, final String aid) {
+    CapDirectoryBuilder addCustomComponent(final int tag, final int size, final Aid aid) {
         if ((tag < 128) || (tag > 255)) {
             throw new IllegalArgumentException("tag of custom components is invalid");
-        } else if (StringUtils.isEmpty(aid)) {
+        } else if ((size < -1) || (size > 65535)) {
+            throw new IllegalArgumentException("size of custom components is invalid");
+        } else if (aid == null) {
             throw new IllegalArgumentException("aid of custom components is empty");
         }
-        customComponents.add(new CapDirectoryCustomComponentInfo(tag, aid));
+        customComponents.add(new CapDirectoryCustomComponentInfo(tag, size, aid));
         return this;
     }
 
@@ -117,20 +118,20 @@ final class CapDirectoryBuilder {
      */
     static final class CapDirectoryCustomComponentInfo implements Cap.Directory.CustomComponentInfo {
 
-        @SerializedName("tag")
         private final int tag;
-
-        @SerializedName("aid")
-        private final String aid;
+        private final int size;
+        private final Aid aid;
 
         /**
          * Class constructor
          *
-         * @param tag custom component tag
-         * @param aid custom component aid
+         * @param tag  custom component tag
+         * @param size custom component size
+         * @param aid  custom component aid
          */
-        CapDirectoryCustomComponentInfo(final int tag, final String aid) {
+        CapDirectoryCustomComponentInfo(final int tag, final int size, final Aid aid) {
             this.tag = tag;
+            this.size = size;
             this.aid = aid;
         }
 
@@ -140,7 +141,18 @@ final class CapDirectoryBuilder {
         }
 
         @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        @Deprecated
         public String getAID() {
+            return aid.toString();
+        }
+
+        @Override
+        public Aid getAid() {
             return aid;
         }
     }
@@ -151,13 +163,8 @@ final class CapDirectoryBuilder {
      * @author Edi Permadi
      */
     static final class CapDirectoryStaticFieldSizeInfo implements Cap.Directory.StaticFieldSizeInfo {
-        @SerializedName("image_size")
         private final int imageSize;
-
-        @SerializedName("array_init_count")
         private final int arrayInitCount;
-
-        @SerializedName("array_init_size")
         private final int arrayInitSize;
 
         /**
@@ -195,19 +202,10 @@ final class CapDirectoryBuilder {
      * @author Edi Permadi
      */
     static final class CapDirectory implements Cap.Directory {
-        @SerializedName("component_sizes")
         private final List<Integer> componentSizes;
-
-        @SerializedName("static_field_size")
         private final StaticFieldSizeInfo staticFieldSize;
-
-        @SerializedName("import_count")
         private final int importCount;
-
-        @SerializedName("applet_count")
         private final int appletCount;
-
-        @SerializedName("custom_components")
         private final List<CustomComponentInfo> customComponents;
 
         /**
@@ -253,7 +251,7 @@ final class CapDirectoryBuilder {
 
         @Override
         public String toString() {
-            return null;
+            return CapJsonWriter.toString(this);
         }
     }
 }
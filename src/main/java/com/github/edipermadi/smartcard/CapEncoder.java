@@ -0,0 +1,29 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * CAP encoder interface
+ */
+public interface CapEncoder {
+    /**
+     * Encode CAP object into CAP archive. Stream is not closed.
+     *
+     * @param cap    CAP object
+     * @param stream target stream
+     * @throws CapException when encoding failed
+     */
+    void encode(Cap cap, OutputStream stream) throws CapException;
+
+    /**
+     * Encode CAP object into CAP archive. Channel is not closed.
+     *
+     * @param cap     CAP object
+     * @param channel target channel
+     * @throws CapException when encoding failed
+     */
+    void encode(Cap cap, WritableByteChannel channel) throws CapException;
+}
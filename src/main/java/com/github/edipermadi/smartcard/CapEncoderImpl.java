@@ -0,0 +1,344 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapEncodeException;
+import com.github.edipermadi.smartcard.exc.CapException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * CAP File encoder implementation. Header and applet components are encoded from CAP object, other components,
+ * custom components and manifest are copied from their raw payload. Directory component is encoded last, its
+ * component sizes, counts and static field size info are recomputed from the components actually written. Components
+ * are written one at a time in installation order, the archive is never assembled in memory.
+ */
+public class CapEncoderImpl extends CapDecoderImplBase implements CapEncoder {
+    private static final CapComponentType[] ORDER = {
+            CapComponentType.HEADER,
+            CapComponentType.DIRECTORY,
+            CapComponentType.IMPORT,
+            CapComponentType.APPLET,
+            CapComponentType.CLASS,
+            CapComponentType.METHOD,
+            CapComponentType.STATIC_FIELD,
+            CapComponentType.EXPORT,
+            CapComponentType.CONSTANT_POOL,
+            CapComponentType.REFERENCE_LOCATION,
+            CapComponentType.DESCRIPTOR,
+            CapComponentType.DEBUG
+    };
+
+    private final int level;
+
+    /**
+     * Class constructor, using default compression level
+     */
+    public CapEncoderImpl() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param level compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}
+     *              or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public CapEncoderImpl(final int level) {
+        if ((level != Deflater.DEFAULT_COMPRESSION)
+                && ((level < Deflater.NO_COMPRESSION) || (level > Deflater.BEST_COMPRESSION))) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        this.level = level;
+    }
+
+    @Override
+    public void encode(final Cap cap, final OutputStream stream) throws CapException {
+        if (cap == null) {
+            throw new IllegalArgumentException("CAP is null");
+        } else if (stream == null) {
+            throw new IllegalArgumentException("stream is null");
+        }
+
+        /* collect components first, directory describes them */
+        final EnumMap<CapComponentType, ByteBuffer> components = new EnumMap<>(CapComponentType.class);
+        final CapComponentWriter writer = new CapComponentWriter(256);
+        encodeCapHeader(cap.getHeader(), writer.reset());
+        components.put(CapComponentType.HEADER, copy(writer));
+        if (cap.getApplet() != null) {
+            encodeCapApplet(cap.getApplet(), writer.reset());
+            components.put(CapComponentType.APPLET, copy(writer));
+        }
+        for (final CapComponentType type : ORDER) {
+            final ByteBuffer payload = cap.getRawComponent(type);
+            if ((payload != null) && !components.containsKey(type) && (type != CapComponentType.DIRECTORY)) {
+                components.put(type, payload);
+            }
+        }
+        final Map<String, ByteBuffer> customComponents = cap.getCustomComponents();
+        encodeCapDirectory(cap.getHeader().getVersion(), cap.getDirectory(), components, customComponents,
+                writer.reset());
+        components.put(CapComponentType.DIRECTORY, copy(writer));
+
+        final ZipOutputStream zos = new ZipOutputStream(stream);
+        zos.setLevel(level);
+        try {
+            final String prefix = componentDirectory(cap);
+            final byte[] chunk = new byte[8192];
+            final ByteBuffer manifest = cap.getManifest();
+            if (manifest != null) {
+                writeEntry(zos, ENTRY_Manifest, manifest, chunk);
+            }
+            for (final CapComponentType type : ORDER) {
+                final ByteBuffer payload = components.get(type);
+                if (payload != null) {
+                    writeEntry(zos, prefix + type.getFileName(), payload, chunk);
+                }
+            }
+            for (final Map.Entry<String, ByteBuffer> e : customComponents.entrySet()) {
+                writeEntry(zos, prefix + e.getKey(), e.getValue(), chunk);
+            }
+            zos.finish();
+            zos.flush();
+        } catch (final IOException ex) {
+            throw new CapEncodeException("failed to write CAP archive", ex);
+        }
+    }
+
+    @Override
+    public void encode(final Cap cap, final WritableByteChannel channel) throws CapException {
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is null");
+        }
+        encode(cap, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Encode CAP header component, see {@link CapDecoderImpl#decodeCapHeader(ByteBuffer)} for structure
+     *
+     * @param header CAP header component
+     * @param writer component writer
+     * @throws CapEncodeException when package name does not fit in 255 bytes
+     */
+    static void encodeCapHeader(final Cap.Header header, final CapComponentWriter writer)
+            throws CapEncodeException {
+        final int start = writer.position();
+        writer.writeU1(TAG_COMPONENT_Header)
+                .writeU2(0)
+                .writeU4(0xdecaffed)
+                .writeVersion(header.getVersion())
+                .writeU1(header.getFlags());
+
+        final Cap.Header.PackageInfo packageInfo = header.getPackage();
+        final Aid aid = packageInfo.getAid();
+        writer.writeVersion(packageInfo.getVersion())
+                .writeU1(aid.length())
+                .writeAid(aid);
+
+        final Cap.Header.PackageNameInfo packageName = header.getPackageName();
+        if ((packageName != null) && (packageName.getName() != null)) {
+            final int lengthPosition = writer.position();
+            writer.writeU1(0).writeUtf8(packageName.getName());
+            final int nameLength = writer.position() - lengthPosition - 1;
+            if (nameLength > 255) {
+                throw CapEncodeException.packageNameTooLong(nameLength);
+            }
+            writer.array()[lengthPosition] = (byte) nameLength;
+        }
+
+        writer.writeU2At(start + 1, writer.position() - start - 3);
+    }
+
+    /**
+     * Encode CAP directory component, see {@link CapDecoderImpl#decodeCapDirectory(ByteBuffer)} for structure.
+     * Component sizes, import and applet counts, static field size info and custom component sizes are computed
+     * from given components, directory only provides custom component AIDs and the list of components it requires.
+     * Custom component sizes declared by directory, possibly unknown (-1), are never used.
+     *
+     * @param version          CAP format version, 12 component sizes are written as of 2.2
+     * @param directory        CAP directory component
+     * @param components       payloads of components to be written, except directory
+     * @param customComponents payloads of custom components to be written, keyed by file name
+     * @param writer           component writer
+     * @throws CapEncodeException when a component declared by directory is missing or a custom component is not
+     *                            declared by directory
+     */
+    static void encodeCapDirectory(final int version, final Cap.Directory directory,
+                                   final Map<CapComponentType, ByteBuffer> components,
+                                   final Map<String, ByteBuffer> customComponents, final CapComponentWriter writer)
+            throws CapEncodeException {
+        final int start = writer.position();
+        writer.writeU1(TAG_COMPONENT_Directory).writeU2(0);
+
+        /* component sizes, own size is patched once known */
+        final int count = (version >= 0x0202) ? DIRECTORY_COMPONENT_COUNT_2_2 : DIRECTORY_COMPONENT_COUNT_2_1;
+        final List<Integer> declaredSizes = directory.getComponentSizes();
+        final CapComponentType[] types = CapComponentType.values();
+        for (int i = 0; i < count; i++) {
+            final ByteBuffer payload = components.get(types[i]);
+            if (payload != null) {
+                writer.writeU2(payload.remaining() - 3);
+            } else if ((types[i] == CapComponentType.DIRECTORY) || (i >= declaredSizes.size())
+                    || (declaredSizes.get(i) == 0)) {
+                writer.writeU2(0);
+            } else {
+                throw CapEncodeException.missingComponent(types[i].getFileName());
+            }
+        }
+
+        /* static_field_size_info, import_count and applet_count */
+        encodeStaticFieldSize(components.get(CapComponentType.STATIC_FIELD), writer);
+        final ByteBuffer importComponent = components.get(CapComponentType.IMPORT);
+        final ByteBuffer appletComponent = components.get(CapComponentType.APPLET);
+        writer.writeU1((importComponent == null) ? 0 : importComponent.get(importComponent.position() + 3) & 0xff)
+                .writeU1((appletComponent == null) ? 0 : appletComponent.get(appletComponent.position() + 3) & 0xff);
+
+        /* custom components, AIDs are taken from directory and sizes from payloads */
+        final List<Cap.Directory.CustomComponentInfo> customInfos = directory.getCustomComponents();
+        for (final Cap.Directory.CustomComponentInfo customInfo : customInfos) {
+            if (!hasCustomComponent(customComponents, customInfo.getTag())) {
+                throw CapEncodeException.missingComponent("with tag " + customInfo.getTag());
+            }
+        }
+        writer.writeU1(customComponents.size());
+        for (final Map.Entry<String, ByteBuffer> e : customComponents.entrySet()) {
+            final ByteBuffer payload = e.getValue();
+            final int tag = payload.hasRemaining() ? payload.get(payload.position()) & 0xff : -1;
+            final Cap.Directory.CustomComponentInfo customInfo = findCustomComponent(customInfos, tag);
+            if (customInfo == null) {
+                throw CapEncodeException.unknownCustomComponent(e.getKey(), tag);
+            }
+            final Aid aid = customInfo.getAid();
+            writer.writeU1(tag)
+                    .writeU2(payload.remaining() - 3)
+                    .writeU1(aid.length())
+                    .writeAid(aid);
+        }
+
+        final int size = writer.position() - start - 3;
+        writer.writeU2At(start + 1, size);
+        writer.writeU2At(start + 3 + (TAG_COMPONENT_Directory - 1) * 2, size);
+    }
+
+    /**
+     * Encode static field size info out of static field component, see
+     * {@link CapDecoderImpl#decodeCapStaticField(ByteBuffer, Cap.Directory)} for structure
+     *
+     * @param staticField static field component payload, null when absent
+     * @param writer      component writer
+     * @throws CapEncodeException when static field component is malformed
+     */
+    private static void encodeStaticFieldSize(final ByteBuffer staticField, final CapComponentWriter writer)
+            throws CapEncodeException {
+        if (staticField == null) {
+            writer.writeU2(0).writeU2(0).writeU2(0);
+            return;
+        }
+
+        final CapComponentReader reader = new CapComponentReader(staticField.duplicate());
+        try {
+            reader.skip(3);
+            final int imageSize = reader.readU2();
+            reader.skip(2);
+            final int arrayInitCount = reader.readU2();
+            int arrayInitSize = 0;
+            for (int i = 0; i < arrayInitCount; i++) {
+                reader.skip(1);
+                final int valueCount = reader.readU2();
+                reader.skip(valueCount);
+                arrayInitSize += valueCount;
+            }
+            writer.writeU2(imageSize).writeU2(arrayInitCount).writeU2(arrayInitSize);
+        } catch (final BufferUnderflowException ex) {
+            throw new CapEncodeException("failed to read CAP static field size", ex);
+        }
+    }
+
+    private static boolean hasCustomComponent(final Map<String, ByteBuffer> customComponents, final int tag) {
+        for (final ByteBuffer payload : customComponents.values()) {
+            if (payload.hasRemaining() && ((payload.get(payload.position()) & 0xff) == tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Cap.Directory.CustomComponentInfo findCustomComponent(
+            final List<Cap.Directory.CustomComponentInfo> customInfos, final int tag) {
+        for (final Cap.Directory.CustomComponentInfo customInfo : customInfos) {
+            if (customInfo.getTag() == tag) {
+                return customInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Encode CAP applet component, see {@link CapDecoderImpl#decodeCapApplet(ByteBuffer)} for structure
+     *
+     * @param applet CAP applet component
+     * @param writer component writer
+     */
+    static void encodeCapApplet(final Cap.Applet applet, final CapComponentWriter writer) {
+        final int start = writer.position();
+        final List<Cap.Applet.Info> applets = applet.getApplets();
+        writer.writeU1(TAG_COMPONENT_Applet)
+                .writeU2(0)
+                .writeU1(applets.size());
+        for (final Cap.Applet.Info info : applets) {
+            final Aid aid = info.getAid();
+            writer.writeU1(aid.length())
+                    .writeAid(aid)
+                    .writeU2(info.getInstallMethodOffset());
+        }
+
+        writer.writeU2At(start + 1, writer.position() - start - 3);
+    }
+
+    /**
+     * Get directory of components within archive. A decoded CAP keeps the directory of its source archive, a CAP
+     * built from scratch derives it from package name, or from package AID in hex when name is absent (CAP 2.1
+     * header has no name), followed by {@code javacard/}.
+     *
+     * @param cap CAP object
+     * @return component directory, ending with '/' unless empty
+     */
+    private static String componentDirectory(final Cap cap) {
+        if (cap.getComponentDirectory() != null) {
+            return cap.getComponentDirectory();
+        }
+
+        final Cap.Header header = cap.getHeader();
+        final Cap.Header.PackageNameInfo packageName = header.getPackageName();
+        if ((packageName != null) && (packageName.getName() != null) && !packageName.getName().isEmpty()) {
+            return packageName.getName().replace('.', '/') + "/javacard/";
+        }
+        return header.getPackage().getAid().toString() + "/javacard/";
+    }
+
+    private static ByteBuffer copy(final CapComponentWriter writer) {
+        return ByteBuffer.wrap(Arrays.copyOf(writer.array(), writer.position()));
+    }
+
+    private static void writeEntry(final ZipOutputStream zos, final String name, final ByteBuffer payload,
+                                   final byte[] chunk) throws IOException {
+        final ByteBuffer content = payload.duplicate();
+        zos.putNextEntry(new ZipEntry(name));
+        while (content.hasRemaining()) {
+            final int n = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, n);
+            zos.write(chunk, 0, n);
+        }
+        zos.closeEntry();
+    }
+}
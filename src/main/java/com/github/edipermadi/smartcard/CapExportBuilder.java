@@ -0,0 +1,130 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.Arrays;
+
+/**
+ * CAP export component builder. Static field and static method offsets of every class are flattened into shared
+ * primitive arrays, each class holding the start index of its own run.
+ */
+final class CapExportBuilder {
+    private final char[] classOffsets;
+    private final int[] fieldStarts;
+    private final int[] methodStarts;
+    private char[] fieldOffsets = new char[16];
+    private char[] methodOffsets = new char[16];
+    private int classCount;
+    private int fieldCount;
+    private int methodCount;
+
+    /**
+     * Class constructor
+     *
+     * @param classCount count of classes to be added
+     */
+    CapExportBuilder(final int classCount) {
+        this.classOffsets = new char[classCount];
+        this.fieldStarts = new int[classCount + 1];
+        this.methodStarts = new int[classCount + 1];
+    }
+
+    /**
+     * Add exported class, class token is the order of addition
+     *
+     * @param classOffset         class offset
+     * @param staticFieldOffsets  static field offsets, indexed by field token
+     * @param staticMethodOffsets static method offsets, indexed by method token
+     * @return this instance
+     */
+    CapExportBuilder addClass(final int classOffset, final int[] staticFieldOffsets, final int[] staticMethodOffsets) {
+        classOffsets[classCount] = (char) classOffset;
+        fieldOffsets = append(fieldOffsets, fieldCount, staticFieldOffsets);
+        fieldCount += staticFieldOffsets.length;
+        methodOffsets = append(methodOffsets, methodCount, staticMethodOffsets);
+        methodCount += staticMethodOffsets.length;
+        classCount++;
+        fieldStarts[classCount] = fieldCount;
+        methodStarts[classCount] = methodCount;
+        return this;
+    }
+
+    private static char[] append(final char[] array, final int count, final int[] values) {
+        final char[] target = (count + values.length > array.length)
+                ? Arrays.copyOf(array, Math.max(array.length << 1, count + values.length)) : array;
+        for (int i = 0; i < values.length; i++) {
+            target[count + i] = (char) values[i];
+        }
+        return target;
+    }
+
+    /**
+     * Build CAP export component object
+     *
+     * @return CAP export component object
+     */
+    Cap.Export build() {
+        if (classCount != classOffsets.length) {
+            throw new IllegalStateException("expected " + classOffsets.length + " exported classes, got " + classCount);
+        }
+        return new CapExport(this);
+    }
+
+    /**
+     * CAP export component implementation
+     */
+    static final class CapExport implements Cap.Export {
+        private final char[] classOffsets;
+        private final int[] fieldStarts;
+        private final int[] methodStarts;
+        private final char[] fieldOffsets;
+        private final char[] methodOffsets;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP export builder
+         */
+        CapExport(final CapExportBuilder builder) {
+            this.classOffsets = builder.classOffsets;
+            this.fieldStarts = builder.fieldStarts;
+            this.methodStarts = builder.methodStarts;
+            this.fieldOffsets = Arrays.copyOf(builder.fieldOffsets, builder.fieldCount);
+            this.methodOffsets = Arrays.copyOf(builder.methodOffsets, builder.methodCount);
+        }
+
+        @Override
+        public int getClassCount() {
+            return classOffsets.length;
+        }
+
+        @Override
+        public int getClassOffset(final int classToken) {
+            return classOffsets[classToken];
+        }
+
+        @Override
+        public int getStaticFieldCount(final int classToken) {
+            return fieldStarts[classToken + 1] - fieldStarts[classToken];
+        }
+
+        @Override
+        public int getStaticFieldOffset(final int classToken, final int fieldToken) {
+            if ((fieldToken < 0) || (fieldToken >= getStaticFieldCount(classToken))) {
+                throw new IndexOutOfBoundsException("invalid static field token " + fieldToken);
+            }
+            return fieldOffsets[fieldStarts[classToken] + fieldToken];
+        }
+
+        @Override
+        public int getStaticMethodCount(final int classToken) {
+            return methodStarts[classToken + 1] - methodStarts[classToken];
+        }
+
+        @Override
+        public int getStaticMethodOffset(final int classToken, final int methodToken) {
+            if ((methodToken < 0) || (methodToken >= getStaticMethodCount(classToken))) {
+                throw new IndexOutOfBoundsException("invalid static method token " + methodToken);
+            }
+            return methodOffsets[methodStarts[classToken] + methodToken];
+        }
+    }
+}
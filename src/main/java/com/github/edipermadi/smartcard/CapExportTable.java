@@ -0,0 +1,195 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Export symbol table shared across library CAP files. Exports are registered by package AID and package version,
+ * symbols are then resolved by package AID, imported version, class token and member token, which is a hash
+ * lookup followed by array indexing. Lookups never block, registration replaces immutable per-package entries.
+ * Safe for concurrent use.
+ */
+public final class CapExportTable {
+    private final ConcurrentMap<Aid, Versions> packages = new ConcurrentHashMap<>();
+
+    /**
+     * Register exports of a library CAP, replacing exports registered under the same package AID and version
+     *
+     * @param cap CAP object, decoded with export component selected
+     */
+    public synchronized void put(final Cap cap) {
+        if (cap == null) {
+            throw new IllegalArgumentException("CAP is null");
+        } else if (cap.getExport() == null) {
+            throw new IllegalArgumentException("CAP export component is not decoded");
+        }
+
+        final Cap.Header.PackageInfo packageInfo = cap.getHeader().getPackage();
+        final Versions versions = packages.get(packageInfo.getAid());
+        packages.put(packageInfo.getAid(), (versions == null)
+                ? new Versions(new int[]{packageInfo.getVersion()}, new Cap.Export[]{cap.getExport()})
+                : versions.with(packageInfo.getVersion(), cap.getExport()));
+    }
+
+    /**
+     * Unregister exports of a package version
+     *
+     * @param aid     package AID
+     * @param version package version, encoded in 0xaabb (major, minor)
+     * @return true when exports were registered
+     */
+    public synchronized boolean remove(final Aid aid, final int version) {
+        final Versions versions = packages.get(aid);
+        if ((versions == null) || (Arrays.binarySearch(versions.versions, version) < 0)) {
+            return false;
+        }
+
+        final Versions remaining = versions.without(version);
+        if (remaining == null) {
+            packages.remove(aid);
+        } else {
+            packages.put(aid, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Get exports of a package version
+     *
+     * @param aid     package AID
+     * @param version package version, encoded in 0xaabb (major, minor)
+     * @return exports or null when package version is not registered
+     */
+    public Cap.Export get(final Aid aid, final int version) {
+        final Versions versions = packages.get(aid);
+        if (versions == null) {
+            return null;
+        }
+        final int i = Arrays.binarySearch(versions.versions, version);
+        return (i < 0) ? null : versions.exports[i];
+    }
+
+    /**
+     * Get exports of the latest registered package version which is binary compatible with an imported version,
+     * that is having the same major version and a minor version not lower than imported one
+     *
+     * @param aid     package AID
+     * @param version imported package version, encoded in 0xaabb (major, minor)
+     * @return exports or null when no compatible version is registered
+     */
+    public Cap.Export resolve(final Aid aid, final int version) {
+        final Versions versions = packages.get(aid);
+        if (versions == null) {
+            return null;
+        }
+
+        /* versions are ascending, search the last one of same major */
+        int i = Arrays.binarySearch(versions.versions, (version & 0xff00) | 0xff);
+        i = (i < 0) ? (-i - 2) : i;
+        return ((i >= 0) && (versions.versions[i] >= version)) ? versions.exports[i] : null;
+    }
+
+    /**
+     * Resolve exported class
+     *
+     * @param aid        package AID
+     * @param version    imported package version, encoded in 0xaabb (major, minor)
+     * @param classToken class token
+     * @return offset within class component of library or -1 when unresolved
+     */
+    public int resolveClass(final Aid aid, final int version, final int classToken) {
+        final Cap.Export export = resolve(aid, version);
+        return ((export == null) || (classToken < 0) || (classToken >= export.getClassCount())) ? -1
+                : export.getClassOffset(classToken);
+    }
+
+    /**
+     * Resolve exported static field
+     *
+     * @param aid        package AID
+     * @param version    imported package version, encoded in 0xaabb (major, minor)
+     * @param classToken class token
+     * @param fieldToken static field token
+     * @return offset within static field image of library or -1 when unresolved
+     */
+    public int resolveStaticField(final Aid aid, final int version, final int classToken, final int fieldToken) {
+        final Cap.Export export = resolve(aid, version);
+        return ((export == null) || (classToken < 0) || (classToken >= export.getClassCount())
+                || (fieldToken < 0) || (fieldToken >= export.getStaticFieldCount(classToken))) ? -1
+                : export.getStaticFieldOffset(classToken, fieldToken);
+    }
+
+    /**
+     * Resolve exported static method
+     *
+     * @param aid         package AID
+     * @param version     imported package version, encoded in 0xaabb (major, minor)
+     * @param classToken  class token
+     * @param methodToken static method token
+     * @return offset within method component of library or -1 when unresolved
+     */
+    public int resolveStaticMethod(final Aid aid, final int version, final int classToken, final int methodToken) {
+        final Cap.Export export = resolve(aid, version);
+        return ((export == null) || (classToken < 0) || (classToken >= export.getClassCount())
+                || (methodToken < 0) || (methodToken >= export.getStaticMethodCount(classToken))) ? -1
+                : export.getStaticMethodOffset(classToken, methodToken);
+    }
+
+    /**
+     * Get count of registered packages, regardless of their versions
+     *
+     * @return count of registered packages
+     */
+    public int size() {
+        return packages.size();
+    }
+
+    /**
+     * Immutable exports of every registered version of a package, sorted by version
+     */
+    private static final class Versions {
+        private final int[] versions;
+        private final Cap.Export[] exports;
+
+        Versions(final int[] versions, final Cap.Export[] exports) {
+            this.versions = versions;
+            this.exports = exports;
+        }
+
+        Versions with(final int version, final Cap.Export export) {
+            int i = Arrays.binarySearch(versions, version);
+            if (i >= 0) {
+                final Cap.Export[] e = exports.clone();
+                e[i] = export;
+                return new Versions(versions, e);
+            }
+
+            i = -i - 1;
+            final int[] v = new int[versions.length + 1];
+            final Cap.Export[] e = new Cap.Export[exports.length + 1];
+            System.arraycopy(versions, 0, v, 0, i);
+            System.arraycopy(exports, 0, e, 0, i);
+            v[i] = version;
+            e[i] = export;
+            System.arraycopy(versions, i, v, i + 1, versions.length - i);
+            System.arraycopy(exports, i, e, i + 1, exports.length - i);
+            return new Versions(v, e);
+        }
+
+        Versions without(final int version) {
+            final int i = Arrays.binarySearch(versions, version);
+            if (versions.length == 1) {
+                return null;
+            }
+
+            final int[] v = new int[versions.length - 1];
+            final Cap.Export[] e = new Cap.Export[exports.length - 1];
+            System.arraycopy(versions, 0, v, 0, i);
+            System.arraycopy(exports, 0, e, 0, i);
+            System.arraycopy(versions, i + 1, v, i, versions.length - i - 1);
+            System.arraycopy(exports, i + 1, e, i, exports.length - i - 1);
+            return new Versions(v, e);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.github.edipermadi.smartcard;
 
-import com.google.gson.annotations.SerializedName;
-import org.apache.commons.lang3.StringUtils;
 
 /**
  * CAP header builder class
@@ -49,10 +47,10 @@ final class CapHeaderBuilder {
      * @param aid     package AID
      * @return this instance
      */
-    CapHeaderBuilder setPackageInfo(final int version, final String aid) {
+    CapHeaderBuilder setPackageInfo(final int version, final Aid aid) {
         if (version < 0) {
             throw new IllegalArgumentException("invalid package info version");
-        } else if (StringUtils.isEmpty(aid)) {
+        } else if (aid == null) {
             throw new IllegalArgumentException("invalid package AID");
         }
         this.packageInfo = new CapHeaderPackageInfo(version, aid);
@@ -93,16 +91,9 @@ final class CapHeaderBuilder {
      * @author Edi Permadi
      */
     static final class CapHeader implements Cap.Header {
-        @SerializedName("version")
         private final int version;
-
-        @SerializedName("flags")
         private final int flags;
-
-        @SerializedName("package")
         CapHeaderPackageInfo packageInfo;
-
-        @SerializedName("package_name")
         CapHeaderPackageNameInfo packageName;
 
         /**
@@ -145,18 +136,15 @@ final class CapHeaderBuilder {
      * @author Edi Permadi
      */
     static final class CapHeaderPackageInfo implements Cap.Header.PackageInfo {
-        @SerializedName("version")
         private final int version;
-
-        @SerializedName("aid")
-        private final String aid;
+        private final Aid aid;
 
         /**
          * Class constructor
          * @param version information version
          * @param aid package AID
          */
-        CapHeaderPackageInfo(final int version, final String aid) {
+        CapHeaderPackageInfo(final int version, final Aid aid) {
             this.version = version;
             this.aid = aid;
         }
@@ -167,7 +155,13 @@ final class CapHeaderBuilder {
         }
 
         @Override
+        @Deprecated
         public String getAID() {
+            return aid.toString();
+        }
+
+        @Override
+        public Aid getAid() {
             return aid;
         }
     }
@@ -178,7 +172,6 @@ final class CapHeaderBuilder {
      * @author Edi Permadi
      */
     static final class CapHeaderPackageNameInfo implements Cap.Header.PackageNameInfo {
-        @SerializedName("name")
         private final String name;
 
         /**
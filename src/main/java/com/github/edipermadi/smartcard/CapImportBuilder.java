@@ -0,0 +1,67 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CAP import component builder
+ */
+final class CapImportBuilder {
+    private final List<Cap.Header.PackageInfo> packages = new ArrayList<>();
+
+    /**
+     * Add imported package, package token is the order of addition
+     *
+     * @param version package version, encoded in 0xaabb (major, minor)
+     * @param aid     package AID
+     * @return this instance
+     */
+    CapImportBuilder addPackage(final int version, final Aid aid) {
+        if (aid == null) {
+            throw new IllegalArgumentException("package AID is null");
+        }
+        packages.add(new CapHeaderBuilder.CapHeaderPackageInfo(version, aid));
+        return this;
+    }
+
+    /**
+     * Build CAP import component object
+     *
+     * @return CAP import component object
+     */
+    Cap.Import build() {
+        return new CapImport(this);
+    }
+
+    /**
+     * CAP import component implementation
+     */
+    static final class CapImport implements Cap.Import {
+        private final List<Cap.Header.PackageInfo> packages;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP import builder
+         */
+        CapImport(final CapImportBuilder builder) {
+            this.packages = Collections.unmodifiableList(new ArrayList<>(builder.packages));
+        }
+
+        @Override
+        public List<Cap.Header.PackageInfo> getPackages() {
+            return packages;
+        }
+
+        @Override
+        public int indexOf(final Aid aid) {
+            for (int i = 0; i < packages.size(); i++) {
+                if (packages.get(i).getAid().equals(aid)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
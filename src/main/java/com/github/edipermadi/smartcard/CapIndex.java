@@ -0,0 +1,276 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent index of decoded CAP metadata. Header, directory and applet components are stored in compact binary
+ * form, keyed by file path and validated by file size, modification time and SHA-256 of file content. An existing
+ * index file is read into memory when opened, so that no mapping keeps it open while {@link #save()} replaces it,
+ * and CAP objects are materialized out of it on first access, only changed files are decoded again. File I/O and
+ * decoding run outside of index lock, concurrent lookups of the same changed file may decode it more than once.
+ * The following is the structure of index file
+ * <pre>
+ * index {
+ *     u4 magic
+ *     u2 version
+ *     u4 count
+ *     record records[count]
+ * }
+ *
+ * record {
+ *     u2 path_length
+ *     u1 path[path_length]
+ *     u8 size
+ *     u8 modification_time (milliseconds)
+ *     u1 sha256[32]
+ *     u4 payload_length
+ *     u1 payload[payload_length] (see {@link CapBinaryCodec})
+ * }
+ * </pre>
+ */
+public final class CapIndex {
+    private static final int MAGIC = 0x43415049;
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private final Path indexFile;
+    private final CapDecoder decoder;
+    private final Map<String, Record> records = new HashMap<>();
+    private boolean dirty;
+
+    private CapIndex(final Path indexFile, final CapDecoder decoder) {
+        this.indexFile = indexFile;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Open CAP index. Missing, corrupted or incompatible index file results in an empty index.
+     *
+     * @param indexFile path to index file
+     * @param decoder   decoder used for files which are missing or changed
+     * @return CAP index
+     * @throws CapException when index file can not be read
+     */
+    public static CapIndex open(final Path indexFile, final CapDecoder decoder) throws CapException {
+        if (indexFile == null) {
+            throw new IllegalArgumentException("index file is null");
+        } else if (decoder == null) {
+            throw new IllegalArgumentException("decoder is null");
+        }
+
+        final CapIndex index = new CapIndex(indexFile, decoder);
+        if (!Files.isRegularFile(indexFile)) {
+            return index;
+        }
+
+        try {
+            if (!index.load(ByteBuffer.wrap(Files.readAllBytes(indexFile)))) {
+                index.records.clear();
+            }
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP index " + indexFile, ex);
+        }
+        return index;
+    }
+
+    /**
+     * Get CAP object of a file, decoding it when file is not indexed or changed since indexed. Returned object holds
+     * header, directory and applet components only, whether it comes out of index or was just decoded.
+     *
+     * @param path path to CAP file
+     * @return CAP object
+     * @throws CapException when file can not be read or decoded
+     */
+    public Cap get(final Path path) throws CapException {
+        if (path == null) {
+            throw new IllegalArgumentException("CAP path is null");
+        }
+
+        final String key = path.toAbsolutePath().normalize().toString();
+        final Record record;
+        synchronized (this) {
+            record = records.get(key);
+        }
+
+        try {
+            final long size = Files.size(path);
+            final long modificationTime = Files.getLastModifiedTime(path).toMillis();
+            if ((record != null) && (record.size == size) && (record.modificationTime == modificationTime)) {
+                final Cap cap = record.materialize();
+                if (cap != null) {
+                    return cap;
+                }
+            }
+
+            /* touched but unchanged content only refreshes stat */
+            final byte[] archive = CapDecoderImpl.readArchive(path).array();
+            final ByteBuffer hash = ByteBuffer.wrap(DigestUtils.sha256(archive));
+            if ((record != null) && record.hash.equals(hash)) {
+                final Cap cap = record.materialize();
+                if (cap != null) {
+                    publish(key, new Record(archive.length, modificationTime, hash, record.payload, cap));
+                    return cap;
+                }
+            }
+
+            /* return what index holds, so that indexed and freshly decoded files look alike */
+            final CapComponentWriter writer = new CapComponentWriter(256);
+            CapBinaryCodec.write(decoder.decode(ByteBuffer.wrap(archive), path), writer);
+            final ByteBuffer payload = ByteBuffer.wrap(writer.array(), 0, writer.position()).slice();
+            final Cap cap = CapBinaryCodec.read(new CapComponentReader(payload));
+            publish(key, new Record(archive.length, modificationTime, hash, payload, cap));
+            return cap;
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP file " + path, ex);
+        }
+    }
+
+    /**
+     * Publish record of a file
+     *
+     * @param key    normalized absolute path of CAP file
+     * @param record record of CAP file
+     */
+    private synchronized void publish(final String key, final Record record) {
+        records.put(key, record);
+        dirty = true;
+    }
+
+    /**
+     * Remove a file from index
+     *
+     * @param path path to CAP file
+     * @return true when file was indexed
+     */
+    public synchronized boolean remove(final Path path) {
+        final boolean removed = records.remove(path.toAbsolutePath().normalize().toString()) != null;
+        dirty |= removed;
+        return removed;
+    }
+
+    /**
+     * Get count of indexed files
+     *
+     * @return count of indexed files
+     */
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Write index file when modified. Index is written into temporary file which then replaces index file.
+     *
+     * @throws CapException when index file can not be written
+     */
+    public synchronized void save() throws CapException {
+        if (!dirty) {
+            return;
+        }
+
+        final CapComponentWriter writer = new CapComponentWriter(8192);
+        writer.writeU4(MAGIC).writeU2(VERSION).writeU4(records.size());
+        for (final Map.Entry<String, Record> e : records.entrySet()) {
+            final Record record = e.getValue();
+            final int pathLengthPosition = writer.position();
+            writer.writeU2(0).writeUtf8(e.getKey());
+            writer.writeU2At(pathLengthPosition, writer.position() - pathLengthPosition - 2);
+            writer.writeU8(record.size)
+                    .writeU8(record.modificationTime)
+                    .writeBytes(record.hash)
+                    .writeU4(record.payload.remaining())
+                    .writeBytes(record.payload);
+        }
+
+        try {
+            final Path parent = indexFile.toAbsolutePath().getParent();
+            final Path tmp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+            try (final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                final ByteBuffer content = ByteBuffer.wrap(writer.array(), 0, writer.position());
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (final IOException ex) {
+            throw new CapException("failed to write CAP index " + indexFile, ex);
+        }
+    }
+
+    /**
+     * Load records out of index file content. Payloads stay within content buffer.
+     *
+     * @param content index file content
+     * @return false when index file is corrupted or incompatible
+     */
+    private boolean load(final ByteBuffer content) {
+        final CapComponentReader reader = new CapComponentReader(content);
+        try {
+            if ((reader.readU4() != MAGIC) || (reader.readU2() != VERSION)) {
+                return false;
+            }
+
+            final long count = reader.readU4() & 0xffffffffL;
+            for (long i = 0; i < count; i++) {
+                final String path = reader.readUtf8(reader.readU2());
+                final long size = reader.readU8();
+                final long modificationTime = reader.readU8();
+                final ByteBuffer hash = reader.slice(HASH_LENGTH);
+                final ByteBuffer payload = reader.slice(reader.readU4());
+                records.put(path, new Record(size, modificationTime, hash, payload, null));
+            }
+            return true;
+        } catch (final BufferUnderflowException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Index record, CAP object is materialized out of payload on first access
+     */
+    private static final class Record {
+        private final long size;
+        private final long modificationTime;
+        private final ByteBuffer hash;
+        private final ByteBuffer payload;
+        private Cap cap;
+
+        Record(final long size, final long modificationTime, final ByteBuffer hash, final ByteBuffer payload,
+               final Cap cap) {
+            this.size = size;
+            this.modificationTime = modificationTime;
+            this.hash = hash;
+            this.payload = payload;
+            this.cap = cap;
+        }
+
+        /**
+         * Get CAP object of record
+         *
+         * @return CAP object or null when payload is corrupted
+         */
+        synchronized Cap materialize() {
+            if (cap == null) {
+                try {
+                    cap = CapBinaryCodec.read(new CapComponentReader(payload));
+                } catch (final BufferUnderflowException | IllegalArgumentException | IllegalStateException ex) {
+                    return null;
+                }
+            }
+            return cap;
+        }
+    }
+}
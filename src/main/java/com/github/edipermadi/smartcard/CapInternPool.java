@@ -0,0 +1,95 @@
+package com.github.edipermadi.smartcard;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Intern pool sharing identical AIDs, package names and descriptor component type descriptors across decoded CAP
+ * objects. Pool is unbounded, it is meant to be shared by decoders of a corpus whose distinct values are far fewer
+ * than decoded CAP files.
+ * Safe for concurrent use.
+ */
+public final class CapInternPool {
+    private final ConcurrentMap<Aid, Aid> aids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Cap.Descriptor.TypeDescriptor, Cap.Descriptor.TypeDescriptor> types =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Get canonical instance of AID
+     *
+     * @param aid AID
+     * @return canonical AID equal to given AID
+     */
+    public Aid intern(final Aid aid) {
+        if (aid == null) {
+            return null;
+        }
+        final Aid existing = aids.putIfAbsent(aid, aid);
+        return (existing == null) ? aid : existing;
+    }
+
+    /**
+     * Get canonical instance of name
+     *
+     * @param name package name
+     * @return canonical name equal to given name
+     */
+    public String intern(final String name) {
+        if (name == null) {
+            return null;
+        }
+        final String existing = names.putIfAbsent(name, name);
+        return (existing == null) ? name : existing;
+    }
+
+    /**
+     * Get canonical instance of type descriptor
+     *
+     * @param type type descriptor
+     * @return canonical type descriptor equal to given type descriptor
+     */
+    public Cap.Descriptor.TypeDescriptor intern(final Cap.Descriptor.TypeDescriptor type) {
+        if (type == null) {
+            return null;
+        }
+        final Cap.Descriptor.TypeDescriptor existing = types.putIfAbsent(type, type);
+        return (existing == null) ? type : existing;
+    }
+
+    /**
+     * Get count of pooled AIDs
+     *
+     * @return count of pooled AIDs
+     */
+    public int getAidCount() {
+        return aids.size();
+    }
+
+    /**
+     * Get count of pooled names
+     *
+     * @return count of pooled names
+     */
+    public int getNameCount() {
+        return names.size();
+    }
+
+    /**
+     * Get count of pooled type descriptors
+     *
+     * @return count of pooled type descriptors
+     */
+    public int getTypeCount() {
+        return types.size();
+    }
+
+    /**
+     * Discard pooled values
+     */
+    public void clear() {
+        aids.clear();
+        names.clear();
+        types.clear();
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.edipermadi.smartcard;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.nio.file.Path;
+import java.util.function.UnaryOperator;
+
+/**
+ * CAP decoder listener emitting Java Flight Recorder events, one per decode and one per component read and parse.
+ * Decode events carry archive size along with total compressed and uncompressed size of components read.
+ * Events are disabled by default and enabled through JFR settings, such as bundled profile
+ * {@code com/github/edipermadi/smartcard/cap.jfc}. A listener is created per decode only while at least one event is
+ * enabled, and forwards every call to listener registered in decode options. This class links against
+ * {@code jdk.jfr}, hence it is compiled for Java 11 apart from the rest of the library and only loaded reflectively
+ * through {@link Wrapper} once JFR availability has been checked.
+ */
+final class CapJfrListener implements CapDecoderListener {
+    private static final EventType DECODE = EventType.getEventType(DecodeEvent.class);
+    private static final EventType COMPONENT_READ = EventType.getEventType(ComponentReadEvent.class);
+    private static final EventType COMPONENT_PARSE = EventType.getEventType(ComponentParseEvent.class);
+
+    private final CapDecoderListener delegate;
+    private volatile String path;
+    private DecodeEvent decode;
+    private long compressedSize;
+    private long size;
+
+    /**
+     * Class constructor
+     *
+     * @param delegate listener registered in decode options, null when none
+     */
+    CapJfrListener(final CapDecoderListener delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Check whether any CAP decoding event is enabled in a running recording
+     *
+     * @return true when enabled
+     */
+    static boolean isEnabled() {
+        return DECODE.isEnabled() || COMPONENT_READ.isEnabled() || COMPONENT_PARSE.isEnabled();
+    }
+
+    /**
+     * Wraps listener registered in decode options into JFR listener while any event is enabled, instantiated
+     * reflectively by {@link CapDecoderImpl} so that the decoder itself does not link against this class
+     */
+    static final class Wrapper implements UnaryOperator<CapDecoderListener> {
+        @Override
+        public CapDecoderListener apply(final CapDecoderListener delegate) {
+            return isEnabled() ? new CapJfrListener(delegate) : delegate;
+        }
+    }
+
+    @Override
+    public void onDecodeStart(final Path path) {
+        onDecodeStart(path, -1);
+    }
+
+    @Override
+    public void onDecodeStart(final Path path, final long archiveSize) {
+        this.path = (path == null) ? null : path.toString();
+        compressedSize = 0;
+        size = 0;
+        decode = new DecodeEvent();
+        decode.archiveSize = archiveSize;
+        decode.begin();
+        if (delegate != null) {
+            delegate.onDecodeStart(path, archiveSize);
+        }
+    }
+
+    @Override
+    public void onComponentRead(final CapComponentType type, final long compressedSize, final long size,
+                                final long nanos) {
+        this.compressedSize = ((compressedSize < 0) || (this.compressedSize < 0))
+                ? -1 : this.compressedSize + compressedSize;
+        this.size += size;
+        final ComponentReadEvent event = new ComponentReadEvent();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.tag = type.getTag();
+            event.compressedSize = compressedSize;
+            event.size = size;
+            event.readTime = nanos;
+            event.commit();
+        }
+        if (delegate != null) {
+            delegate.onComponentRead(type, compressedSize, size, nanos);
+        }
+    }
+
+    @Override
+    public void onComponentParsed(final CapComponentType type, final long size, final long nanos,
+                                  final Throwable failure) {
+        final ComponentParseEvent event = new ComponentParseEvent();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.tag = type.getTag();
+            event.size = size;
+            event.parseTime = nanos;
+            event.failure = (failure == null) ? null : failure.getClass();
+            event.commit();
+        }
+        if (delegate != null) {
+            delegate.onComponentParsed(type, size, nanos, failure);
+        }
+    }
+
+    @Override
+    public void onDecodeEnd(final Path path, final long nanos, final Throwable failure) {
+        decode.end();
+        if (decode.shouldCommit()) {
+            decode.path = this.path;
+            decode.compressedSize = compressedSize;
+            decode.size = size;
+            decode.failure = (failure == null) ? null : failure.getClass();
+            decode.commit();
+        }
+        decode = null;
+        if (delegate != null) {
+            delegate.onDecodeEnd(path, nanos, failure);
+        }
+    }
+
+    /**
+     * CAP decode event, lasting from decode entry to exit
+     */
+    @Name("com.github.edipermadi.smartcard.Decode")
+    @Label("CAP Decode")
+    @Category({"Smart Card", "CAP"})
+    @Description("Decoding of a CAP file, excluding lazily parsed components")
+    @Enabled(false)
+    static final class DecodeEvent extends Event {
+        @Label("Path")
+        @Description("Path to CAP file, null when decoded from stream")
+        String path;
+
+        @Label("Archive Size")
+        @Description("CAP archive size, -1 when decoded from stream")
+        @DataAmount
+        long archiveSize;
+
+        @Label("Compressed Size")
+        @Description("Total compressed size of components read, -1 when unknown")
+        @DataAmount
+        long compressedSize;
+
+        @Label("Size")
+        @Description("Total uncompressed size of components read")
+        @DataAmount
+        long size;
+
+        @Label("Failure")
+        @Description("Exception class when decoding failed")
+        Class<?> failure;
+    }
+
+    /**
+     * CAP component read event
+     */
+    @Name("com.github.edipermadi.smartcard.ComponentRead")
+    @Label("CAP Component Read")
+    @Category({"Smart Card", "CAP"})
+    @Description("Reading and inflation of a CAP component ZIP entry")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ComponentReadEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Component Tag")
+        int tag;
+
+        @Label("Compressed Size")
+        @DataAmount
+        long compressedSize;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Read Time")
+        @Timespan
+        long readTime;
+    }
+
+    /**
+     * CAP component parse event
+     */
+    @Name("com.github.edipermadi.smartcard.ComponentParse")
+    @Label("CAP Component Parse")
+    @Category({"Smart Card", "CAP"})
+    @Description("Parsing of a CAP component into CAP object model")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ComponentParseEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Component Tag")
+        int tag;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+
+        @Label("Failure")
+        @Description("Exception class when parsing failed")
+        Class<?> failure;
+    }
+}
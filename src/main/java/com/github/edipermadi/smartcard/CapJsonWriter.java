@@ -0,0 +1,352 @@
+package com.github.edipermadi.smartcard;
+
+import org.apache.commons.io.output.StringBuilderWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streaming JSON writer of CAP objects. Every field is written straight into target writer by hand-written
+ * serializers, no intermediate string nor reflection is involved. Not safe for concurrent use.
+ */
+public final class CapJsonWriter implements Closeable, Flushable {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * JSON output format
+     */
+    public enum Format {
+        /**
+         * Single line JSON documents, written back to back
+         */
+        COMPACT,
+
+        /**
+         * Indented JSON documents, written back to back
+         */
+        PRETTY,
+
+        /**
+         * Newline delimited JSON, one compact document per line
+         */
+        NDJSON
+    }
+
+    private final Writer out;
+    private final Format format;
+    private final boolean[] empty = new boolean[MAX_DEPTH];
+    private int depth;
+
+    /**
+     * Class constructor
+     *
+     * @param out    target writer, closed by {@link #close()}
+     * @param format output format
+     */
+    public CapJsonWriter(final Writer out, final Format format) {
+        if (out == null) {
+            throw new IllegalArgumentException("writer is null");
+        } else if (format == null) {
+            throw new IllegalArgumentException("format is null");
+        }
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Class constructor, JSON is written in UTF-8 through a buffer
+     *
+     * @param out    target stream, closed by {@link #close()}
+     * @param format output format
+     */
+    public CapJsonWriter(final OutputStream out, final Format format) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), format);
+    }
+
+    /**
+     * Write CAP object as JSON document
+     *
+     * @param cap CAP object
+     * @return this instance
+     * @throws IOException when writing failed
+     */
+    public CapJsonWriter write(final Cap cap) throws IOException {
+        if (cap == null) {
+            throw new IllegalArgumentException("CAP is null");
+        }
+
+        beginObject();
+        name("header");
+        writeHeader(cap.getHeader());
+        name("directory");
+        writeDirectory(cap.getDirectory());
+        if (cap.getApplet() != null) {
+            name("applet");
+            writeApplet(cap.getApplet());
+        }
+        endObject();
+
+        if (format == Format.NDJSON) {
+            out.write('\n');
+        }
+        return this;
+    }
+
+    /**
+     * Write CAP directory component as JSON document
+     *
+     * @param directory CAP directory component
+     * @return this instance
+     * @throws IOException when writing failed
+     */
+    public CapJsonWriter write(final Cap.Directory directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("CAP directory is null");
+        }
+
+        writeDirectory(directory);
+        if (format == Format.NDJSON) {
+            out.write('\n');
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Render CAP object as indented JSON string
+     *
+     * @param cap CAP object
+     * @return JSON string
+     */
+    static String toString(final Cap cap) {
+        final StringBuilderWriter sw = new StringBuilderWriter();
+        try {
+            new CapJsonWriter(sw, Format.PRETTY).write(cap);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("unexpected failure while rendering CAP", ex);
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Render CAP directory component as indented JSON string
+     *
+     * @param directory CAP directory component
+     * @return JSON string
+     */
+    static String toString(final Cap.Directory directory) {
+        final StringBuilderWriter sw = new StringBuilderWriter();
+        try {
+            new CapJsonWriter(sw, Format.PRETTY).write(directory);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("unexpected failure while rendering CAP directory", ex);
+        }
+        return sw.toString();
+    }
+
+    private void writeHeader(final Cap.Header header) throws IOException {
+        beginObject();
+        name("version");
+        value(header.getVersion());
+        name("flags");
+        value(header.getFlags());
+
+        final Cap.Header.PackageInfo packageInfo = header.getPackage();
+        name("package");
+        beginObject();
+        name("version");
+        value(packageInfo.getVersion());
+        name("aid");
+        value(packageInfo.getAid());
+        endObject();
+
+        final Cap.Header.PackageNameInfo packageName = header.getPackageName();
+        if (packageName != null) {
+            name("package_name");
+            beginObject();
+            if (packageName.getName() != null) {
+                name("name");
+                value(packageName.getName());
+            }
+            endObject();
+        }
+        endObject();
+    }
+
+    private void writeDirectory(final Cap.Directory directory) throws IOException {
+        beginObject();
+        name("component_sizes");
+        beginArray();
+        final List<Integer> componentSizes = directory.getComponentSizes();
+        for (int i = 0; i < componentSizes.size(); i++) {
+            element();
+            value(componentSizes.get(i));
+        }
+        endArray();
+
+        final Cap.Directory.StaticFieldSizeInfo staticFieldSize = directory.getStaticFieldSize();
+        name("static_field_size");
+        beginObject();
+        name("image_size");
+        value(staticFieldSize.getImageSize());
+        name("array_init_count");
+        value(staticFieldSize.getArrayInitCount());
+        name("array_init_size");
+        value(staticFieldSize.getArrayInitSize());
+        endObject();
+
+        name("import_count");
+        value(directory.getImportCount());
+        name("applet_count");
+        value(directory.getAppletCount());
+
+        name("custom_components");
+        beginArray();
+        for (final Cap.Directory.CustomComponentInfo customComponent : directory.getCustomComponents()) {
+            element();
+            beginObject();
+            name("tag");
+            value(customComponent.getTag());
+            name("size");
+            value(customComponent.getSize());
+            name("aid");
+            value(customComponent.getAid());
+            endObject();
+        }
+        endArray();
+        endObject();
+    }
+
+    private void writeApplet(final Cap.Applet applet) throws IOException {
+        beginObject();
+        name("applets");
+        beginArray();
+        for (final Cap.Applet.Info info : applet.getApplets()) {
+            element();
+            beginObject();
+            name("aid");
+            value(info.getAid());
+            name("install_method_offset");
+            value(info.getInstallMethodOffset());
+            endObject();
+        }
+        endArray();
+        endObject();
+    }
+
+    private void beginObject() throws IOException {
+        out.write('{');
+        empty[++depth] = true;
+    }
+
+    private void endObject() throws IOException {
+        close('}');
+    }
+
+    private void beginArray() throws IOException {
+        out.write('[');
+        empty[++depth] = true;
+    }
+
+    private void endArray() throws IOException {
+        close(']');
+    }
+
+    private void close(final char c) throws IOException {
+        if (!empty[depth--]) {
+            newline();
+        }
+        out.write(c);
+    }
+
+    private void name(final String name) throws IOException {
+        element();
+        out.write('"');
+        out.write(name);
+        out.write((format == Format.PRETTY) ? "\": " : "\":");
+    }
+
+    private void element() throws IOException {
+        if (!empty[depth]) {
+            out.write(',');
+        }
+        empty[depth] = false;
+        newline();
+    }
+
+    private void newline() throws IOException {
+        if (format == Format.PRETTY) {
+            out.write('\n');
+            for (int i = 0; i < depth; i++) {
+                out.write("  ");
+            }
+        }
+    }
+
+    private void value(final int v) throws IOException {
+        out.write(Integer.toString(v));
+    }
+
+    private void value(final Aid aid) throws IOException {
+        out.write('"');
+        for (int i = 0; i < aid.length(); i++) {
+            final int b = aid.byteAt(i);
+            out.write(HEX_DIGITS[(b >> 4) & 0x0f]);
+            out.write(HEX_DIGITS[b & 0x0f]);
+        }
+        out.write('"');
+    }
+
+    private void value(final String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if ((c < 0x20) || (c == '\u2028') || (c == '\u2029')) {
+                        out.write("\\u");
+                        out.write(HEX_DIGITS[(c >> 12) & 0x0f]);
+                        out.write(HEX_DIGITS[(c >> 8) & 0x0f]);
+                        out.write(HEX_DIGITS[(c >> 4) & 0x0f]);
+                        out.write(HEX_DIGITS[c & 0x0f]);
+                    } else {
+                        out.write(c);
+                    }
+                    break;
+            }
+        }
+        out.write('"');
+    }
+}
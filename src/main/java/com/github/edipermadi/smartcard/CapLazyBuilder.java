@@ -0,0 +1,449 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapDecodeException;
+import com.github.edipermadi.smartcard.exc.CapUncheckedException;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lazy CAP builder class. Raw component payloads are collected here, components are decoded on first access.
+ */
+final class CapLazyBuilder {
+    private final CapInternPool pool;
+    private final CapDecoderListener listener;
+    private ByteBuffer header;
+    private ByteBuffer directory;
+    private ByteBuffer applet;
+    private final EnumMap<CapComponentType, ByteBuffer> rawComponents = new EnumMap<>(CapComponentType.class);
+    private final Map<String, ByteBuffer> customComponents = new LinkedHashMap<>();
+    private ByteBuffer manifest;
+    private String componentDirectory;
+
+    /**
+     * Class constructor
+     *
+     * @param pool     intern pool of AID and package name, null to disable interning
+     * @param listener instrumentation listener notified of component parsing, null to disable instrumentation
+     */
+    CapLazyBuilder(final CapInternPool pool, final CapDecoderListener listener) {
+        this.pool = pool;
+        this.listener = listener;
+    }
+
+    /**
+     * Set raw component payload
+     *
+     * @param type    component type
+     * @param payload component payload
+     * @return this instance
+     */
+    CapLazyBuilder setComponent(final CapComponentType type, final ByteBuffer payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("component payload is null");
+        }
+
+        switch (type) {
+            case HEADER:
+                header = payload;
+                break;
+            case DIRECTORY:
+                directory = payload;
+                break;
+            case APPLET:
+                applet = payload;
+                break;
+            default:
+                rawComponents.put(type, payload.asReadOnlyBuffer());
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Set archive entry other than standard component, being either manifest or custom component
+     *
+     * @param name    entry name within archive
+     * @param payload entry content
+     * @return this instance
+     */
+    CapLazyBuilder setExtraEntry(final String name, final ByteBuffer payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("entry payload is null");
+        }
+
+        if (CapDecoderImplBase.ENTRY_Manifest.equals(name)) {
+            manifest = payload.asReadOnlyBuffer();
+        } else {
+            customComponents.put(name.substring(name.lastIndexOf('/') + 1), payload.asReadOnlyBuffer());
+        }
+        return this;
+    }
+
+    /**
+     * Set directory holding standard components within source archive
+     *
+     * @param componentDirectory directory ending with '/', null when unknown
+     * @return this instance
+     */
+    CapLazyBuilder setComponentDirectory(final String componentDirectory) {
+        this.componentDirectory = componentDirectory;
+        return this;
+    }
+
+    /**
+     * Build eagerly decoded instance of {@link Cap}
+     *
+     * @return instance of {@link Cap}
+     * @throws CapDecodeException when component decoding failed
+     */
+    Cap buildEager() throws CapDecodeException {
+        final Cap lazy = build();
+        final CapBuilder builder = new CapBuilder();
+        try {
+            builder.setHeader(lazy.getHeader())
+                    .setDirectory(lazy.getDirectory());
+            if (applet != null) {
+                builder.setApplet(lazy.getApplet());
+            }
+            if (rawComponents.containsKey(CapComponentType.METHOD)) {
+                builder.setMethod(lazy.getMethod());
+            }
+            if (rawComponents.containsKey(CapComponentType.CONSTANT_POOL)) {
+                builder.setConstantPool(lazy.getConstantPool());
+            }
+            if (rawComponents.containsKey(CapComponentType.CLASS)) {
+                builder.setClassComponent(lazy.getClassComponent());
+            }
+            if (rawComponents.containsKey(CapComponentType.IMPORT)) {
+                builder.setImport(lazy.getImport());
+            }
+            if (rawComponents.containsKey(CapComponentType.EXPORT)) {
+                builder.setExport(lazy.getExport());
+            }
+            if (rawComponents.containsKey(CapComponentType.REFERENCE_LOCATION)) {
+                builder.setRefLocation(lazy.getRefLocation());
+            }
+            if (rawComponents.containsKey(CapComponentType.STATIC_FIELD)) {
+                builder.setStaticField(lazy.getStaticField());
+            }
+            if (rawComponents.containsKey(CapComponentType.DESCRIPTOR)) {
+                builder.setDescriptor(lazy.getDescriptor());
+            }
+            if (rawComponents.containsKey(CapComponentType.DEBUG)) {
+                builder.setDebug(lazy.getDebug());
+            }
+        } catch (final CapUncheckedException ex) {
+            /* lazy components only wrap decoding exceptions */
+            throw (CapDecodeException) ex.getCause();
+        }
+        for (final Map.Entry<CapComponentType, ByteBuffer> e : rawComponents.entrySet()) {
+            builder.setRawComponent(e.getKey(), e.getValue());
+        }
+        for (final Map.Entry<String, ByteBuffer> e : customComponents.entrySet()) {
+            builder.addCustomComponent(e.getKey(), e.getValue());
+        }
+        if (manifest != null) {
+            builder.setManifest(manifest);
+        }
+        if (componentDirectory != null) {
+            builder.setComponentDirectory(componentDirectory);
+        }
+        return builder.build();
+    }
+
+    private static ByteBuffer duplicate(final ByteBuffer payload) {
+        return (payload == null) ? null : payload.duplicate();
+    }
+
+    /**
+     * Build lazily decoded instance of {@link Cap}
+     *
+     * @return instance of {@link Cap}
+     */
+    Cap build() {
+        if (header == null) {
+            throw new IllegalStateException("CAP header component is mandatory");
+        } else if (directory == null) {
+            throw new IllegalStateException("CAP directory component is mandatory");
+        }
+
+        return new CapLazy(this);
+    }
+
+    /**
+     * Lazily decoded CAP object implementation. Component decoding failure is reported as
+     * {@link CapUncheckedException} by component getters.
+     */
+    static final class CapLazy implements Cap {
+        private final LazyComponent<Header> header;
+        private final LazyComponent<Directory> directory;
+        private final LazyComponent<Applet> applet;
+        private final LazyComponent<Method> method;
+        private final LazyComponent<ConstantPool> constantPool;
+        private final LazyComponent<Class> classComponent;
+        private final LazyComponent<Import> importComponent;
+        private final LazyComponent<Export> export;
+        private final LazyComponent<RefLocation> refLocation;
+        private final LazyComponent<StaticField> staticField;
+        private final LazyComponent<Descriptor> descriptor;
+        private final LazyComponent<Debug> debug;
+        private final EnumMap<CapComponentType, ByteBuffer> rawComponents;
+        private final Map<String, ByteBuffer> customComponents;
+        private final ByteBuffer manifest;
+        private final String componentDirectory;
+
+        /**
+         * Class constructor
+         *
+         * @param builder lazy CAP builder object
+         */
+        CapLazy(final CapLazyBuilder builder) {
+            final CapInternPool pool = builder.pool;
+            final CapDecoderListener listener = builder.listener;
+            this.header = new LazyComponent<Header>(CapComponentType.HEADER, builder.header, listener) {
+                @Override
+                Header decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapHeader(payload, pool);
+                }
+            };
+            this.directory = new LazyComponent<Directory>(CapComponentType.DIRECTORY, builder.directory, listener) {
+                @Override
+                Directory decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapDirectory(payload, pool);
+                }
+            };
+            this.applet = new LazyComponent<Applet>(CapComponentType.APPLET, builder.applet, listener) {
+                @Override
+                Applet decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapApplet(payload, pool);
+                }
+            };
+            final ByteBuffer rawDescriptor = builder.rawComponents.get(CapComponentType.DESCRIPTOR);
+            this.method = new LazyComponent<Method>(CapComponentType.METHOD,
+                    builder.rawComponents.get(CapComponentType.METHOD), listener) {
+                @Override
+                Method decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapMethod(payload, duplicate(rawDescriptor));
+                }
+            };
+            this.constantPool = new LazyComponent<ConstantPool>(CapComponentType.CONSTANT_POOL,
+                    builder.rawComponents.get(CapComponentType.CONSTANT_POOL), listener) {
+                @Override
+                ConstantPool decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapConstantPool(payload);
+                }
+            };
+            this.classComponent = new LazyComponent<Class>(CapComponentType.CLASS,
+                    builder.rawComponents.get(CapComponentType.CLASS), listener) {
+                @Override
+                Class decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapClass(payload, header.get().getVersion());
+                }
+            };
+            this.importComponent = new LazyComponent<Import>(CapComponentType.IMPORT,
+                    builder.rawComponents.get(CapComponentType.IMPORT), listener) {
+                @Override
+                Import decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapImport(payload, pool);
+                }
+            };
+            this.export = new LazyComponent<Export>(CapComponentType.EXPORT,
+                    builder.rawComponents.get(CapComponentType.EXPORT), listener) {
+                @Override
+                Export decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapExport(payload);
+                }
+            };
+            this.refLocation = new LazyComponent<RefLocation>(CapComponentType.REFERENCE_LOCATION,
+                    builder.rawComponents.get(CapComponentType.REFERENCE_LOCATION), listener) {
+                @Override
+                RefLocation decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapRefLocation(payload);
+                }
+            };
+            this.staticField = new LazyComponent<StaticField>(CapComponentType.STATIC_FIELD,
+                    builder.rawComponents.get(CapComponentType.STATIC_FIELD), listener) {
+                @Override
+                StaticField decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapStaticField(payload, directory.get());
+                }
+            };
+            this.descriptor = new LazyComponent<Descriptor>(CapComponentType.DESCRIPTOR, rawDescriptor, listener) {
+                @Override
+                Descriptor decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapDescriptor(payload, pool);
+                }
+            };
+            this.debug = new LazyComponent<Debug>(CapComponentType.DEBUG,
+                    builder.rawComponents.get(CapComponentType.DEBUG), listener) {
+                @Override
+                Debug decode(final ByteBuffer payload) throws CapDecodeException {
+                    return CapDecoderImpl.decodeCapDebug(payload);
+                }
+            };
+            this.rawComponents = new EnumMap<>(builder.rawComponents);
+            this.customComponents = new LinkedHashMap<>(builder.customComponents);
+            this.manifest = builder.manifest;
+            this.componentDirectory = builder.componentDirectory;
+        }
+
+        @Override
+        public Header getHeader() {
+            return header.get();
+        }
+
+        @Override
+        public Directory getDirectory() {
+            return directory.get();
+        }
+
+        @Override
+        public Applet getApplet() {
+            return applet.get();
+        }
+
+        @Override
+        public Method getMethod() {
+            return method.get();
+        }
+
+        @Override
+        public ConstantPool getConstantPool() {
+            return constantPool.get();
+        }
+
+        @Override
+        public Class getClassComponent() {
+            return classComponent.get();
+        }
+
+        @Override
+        public Import getImport() {
+            return importComponent.get();
+        }
+
+        @Override
+        public Export getExport() {
+            return export.get();
+        }
+
+        @Override
+        public RefLocation getRefLocation() {
+            return refLocation.get();
+        }
+
+        @Override
+        public StaticField getStaticField() {
+            return staticField.get();
+        }
+
+        @Override
+        public Descriptor getDescriptor() {
+            return descriptor.get();
+        }
+
+        @Override
+        public Debug getDebug() {
+            return debug.get();
+        }
+
+        @Override
+        public ByteBuffer getRawComponent(final CapComponentType type) {
+            final ByteBuffer payload = rawComponents.get(type);
+            return (payload == null) ? null : payload.duplicate();
+        }
+
+        @Override
+        public Map<String, ByteBuffer> getCustomComponents() {
+            return CapBuilder.duplicate(customComponents);
+        }
+
+        @Override
+        public ByteBuffer getManifest() {
+            return (manifest == null) ? null : manifest.duplicate();
+        }
+
+        @Override
+        public String getComponentDirectory() {
+            return componentDirectory;
+        }
+
+        @Override
+        public String toString() {
+            return CapJsonWriter.toString(this);
+        }
+    }
+
+    /**
+     * Component decoded on first access and memoized afterwards
+     *
+     * @param <T> component type
+     */
+    abstract static class LazyComponent<T> {
+        private final CapComponentType type;
+        private final CapDecoderListener listener;
+        private ByteBuffer payload;
+        private volatile T value;
+
+        /**
+         * Class constructor
+         *
+         * @param type     component type
+         * @param payload  raw component payload, null when component is absent
+         * @param listener instrumentation listener, null to disable instrumentation
+         */
+        LazyComponent(final CapComponentType type, final ByteBuffer payload, final CapDecoderListener listener) {
+            this.type = type;
+            this.payload = payload;
+            this.listener = listener;
+        }
+
+        /**
+         * Get decoded component
+         *
+         * @return decoded component or null when component is absent
+         */
+        final T get() {
+            T v = value;
+            if (v == null) {
+                synchronized (this) {
+                    v = value;
+                    if ((v == null) && (payload != null)) {
+                        final long start = (listener == null) ? 0 : System.nanoTime();
+                        try {
+                            v = decode(payload.duplicate());
+                        } catch (final CapDecodeException ex) {
+                            parsed(start, ex);
+                            throw new CapUncheckedException(ex);
+                        } catch (final RuntimeException ex) {
+                            parsed(start, ex);
+                            throw ex;
+                        }
+                        parsed(start, null);
+                        value = v;
+                        payload = null;
+                    }
+                }
+            }
+            return v;
+        }
+
+        /**
+         * Decode raw component payload
+         *
+         * @param payload raw component payload
+         * @return decoded component
+         * @throws CapDecodeException when decoding failed
+         */
+        abstract T decode(ByteBuffer payload) throws CapDecodeException;
+
+        private void parsed(final long start, final Throwable failure) {
+            if (listener != null) {
+                listener.onComponentParsed(type, payload.remaining(), System.nanoTime() - start, failure);
+            }
+        }
+    }
+}
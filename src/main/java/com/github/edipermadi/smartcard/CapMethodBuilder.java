@@ -0,0 +1,261 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CAP method component builder. Exception handlers and method headers are stored in parallel primitive arrays,
+ * methods must be added in ascending order of offset.
+ */
+final class CapMethodBuilder {
+    private final ByteBuffer info;
+    private final char[] handlerStartOffsets;
+    private final char[] handlerActiveLengths;
+    private final char[] handlerOffsets;
+    private final char[] handlerCatchTypes;
+    private int handlerCount;
+
+    private final int[] methodOffsets;
+    private final byte[] flags;
+    private final byte[] maxStacks;
+    private final byte[] nargs;
+    private final byte[] maxLocals;
+    private final char[] bytecodeCounts;
+    private final char[] handlerIndexes;
+    private final char[] methodHandlerCounts;
+    private int methodCount;
+
+    /**
+     * Class constructor
+     *
+     * @param info        method component info item, from handler count up to component end
+     * @param maxHandlers count of exception handlers to be added
+     * @param maxMethods  maximum count of methods to be added
+     */
+    CapMethodBuilder(final ByteBuffer info, final int maxHandlers, final int maxMethods) {
+        if (info == null) {
+            throw new IllegalArgumentException("method info is null");
+        }
+        this.info = info.asReadOnlyBuffer();
+        this.handlerStartOffsets = new char[maxHandlers];
+        this.handlerActiveLengths = new char[maxHandlers];
+        this.handlerOffsets = new char[maxHandlers];
+        this.handlerCatchTypes = new char[maxHandlers];
+        this.methodOffsets = new int[maxMethods];
+        this.flags = new byte[maxMethods];
+        this.maxStacks = new byte[maxMethods];
+        this.nargs = new byte[maxMethods];
+        this.maxLocals = new byte[maxMethods];
+        this.bytecodeCounts = new char[maxMethods];
+        this.handlerIndexes = new char[maxMethods];
+        this.methodHandlerCounts = new char[maxMethods];
+    }
+
+    /**
+     * Add exception handler
+     *
+     * @param startOffset    try block start offset
+     * @param bitField       stop bit and try block active length
+     * @param handlerOffset  handler code offset
+     * @param catchTypeIndex constant pool index of caught class
+     * @return this instance
+     */
+    CapMethodBuilder addExceptionHandler(final int startOffset, final int bitField, final int handlerOffset,
+                                         final int catchTypeIndex) {
+        handlerStartOffsets[handlerCount] = (char) startOffset;
+        handlerActiveLengths[handlerCount] = (char) bitField;
+        handlerOffsets[handlerCount] = (char) handlerOffset;
+        handlerCatchTypes[handlerCount] = (char) catchTypeIndex;
+        handlerCount++;
+        return this;
+    }
+
+    /**
+     * Add method
+     *
+     * @param offset        method offset, greater than offset of previously added method
+     * @param flags         method header flags
+     * @param maxStack      maximum operand stack size
+     * @param nargs         count of arguments
+     * @param maxLocals     count of locals
+     * @param bytecodeCount count of bytecode bytes
+     * @param handlerIndex  index of first exception handler
+     * @param handlerCount  count of exception handlers
+     * @return this instance
+     */
+    CapMethodBuilder addMethod(final int offset, final int flags, final int maxStack, final int nargs,
+                               final int maxLocals, final int bytecodeCount, final int handlerIndex,
+                               final int handlerCount) {
+        if ((methodCount > 0) && (offset <= methodOffsets[methodCount - 1])) {
+            throw new IllegalArgumentException("method offset " + offset + " is out of order");
+        }
+        this.methodOffsets[methodCount] = offset;
+        this.flags[methodCount] = (byte) flags;
+        this.maxStacks[methodCount] = (byte) maxStack;
+        this.nargs[methodCount] = (byte) nargs;
+        this.maxLocals[methodCount] = (byte) maxLocals;
+        this.bytecodeCounts[methodCount] = (char) bytecodeCount;
+        this.handlerIndexes[methodCount] = (char) handlerIndex;
+        this.methodHandlerCounts[methodCount] = (char) handlerCount;
+        methodCount++;
+        return this;
+    }
+
+    /**
+     * Build CAP method component object
+     *
+     * @return CAP method component object
+     */
+    Cap.Method build() {
+        return new CapMethod(this);
+    }
+
+    /**
+     * CAP method component implementation
+     */
+    static final class CapMethod implements Cap.Method {
+        private final ByteBuffer info;
+        private final char[] handlerStartOffsets;
+        private final char[] handlerActiveLengths;
+        private final char[] handlerOffsets;
+        private final char[] handlerCatchTypes;
+        private final int[] methodOffsets;
+        private final byte[] flags;
+        private final byte[] maxStacks;
+        private final byte[] nargs;
+        private final byte[] maxLocals;
+        private final char[] bytecodeCounts;
+        private final char[] handlerIndexes;
+        private final char[] methodHandlerCounts;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP method builder
+         */
+        CapMethod(final CapMethodBuilder builder) {
+            final int n = builder.methodCount;
+            this.info = builder.info;
+            this.handlerStartOffsets = Arrays.copyOf(builder.handlerStartOffsets, builder.handlerCount);
+            this.handlerActiveLengths = Arrays.copyOf(builder.handlerActiveLengths, builder.handlerCount);
+            this.handlerOffsets = Arrays.copyOf(builder.handlerOffsets, builder.handlerCount);
+            this.handlerCatchTypes = Arrays.copyOf(builder.handlerCatchTypes, builder.handlerCount);
+            this.methodOffsets = Arrays.copyOf(builder.methodOffsets, n);
+            this.flags = Arrays.copyOf(builder.flags, n);
+            this.maxStacks = Arrays.copyOf(builder.maxStacks, n);
+            this.nargs = Arrays.copyOf(builder.nargs, n);
+            this.maxLocals = Arrays.copyOf(builder.maxLocals, n);
+            this.bytecodeCounts = Arrays.copyOf(builder.bytecodeCounts, n);
+            this.handlerIndexes = Arrays.copyOf(builder.handlerIndexes, n);
+            this.methodHandlerCounts = Arrays.copyOf(builder.methodHandlerCounts, n);
+        }
+
+        @Override
+        public int getExceptionHandlerCount() {
+            return handlerStartOffsets.length;
+        }
+
+        @Override
+        public int getHandlerStartOffset(final int handler) {
+            return handlerStartOffsets[handler];
+        }
+
+        @Override
+        public int getHandlerActiveLength(final int handler) {
+            return handlerActiveLengths[handler] & 0x7fff;
+        }
+
+        @Override
+        public boolean isHandlerStop(final int handler) {
+            return (handlerActiveLengths[handler] & 0x8000) != 0;
+        }
+
+        @Override
+        public int getHandlerOffset(final int handler) {
+            return handlerOffsets[handler];
+        }
+
+        @Override
+        public int getHandlerCatchTypeIndex(final int handler) {
+            return handlerCatchTypes[handler];
+        }
+
+        @Override
+        public int getMethodCount() {
+            return methodOffsets.length;
+        }
+
+        @Override
+        public int indexOf(final int offset) {
+            final int i = Arrays.binarySearch(methodOffsets, offset);
+            return (i < 0) ? -1 : i;
+        }
+
+        @Override
+        public int indexOfContaining(final int offset) {
+            int i = Arrays.binarySearch(methodOffsets, offset);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return ((i >= 0) && (offset < getBytecodeOffset(i) + bytecodeCounts[i])) ? i : -1;
+        }
+
+        @Override
+        public int getMethodOffset(final int method) {
+            return methodOffsets[method];
+        }
+
+        @Override
+        public int getFlags(final int method) {
+            return flags[method] & 0x0f;
+        }
+
+        @Override
+        public boolean isExtended(final int method) {
+            return (flags[method] & CapDecoderImplBase.ACC_METHOD_EXTENDED) != 0;
+        }
+
+        @Override
+        public int getMaxStack(final int method) {
+            return maxStacks[method] & 0xff;
+        }
+
+        @Override
+        public int getNargs(final int method) {
+            return nargs[method] & 0xff;
+        }
+
+        @Override
+        public int getMaxLocals(final int method) {
+            return maxLocals[method] & 0xff;
+        }
+
+        @Override
+        public int getBytecodeOffset(final int method) {
+            return methodOffsets[method] + (isExtended(method) ? 4 : 2);
+        }
+
+        @Override
+        public int getBytecodeCount(final int method) {
+            return bytecodeCounts[method];
+        }
+
+        @Override
+        public ByteBuffer getBytecode(final int method) {
+            final int offset = getBytecodeOffset(method);
+            final ByteBuffer view = info.duplicate();
+            view.limit(offset + bytecodeCounts[method]).position(offset);
+            return view.slice();
+        }
+
+        @Override
+        public int getExceptionHandlerIndex(final int method) {
+            return handlerIndexes[method];
+        }
+
+        @Override
+        public int getExceptionHandlerCount(final int method) {
+            return methodHandlerCounts[method];
+        }
+    }
+}
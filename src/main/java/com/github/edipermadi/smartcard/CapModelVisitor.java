@@ -0,0 +1,113 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CAP visitor building header, directory and applet component objects out of visited values
+ */
+final class CapModelVisitor extends CapVisitor {
+    private final CapInternPool pool;
+    private CapHeaderBuilder header;
+    private CapDirectoryBuilder directory;
+    private CapAppletBuilder applet;
+
+    /**
+     * Class constructor
+     *
+     * @param pool intern pool of AID and package name, null to disable interning
+     */
+    CapModelVisitor(final CapInternPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void visitHeader(final int version, final int flags) {
+        header().setHeaderVersion(version).setHeaderFlags(flags);
+    }
+
+    @Override
+    public void visitPackage(final int version, final ByteBuffer aid, final int offset, final int length) {
+        header().setPackageInfo(version, aid(aid, offset, length));
+    }
+
+    @Override
+    public void visitPackageName(final ByteBuffer name, final int offset, final int length) {
+        final String s = CapComponentReader.readUtf8(name, offset, length);
+        header().setPackageName((pool == null) ? s : pool.intern(s));
+    }
+
+    @Override
+    public void visitComponentSize(final int tag, final int size) {
+        directory().addComponentSize(size);
+    }
+
+    @Override
+    public void visitStaticFieldSize(final int imageSize, final int arrayInitCount, final int arrayInitSize) {
+        directory().setStaticFieldSize(imageSize, arrayInitCount, arrayInitSize);
+    }
+
+    @Override
+    public void visitCounts(final int importCount, final int appletCount) {
+        directory().setImportCount(importCount).setAppletCount(appletCount);
+    }
+
+    @Override
+    public void visitCustomComponent(final int tag, final int size, final ByteBuffer aid, final int offset,
+                                     final int length) {
+        directory().addCustomComponent(tag, size, aid(aid, offset, length));
+    }
+
+    @Override
+    public void visitApplet(final ByteBuffer aid, final int offset, final int length, final int installMethodOffset) {
+        if (applet == null) {
+            applet = new CapAppletBuilder();
+        }
+        applet.addApplet(aid(aid, offset, length), installMethodOffset);
+    }
+
+    /**
+     * Build visited header component
+     *
+     * @return CAP header object
+     */
+    Cap.Header getHeader() {
+        return header().build();
+    }
+
+    /**
+     * Build visited directory component
+     *
+     * @return CAP directory object
+     */
+    Cap.Directory getDirectory() {
+        return directory().build();
+    }
+
+    /**
+     * Build visited applet component
+     *
+     * @return CAP applet object
+     */
+    Cap.Applet getApplet() {
+        return (applet == null) ? new CapAppletBuilder().build() : applet.build();
+    }
+
+    private CapHeaderBuilder header() {
+        if (header == null) {
+            header = new CapHeaderBuilder();
+        }
+        return header;
+    }
+
+    private CapDirectoryBuilder directory() {
+        if (directory == null) {
+            directory = new CapDirectoryBuilder();
+        }
+        return directory;
+    }
+
+    private Aid aid(final ByteBuffer buffer, final int offset, final int length) {
+        final Aid aid = Aid.valueOf(buffer, offset, length);
+        return (pool == null) ? aid : pool.intern(aid);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over a delta encoded offset table, such as tables of reference location component. Every byte is the
+ * distance from previous offset (or from 0 for the first one), a byte of 255 advances by 255 without yielding an
+ * offset. Offsets are produced as primitives, nothing is allocated while iterating. Not safe for concurrent use.
+ */
+public final class CapOffsetIterator {
+    private static final int SKIP = 255;
+
+    private final ByteBuffer deltas;
+    private int index;
+    private int offset;
+    private int next = -1;
+
+    /**
+     * Class constructor
+     *
+     * @param deltas delta encoded table, read from its position to its limit using absolute access
+     */
+    CapOffsetIterator(final ByteBuffer deltas) {
+        this.deltas = deltas;
+        this.index = deltas.position();
+    }
+
+    /**
+     * Check whether there is another offset
+     *
+     * @return true when another offset is available
+     */
+    public boolean hasNext() {
+        if (next >= 0) {
+            return true;
+        }
+        while (index < deltas.limit()) {
+            final int delta = deltas.get(index++) & 0xff;
+            offset += delta;
+            if (delta != SKIP) {
+                next = offset;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get next offset
+     *
+     * @return next offset
+     */
+    public int next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final int v = next;
+        next = -1;
+        return v;
+    }
+
+    /**
+     * Decode delta encoded table into absolute offsets in a single pass
+     *
+     * @param deltas delta encoded table, read from its position to its limit using absolute access
+     * @return ascending offsets
+     */
+    static int[] decode(final ByteBuffer deltas) {
+        final int[] offsets = new int[deltas.remaining()];
+        int count = 0;
+        int offset = 0;
+        for (int i = deltas.position(); i < deltas.limit(); i++) {
+            final int delta = deltas.get(i) & 0xff;
+            offset += delta;
+            if (delta != SKIP) {
+                offsets[count++] = offset;
+            }
+        }
+        return (count == offsets.length) ? offsets : Arrays.copyOf(offsets, count);
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CAP reference location component builder
+ */
+final class CapRefLocationBuilder {
+    private ByteBuffer byteIndexDeltas;
+    private ByteBuffer byte2IndexDeltas;
+
+    /**
+     * Set delta encoded locations of 1-byte constant pool indices
+     *
+     * @param deltas read-only view of offsets_to_byte_indices table
+     * @return this instance
+     */
+    CapRefLocationBuilder setByteIndexDeltas(final ByteBuffer deltas) {
+        if (deltas == null) {
+            throw new IllegalArgumentException("byte index deltas is null");
+        }
+        this.byteIndexDeltas = deltas;
+        return this;
+    }
+
+    /**
+     * Set delta encoded locations of 2-byte constant pool indices
+     *
+     * @param deltas read-only view of offsets_to_byte2_indices table
+     * @return this instance
+     */
+    CapRefLocationBuilder setByte2IndexDeltas(final ByteBuffer deltas) {
+        if (deltas == null) {
+            throw new IllegalArgumentException("byte2 index deltas is null");
+        }
+        this.byte2IndexDeltas = deltas;
+        return this;
+    }
+
+    /**
+     * Build CAP reference location component object, decoding absolute offsets
+     *
+     * @return CAP reference location component object
+     */
+    Cap.RefLocation build() {
+        if ((byteIndexDeltas == null) || (byte2IndexDeltas == null)) {
+            throw new IllegalStateException("reference location tables are mandatory");
+        }
+        return new CapRefLocation(this);
+    }
+
+    /**
+     * CAP reference location component implementation
+     */
+    static final class CapRefLocation implements Cap.RefLocation {
+        private final ByteBuffer byteIndexDeltas;
+        private final ByteBuffer byte2IndexDeltas;
+        private final int[] byteIndexOffsets;
+        private final int[] byte2IndexOffsets;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP reference location builder
+         */
+        CapRefLocation(final CapRefLocationBuilder builder) {
+            this.byteIndexDeltas = builder.byteIndexDeltas;
+            this.byte2IndexDeltas = builder.byte2IndexDeltas;
+            this.byteIndexOffsets = CapOffsetIterator.decode(byteIndexDeltas);
+            this.byte2IndexOffsets = CapOffsetIterator.decode(byte2IndexDeltas);
+        }
+
+        @Override
+        public int getByteIndexCount() {
+            return byteIndexOffsets.length;
+        }
+
+        @Override
+        public int getByteIndexOffset(final int index) {
+            return byteIndexOffsets[index];
+        }
+
+        @Override
+        public int[] getByteIndexOffsets() {
+            return byteIndexOffsets.clone();
+        }
+
+        @Override
+        public CapOffsetIterator iterateByteIndexOffsets() {
+            return new CapOffsetIterator(byteIndexDeltas);
+        }
+
+        @Override
+        public int getByte2IndexCount() {
+            return byte2IndexOffsets.length;
+        }
+
+        @Override
+        public int getByte2IndexOffset(final int index) {
+            return byte2IndexOffsets[index];
+        }
+
+        @Override
+        public int[] getByte2IndexOffsets() {
+            return byte2IndexOffsets.clone();
+        }
+
+        @Override
+        public CapOffsetIterator iterateByte2IndexOffsets() {
+            return new CapOffsetIterator(byte2IndexDeltas);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapException;
+import com.github.edipermadi.smartcard.exc.CapFormatException;
+import org.apache.commons.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Versioned compact binary serializer of CAP objects, meant for transferring decoded CAP metadata between services
+ * without the original CAP archive. Records may be written back to back into a single stream. The following is the
+ * structure of a record
+ * <pre>
+ * record {
+ *     u4 magic
+ *     u1 major_version
+ *     u1 minor_version
+ *     u4 length
+ *     u1 payload[length] (see {@link CapBinaryCodec})
+ * }
+ * </pre>
+ * Readers accept any minor version of their major version, trailing payload bytes added by newer minor versions
+ * are skipped. Raw components are not serialized. Instances reuse an internal buffer, hence are not safe for
+ * concurrent use.
+ */
+public final class CapSerializer {
+    private static final int MAGIC = 0x43415042;
+    private static final int MAJOR_VERSION = 1;
+    private static final int MINOR_VERSION = 0;
+    private static final int PREAMBLE_LENGTH = 10;
+
+    private final CapComponentWriter writer = new CapComponentWriter(256);
+    private byte[] readBuffer = new byte[256];
+
+    /**
+     * Serialize CAP object into stream
+     *
+     * @param cap    CAP object
+     * @param stream target stream, not closed
+     * @throws CapException when writing failed
+     */
+    public void write(final Cap cap, final OutputStream stream) throws CapException {
+        if (stream == null) {
+            throw new IllegalArgumentException("stream is null");
+        }
+
+        encode(cap);
+        try {
+            stream.write(writer.array(), 0, writer.position());
+        } catch (final IOException ex) {
+            throw new CapException("failed to write CAP record", ex);
+        }
+    }
+
+    /**
+     * Serialize CAP object into byte array
+     *
+     * @param cap CAP object
+     * @return serialized CAP record
+     */
+    public byte[] toBytes(final Cap cap) {
+        encode(cap);
+        return Arrays.copyOf(writer.array(), writer.position());
+    }
+
+    /**
+     * Deserialize next CAP record out of stream
+     *
+     * @param stream source stream, not closed
+     * @return CAP object or null when stream is at its end
+     * @throws CapException when record is malformed or stream can not be read
+     */
+    public Cap read(final InputStream stream) throws CapException {
+        if (stream == null) {
+            throw new IllegalArgumentException("stream is null");
+        }
+
+        try {
+            final int n = IOUtils.read(stream, readBuffer, 0, PREAMBLE_LENGTH);
+            if (n == 0) {
+                return null;
+            } else if (n < PREAMBLE_LENGTH) {
+                throw new CapFormatException("truncated CAP record");
+            }
+
+            final ByteBuffer preamble = ByteBuffer.wrap(readBuffer, 0, PREAMBLE_LENGTH);
+            checkPreamble(preamble);
+            final int length = preamble.getInt(6);
+            if (length < 0) {
+                throw new CapFormatException("invalid CAP record length");
+            } else if (readBuffer.length < length) {
+                readBuffer = new byte[Math.max(length, readBuffer.length << 1)];
+            }
+
+            IOUtils.readFully(stream, readBuffer, 0, length);
+            return decode(ByteBuffer.wrap(readBuffer, 0, length));
+        } catch (final EOFException ex) {
+            throw new CapFormatException("truncated CAP record", ex);
+        } catch (final IOException ex) {
+            throw new CapException("failed to read CAP record", ex);
+        }
+    }
+
+    /**
+     * Deserialize CAP record out of buffer, buffer position is advanced past the record
+     *
+     * @param buffer source buffer
+     * @return CAP object
+     * @throws CapFormatException when record is malformed
+     */
+    public Cap read(final ByteBuffer buffer) throws CapFormatException {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer is null");
+        } else if (buffer.remaining() < PREAMBLE_LENGTH) {
+            throw new CapFormatException("truncated CAP record");
+        }
+
+        final ByteBuffer record = buffer.slice();
+        checkPreamble(record);
+        final int length = record.getInt(6);
+        if ((length < 0) || (record.remaining() - PREAMBLE_LENGTH < length)) {
+            throw new CapFormatException("truncated CAP record");
+        }
+
+        record.position(PREAMBLE_LENGTH).limit(PREAMBLE_LENGTH + length);
+        final Cap cap = decode(record);
+        buffer.position(buffer.position() + PREAMBLE_LENGTH + length);
+        return cap;
+    }
+
+    /**
+     * Deserialize CAP record out of byte array
+     *
+     * @param record serialized CAP record
+     * @return CAP object
+     * @throws CapFormatException when record is malformed
+     */
+    public Cap fromBytes(final byte[] record) throws CapFormatException {
+        if (record == null) {
+            throw new IllegalArgumentException("record is null");
+        }
+        return read(ByteBuffer.wrap(record));
+    }
+
+    private void encode(final Cap cap) {
+        if (cap == null) {
+            throw new IllegalArgumentException("CAP is null");
+        }
+
+        writer.reset()
+                .writeU4(MAGIC)
+                .writeU1(MAJOR_VERSION)
+                .writeU1(MINOR_VERSION)
+                .writeU4(0);
+        CapBinaryCodec.write(cap, writer);
+        writer.writeU4At(6, writer.position() - PREAMBLE_LENGTH);
+    }
+
+    private static void checkPreamble(final ByteBuffer preamble) throws CapFormatException {
+        if (preamble.getInt(0) != MAGIC) {
+            throw new CapFormatException("invalid CAP record magic");
+        } else if ((preamble.get(4) & 0xff) != MAJOR_VERSION) {
+            throw new CapFormatException("unsupported CAP record version " + (preamble.get(4) & 0xff));
+        }
+    }
+
+    private static Cap decode(final ByteBuffer payload) throws CapFormatException {
+        try {
+            return CapBinaryCodec.read(new CapComponentReader(payload));
+        } catch (final BufferUnderflowException | IllegalArgumentException | IllegalStateException ex) {
+            throw new CapFormatException("malformed CAP record", ex);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CAP static field component builder
+ */
+final class CapStaticFieldBuilder {
+    private int imageSize;
+    private int referenceCount;
+    private byte[] arrayInitTypes = new byte[4];
+    private ByteBuffer[] arrayInitValues = new ByteBuffer[4];
+    private int arrayInitCount;
+    private int arrayInitSize;
+    private int defaultValueCount;
+    private ByteBuffer nonDefaultValues;
+
+    /**
+     * Set image size and reference count
+     *
+     * @param imageSize      image size in bytes
+     * @param referenceCount count of reference type static fields
+     * @return this instance
+     */
+    CapStaticFieldBuilder setImage(final int imageSize, final int referenceCount) {
+        this.imageSize = imageSize;
+        this.referenceCount = referenceCount;
+        return this;
+    }
+
+    /**
+     * Add array initializer
+     *
+     * @param type   element type
+     * @param values read-only view of initial values
+     * @return this instance
+     */
+    CapStaticFieldBuilder addArrayInit(final int type, final ByteBuffer values) {
+        if (values == null) {
+            throw new IllegalArgumentException("array initializer values is null");
+        }
+        if (arrayInitCount == arrayInitTypes.length) {
+            arrayInitTypes = Arrays.copyOf(arrayInitTypes, arrayInitCount << 1);
+            arrayInitValues = Arrays.copyOf(arrayInitValues, arrayInitCount << 1);
+        }
+        arrayInitTypes[arrayInitCount] = (byte) type;
+        arrayInitValues[arrayInitCount] = values;
+        arrayInitCount++;
+        arrayInitSize += values.remaining();
+        return this;
+    }
+
+    /**
+     * Set primitive static field values
+     *
+     * @param defaultValueCount count of fields initialized to default value
+     * @param nonDefaultValues  read-only view of non-default values
+     * @return this instance
+     */
+    CapStaticFieldBuilder setValues(final int defaultValueCount, final ByteBuffer nonDefaultValues) {
+        if (nonDefaultValues == null) {
+            throw new IllegalArgumentException("non-default values is null");
+        }
+        this.defaultValueCount = defaultValueCount;
+        this.nonDefaultValues = nonDefaultValues;
+        return this;
+    }
+
+    /**
+     * Get total size of array initializer values added so far
+     *
+     * @return array initializer size in bytes
+     */
+    int getArrayInitSize() {
+        return arrayInitSize;
+    }
+
+    /**
+     * Build CAP static field component object
+     *
+     * @return CAP static field component object
+     */
+    Cap.StaticField build() {
+        if (nonDefaultValues == null) {
+            throw new IllegalStateException("static field values are mandatory");
+        }
+        return new CapStaticField(this);
+    }
+
+    /**
+     * CAP static field component implementation
+     */
+    static final class CapStaticField implements Cap.StaticField {
+        private final int imageSize;
+        private final int referenceCount;
+        private final byte[] arrayInitTypes;
+        private final ByteBuffer[] arrayInitValues;
+        private final int arrayInitSize;
+        private final int defaultValueCount;
+        private final ByteBuffer nonDefaultValues;
+
+        /**
+         * Class constructor
+         *
+         * @param builder CAP static field builder
+         */
+        CapStaticField(final CapStaticFieldBuilder builder) {
+            this.imageSize = builder.imageSize;
+            this.referenceCount = builder.referenceCount;
+            this.arrayInitTypes = Arrays.copyOf(builder.arrayInitTypes, builder.arrayInitCount);
+            this.arrayInitValues = Arrays.copyOf(builder.arrayInitValues, builder.arrayInitCount);
+            this.arrayInitSize = builder.arrayInitSize;
+            this.defaultValueCount = builder.defaultValueCount;
+            this.nonDefaultValues = builder.nonDefaultValues;
+        }
+
+        @Override
+        public int getImageSize() {
+            return imageSize;
+        }
+
+        @Override
+        public int getReferenceCount() {
+            return referenceCount;
+        }
+
+        @Override
+        public int getArrayInitCount() {
+            return arrayInitTypes.length;
+        }
+
+        @Override
+        public int getArrayInitType(final int index) {
+            return arrayInitTypes[index];
+        }
+
+        @Override
+        public ByteBuffer getArrayInitValues(final int index) {
+            return arrayInitValues[index].duplicate();
+        }
+
+        @Override
+        public int getArrayInitSize() {
+            return arrayInitSize;
+        }
+
+        @Override
+        public int getDefaultValueCount() {
+            return defaultValueCount;
+        }
+
+        @Override
+        public ByteBuffer getNonDefaultValues() {
+            return nonDefaultValues.duplicate();
+        }
+    }
+}
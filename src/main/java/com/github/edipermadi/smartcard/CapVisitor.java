@@ -0,0 +1,160 @@
+package com.github.edipermadi.smartcard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CAP visitor, called back by {@link CapDecoderImpl#accept(java.nio.file.Path, CapVisitor)} while components are
+ * parsed. Values are delivered as primitives, AIDs and names as slices of component payload, so a visitor which
+ * copies them into its own storage decodes a CAP without an intermediate object tree.
+ * <p>
+ * Components are visited in tag order: header, directory, applet then remaining selected components as raw
+ * payloads, followed by {@link #visitEnd()}. Buffers are read-only views shared with decoder, only valid during the
+ * call, they must not be modified. Every method does nothing unless a delegate visitor is given, in which case
+ * calls are forwarded to it.
+ */
+public abstract class CapVisitor {
+    private final CapVisitor delegate;
+
+    /**
+     * Class constructor
+     */
+    protected CapVisitor() {
+        this(null);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param delegate visitor to which calls are forwarded, may be null
+     */
+    protected CapVisitor(final CapVisitor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Visit header component
+     *
+     * @param version CAP version, encoded in 0xaabb (major, minor)
+     * @param flags   CAP flags
+     */
+    public void visitHeader(final int version, final int flags) {
+        if (delegate != null) {
+            delegate.visitHeader(version, flags);
+        }
+    }
+
+    /**
+     * Visit package info of header component
+     *
+     * @param version package version, encoded in 0xaabb (major, minor)
+     * @param aid     buffer holding package AID
+     * @param offset  absolute offset of AID within buffer
+     * @param length  AID length
+     */
+    public void visitPackage(final int version, final ByteBuffer aid, final int offset, final int length) {
+        if (delegate != null) {
+            delegate.visitPackage(version, aid, offset, length);
+        }
+    }
+
+    /**
+     * Visit package name of header component, only called when CAP has package name
+     *
+     * @param name   buffer holding UTF-8 encoded package name
+     * @param offset absolute offset of name within buffer
+     * @param length name length in bytes
+     */
+    public void visitPackageName(final ByteBuffer name, final int offset, final int length) {
+        if (delegate != null) {
+            delegate.visitPackageName(name, offset, length);
+        }
+    }
+
+    /**
+     * Visit component size of directory component, called for every standard component in tag order
+     *
+     * @param tag  component tag
+     * @param size component size
+     */
+    public void visitComponentSize(final int tag, final int size) {
+        if (delegate != null) {
+            delegate.visitComponentSize(tag, size);
+        }
+    }
+
+    /**
+     * Visit static field size info of directory component
+     *
+     * @param imageSize      static field image size
+     * @param arrayInitCount count of array initializers
+     * @param arrayInitSize  total size of array initializers
+     */
+    public void visitStaticFieldSize(final int imageSize, final int arrayInitCount, final int arrayInitSize) {
+        if (delegate != null) {
+            delegate.visitStaticFieldSize(imageSize, arrayInitCount, arrayInitSize);
+        }
+    }
+
+    /**
+     * Visit import and applet counts of directory component
+     *
+     * @param importCount count of imported packages
+     * @param appletCount count of applets
+     */
+    public void visitCounts(final int importCount, final int appletCount) {
+        if (delegate != null) {
+            delegate.visitCounts(importCount, appletCount);
+        }
+    }
+
+    /**
+     * Visit custom component info of directory component
+     *
+     * @param tag    custom component tag
+     * @param size   custom component size
+     * @param aid    buffer holding custom component AID
+     * @param offset absolute offset of AID within buffer
+     * @param length AID length
+     */
+    public void visitCustomComponent(final int tag, final int size, final ByteBuffer aid, final int offset,
+                                     final int length) {
+        if (delegate != null) {
+            delegate.visitCustomComponent(tag, size, aid, offset, length);
+        }
+    }
+
+    /**
+     * Visit applet of applet component
+     *
+     * @param aid                 buffer holding applet AID
+     * @param offset              absolute offset of AID within buffer
+     * @param length              AID length
+     * @param installMethodOffset install method offset
+     */
+    public void visitApplet(final ByteBuffer aid, final int offset, final int length, final int installMethodOffset) {
+        if (delegate != null) {
+            delegate.visitApplet(aid, offset, length, installMethodOffset);
+        }
+    }
+
+    /**
+     * Visit selected component other than header, directory and applet
+     *
+     * @param type    component type
+     * @param payload read-only component payload, from its position to its limit
+     */
+    public void visitComponent(final CapComponentType type, final ByteBuffer payload) {
+        if (delegate != null) {
+            delegate.visitComponent(type, payload);
+        }
+    }
+
+    /**
+     * Visit end of CAP
+     */
+    public void visitEnd() {
+        if (delegate != null) {
+            delegate.visitEnd();
+        }
+    }
+}
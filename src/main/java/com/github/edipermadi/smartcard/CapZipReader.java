@@ -0,0 +1,294 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapFormatException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Cursor over entries of an in-memory ZIP archive. Entries are located through ZIP central directory, an entry
+ * content is only inflated when read, so that unselected entries cost nothing but their directory record. ZIP64
+ * and encrypted entries are not supported. The following is the layout being read
+ * <pre>
+ * end_of_central_directory {
+ *     u4 signature (0x06054b50)
+ *     u2 disk_number
+ *     u2 central_directory_disk
+ *     u2 disk_entry_count
+ *     u2 entry_count
+ *     u4 central_directory_size
+ *     u4 central_directory_offset
+ *     u2 comment_length
+ *     u1 comment[comment_length]
+ * }
+ *
+ * central_directory_entry {
+ *     u4 signature (0x02014b50)
+ *     u2 version_made_by
+ *     u2 version_needed
+ *     u2 flags
+ *     u2 method
+ *     u4 modification_time
+ *     u4 crc32
+ *     u4 compressed_size
+ *     u4 size
+ *     u2 name_length
+ *     u2 extra_length
+ *     u2 comment_length
+ *     u2 disk_number
+ *     u2 internal_attributes
+ *     u4 external_attributes
+ *     u4 local_header_offset
+ *     u1 name[name_length]
+ *     u1 extra[extra_length]
+ *     u1 comment[comment_length]
+ * }
+ *
+ * local_header {
+ *     u4 signature (0x04034b50)
+ *     u1 fixed[22]
+ *     u2 name_length
+ *     u2 extra_length
+ *     u1 name[name_length]
+ *     u1 extra[extra_length]
+ *     u1 data[compressed_size]
+ * }
+ * </pre>
+ * Multi-byte values are little-endian.
+ */
+final class CapZipReader {
+    private static final int SIGNATURE_END = 0x06054b50;
+    private static final int SIGNATURE_ENTRY = 0x02014b50;
+    private static final int SIGNATURE_LOCAL = 0x04034b50;
+    private static final int END_SIZE = 22;
+    private static final int ENTRY_SIZE = 46;
+    private static final int LOCAL_SIZE = 30;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final ByteBuffer archive;
+    private int remaining;
+    private int next;
+
+    /* current entry */
+    private String name;
+    private int flags;
+    private int method;
+    private int crc;
+    private long compressedSize;
+    private long size;
+    private long localHeaderOffset;
+
+    /**
+     * Class constructor, locates central directory
+     *
+     * @param archive archive content, from its position to its limit
+     * @throws ZipException when central directory is missing or malformed
+     */
+    CapZipReader(final ByteBuffer archive) throws ZipException {
+        if (archive == null) {
+            throw new IllegalArgumentException("archive is null");
+        }
+        this.archive = archive.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        /* end record is followed by a comment of at most 65535 bytes */
+        final int last = this.archive.limit() - END_SIZE;
+        int end = -1;
+        for (int i = last; (i >= 0) && (i >= last - 0xffff); i--) {
+            if (this.archive.getInt(i) == SIGNATURE_END) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException("ZIP central directory not found");
+        }
+
+        final long offset = u4(end + 16);
+        if (offset + u4(end + 12) > end) {
+            throw new ZipException("ZIP central directory is out of bounds");
+        }
+        this.remaining = u2(end + 10);
+        this.next = (int) offset;
+    }
+
+    /**
+     * Move to next entry
+     *
+     * @return false when there is no more entry
+     * @throws ZipException when central directory entry is malformed
+     */
+    boolean next() throws ZipException {
+        if (remaining == 0) {
+            return false;
+        }
+        if ((next + ENTRY_SIZE > archive.limit()) || (archive.getInt(next) != SIGNATURE_ENTRY)) {
+            throw new ZipException("invalid ZIP central directory entry");
+        }
+
+        flags = u2(next + 8);
+        method = u2(next + 10);
+        crc = archive.getInt(next + 16);
+        compressedSize = u4(next + 20);
+        size = u4(next + 24);
+        final int nameLength = u2(next + 28);
+        final int extraLength = u2(next + 30);
+        final int commentLength = u2(next + 32);
+        localHeaderOffset = u4(next + 42);
+        if (next + ENTRY_SIZE + nameLength > archive.limit()) {
+            throw new ZipException("invalid ZIP central directory entry");
+        }
+
+        final byte[] bytes = new byte[nameLength];
+        final ByteBuffer view = archive.duplicate();
+        view.position(next + ENTRY_SIZE);
+        view.get(bytes);
+        name = new String(bytes, StandardCharsets.UTF_8);
+
+        next += ENTRY_SIZE + nameLength + extraLength + commentLength;
+        remaining--;
+        return true;
+    }
+
+    /**
+     * Get name of current entry
+     *
+     * @return entry name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Check whether current entry is a directory
+     *
+     * @return true when entry is a directory
+     */
+    boolean isDirectory() {
+        return name.endsWith("/");
+    }
+
+    /**
+     * Get compressed size of current entry
+     *
+     * @return compressed size
+     */
+    long getCompressedSize() {
+        return compressedSize;
+    }
+
+    /**
+     * Get size of current entry
+     *
+     * @return uncompressed size
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Read content of current entry
+     *
+     * @param limit largest accepted entry size
+     * @param what  entry description used in error messages
+     * @return entry content
+     * @throws ZipException       when entry is malformed
+     * @throws CapFormatException when entry is larger than limit
+     */
+    ByteBuffer read(final int limit, final String what) throws ZipException, CapFormatException {
+        if (size > limit) {
+            throw new CapFormatException(what + " is too large");
+        } else if ((flags & 0x01) != 0) {
+            throw new ZipException("encrypted ZIP entry " + name);
+        }
+
+        /* locate data past local header, its name and extra field lengths may differ from central directory */
+        final long dataOffset = localHeaderOffset + LOCAL_SIZE;
+        if ((dataOffset > archive.limit()) || (archive.getInt((int) localHeaderOffset) != SIGNATURE_LOCAL)) {
+            throw new ZipException("invalid ZIP local header of " + name);
+        }
+        final long start = dataOffset + u2((int) localHeaderOffset + 26) + u2((int) localHeaderOffset + 28);
+        if (start + compressedSize > archive.limit()) {
+            throw new ZipException("ZIP entry " + name + " is out of bounds");
+        }
+
+        final byte[] content = new byte[(int) size];
+        if (method == METHOD_STORED) {
+            if (compressedSize != size) {
+                throw new ZipException("invalid size of stored ZIP entry " + name);
+            }
+            final ByteBuffer view = archive.duplicate();
+            view.position((int) start);
+            view.get(content);
+        } else if (method == METHOD_DEFLATED) {
+            inflate((int) start, content);
+        } else {
+            throw new ZipException("unsupported compression method " + method + " of " + name);
+        }
+
+        final CRC32 checksum = new CRC32();
+        checksum.update(content, 0, content.length);
+        if ((int) checksum.getValue() != crc) {
+            throw new ZipException("invalid CRC of ZIP entry " + name);
+        }
+        return ByteBuffer.wrap(content);
+    }
+
+    private void inflate(final int start, final byte[] content) throws ZipException, CapFormatException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            if (archive.hasArray()) {
+                inflater.setInput(archive.array(), archive.arrayOffset() + start, (int) compressedSize);
+            } else {
+                final byte[] input = new byte[(int) compressedSize];
+                final ByteBuffer view = archive.duplicate();
+                view.position(start);
+                view.get(input);
+                inflater.setInput(input);
+            }
+
+            /* once content is full, inflating further must only report end of stream */
+            int length = 0;
+            boolean padded = false;
+            while (!inflater.finished()) {
+                final int n = (length < content.length)
+                        ? inflater.inflate(content, length, content.length - length) : inflater.inflate(new byte[1]);
+                if ((length == content.length) && (n > 0)) {
+                    throw new CapFormatException("ZIP entry " + name + " is larger than declared");
+                }
+                length += n;
+
+                /* raw inflate may need a dummy byte past last block before reporting end of stream */
+                if ((n == 0) && inflater.needsDictionary()) {
+                    throw new ZipException("unsupported preset dictionary of " + name);
+                } else if ((n == 0) && inflater.needsInput()) {
+                    if (padded) {
+                        throw new ZipException("truncated ZIP entry " + name);
+                    }
+                    inflater.setInput(new byte[1]);
+                    padded = true;
+                }
+            }
+            if (length != content.length) {
+                throw new ZipException("ZIP entry " + name + " is smaller than declared");
+            }
+        } catch (final DataFormatException ex) {
+            throw new ZipException("invalid compressed data of " + name + ": " + ex.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int u2(final int offset) {
+        return archive.getShort(offset) & 0xffff;
+    }
+
+    private long u4(final int offset) {
+        return archive.getInt(offset) & 0xffffffffL;
+    }
+}
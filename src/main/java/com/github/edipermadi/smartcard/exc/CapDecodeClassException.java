@@ -0,0 +1,41 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP class decoding exception
+ */
+public final class CapDecodeClassException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeClassException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeClassException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeClassException invalidTag(final int componentTag) {
+        return new CapDecodeClassException("unexpected CAP class tag " + componentTag);
+    }
+
+    public static CapDecodeClassException invalidSize() {
+        return new CapDecodeClassException("invalid CAP class size");
+    }
+
+    public static CapDecodeClassException invalidSignaturePool() {
+        return new CapDecodeClassException("invalid CAP class signature pool");
+    }
+
+    public static CapDecodeClassException invalidHierarchy(final int offset) {
+        return new CapDecodeClassException("cyclic or dangling CAP class hierarchy at offset " + offset);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP constant pool decoding exception
+ */
+public final class CapDecodeConstantPoolException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeConstantPoolException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeConstantPoolException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeConstantPoolException invalidTag(final int componentTag) {
+        return new CapDecodeConstantPoolException("unexpected CAP constant pool tag " + componentTag);
+    }
+
+    public static CapDecodeConstantPoolException invalidSize() {
+        return new CapDecodeConstantPoolException("invalid CAP constant pool size");
+    }
+
+    public static CapDecodeConstantPoolException invalidEntryTag(final int index, final int tag) {
+        return new CapDecodeConstantPoolException("unexpected tag " + tag + " of CAP constant pool entry " + index);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP debug decoding exception
+ */
+public final class CapDecodeDebugException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeDebugException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeDebugException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeDebugException invalidTag(final int componentTag) {
+        return new CapDecodeDebugException("unexpected CAP debug tag " + componentTag);
+    }
+
+    public static CapDecodeDebugException invalidSize() {
+        return new CapDecodeDebugException("invalid CAP debug size");
+    }
+
+    public static CapDecodeDebugException invalidStringIndex(final int index) {
+        return new CapDecodeDebugException("invalid CAP debug string index " + index);
+    }
+}
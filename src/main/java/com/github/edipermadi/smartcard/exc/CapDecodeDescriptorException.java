@@ -0,0 +1,33 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP descriptor decoding exception
+ */
+public final class CapDecodeDescriptorException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeDescriptorException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeDescriptorException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeDescriptorException invalidTag(final int componentTag) {
+        return new CapDecodeDescriptorException("unexpected CAP descriptor tag " + componentTag);
+    }
+
+    public static CapDecodeDescriptorException invalidSize() {
+        return new CapDecodeDescriptorException("invalid CAP descriptor size");
+    }
+}
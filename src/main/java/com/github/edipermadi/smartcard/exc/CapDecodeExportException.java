@@ -0,0 +1,33 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP export decoding exception
+ */
+public final class CapDecodeExportException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeExportException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeExportException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeExportException invalidTag(final int componentTag) {
+        return new CapDecodeExportException("unexpected CAP export tag " + componentTag);
+    }
+
+    public static CapDecodeExportException invalidSize() {
+        return new CapDecodeExportException("invalid CAP export size");
+    }
+}
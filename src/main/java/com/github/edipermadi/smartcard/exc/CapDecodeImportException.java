@@ -0,0 +1,41 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP import decoding exception
+ */
+public final class CapDecodeImportException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeImportException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeImportException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeImportException invalidTag(final int componentTag) {
+        return new CapDecodeImportException("unexpected CAP import tag " + componentTag);
+    }
+
+    public static CapDecodeImportException invalidSize() {
+        return new CapDecodeImportException("invalid CAP import size");
+    }
+
+    public static CapDecodeImportException invalidImportCount() {
+        return new CapDecodeImportException("invalid CAP import count");
+    }
+
+    public static CapDecodeImportException invalidAIDLength() {
+        return new CapDecodeImportException("invalid CAP import AID length");
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP method decoding exception
+ */
+public final class CapDecodeMethodException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeMethodException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeMethodException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeMethodException invalidTag(final int componentTag) {
+        return new CapDecodeMethodException("unexpected CAP method tag " + componentTag);
+    }
+
+    public static CapDecodeMethodException invalidSize() {
+        return new CapDecodeMethodException("invalid CAP method size");
+    }
+
+    public static CapDecodeMethodException invalidExceptionHandler() {
+        return new CapDecodeMethodException("invalid CAP method exception handler");
+    }
+
+    public static CapDecodeMethodException invalidMethodOffset(final int offset) {
+        return new CapDecodeMethodException("invalid CAP method offset " + offset);
+    }
+
+    public static CapDecodeMethodException invalidDescriptor() {
+        return new CapDecodeMethodException("invalid or missing CAP descriptor of methods");
+    }
+}
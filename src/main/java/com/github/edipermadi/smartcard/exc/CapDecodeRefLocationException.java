@@ -0,0 +1,33 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP reference location decoding exception
+ */
+public final class CapDecodeRefLocationException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeRefLocationException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeRefLocationException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeRefLocationException invalidTag(final int componentTag) {
+        return new CapDecodeRefLocationException("unexpected CAP reference location tag " + componentTag);
+    }
+
+    public static CapDecodeRefLocationException invalidSize() {
+        return new CapDecodeRefLocationException("invalid CAP reference location size");
+    }
+}
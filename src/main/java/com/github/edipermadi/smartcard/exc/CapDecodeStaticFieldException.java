@@ -0,0 +1,43 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP static field decoding exception
+ */
+public final class CapDecodeStaticFieldException extends CapDecodeException {
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     * @param cause   exception cause
+     */
+    public CapDecodeStaticFieldException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param message exception message
+     */
+    public CapDecodeStaticFieldException(final String message) {
+        super(message);
+    }
+
+    public static CapDecodeStaticFieldException invalidTag(final int componentTag) {
+        return new CapDecodeStaticFieldException("unexpected CAP static field tag " + componentTag);
+    }
+
+    public static CapDecodeStaticFieldException invalidSize() {
+        return new CapDecodeStaticFieldException("invalid CAP static field size");
+    }
+
+    public static CapDecodeStaticFieldException invalidArrayInitType(final int type) {
+        return new CapDecodeStaticFieldException("unexpected CAP array initializer type " + type);
+    }
+
+    public static CapDecodeStaticFieldException sizeMismatch(final String field, final int expected,
+                                                             final int actual) {
+        return new CapDecodeStaticFieldException("CAP static field " + field + " is " + actual
+                + ", directory declares " + expected);
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * CAP encoding exception
+ */
+public class CapEncodeException extends CapException {
+    public CapEncodeException(String message, Throwable ex) {
+        super(message, ex);
+    }
+
+    public CapEncodeException(String message) {
+        super(message);
+    }
+
+    public static CapEncodeException missingComponent(final String component) {
+        return new CapEncodeException("CAP component " + component + " is declared by directory but missing");
+    }
+
+    public static CapEncodeException unknownCustomComponent(final String name, final int tag) {
+        return new CapEncodeException("CAP custom component " + name + " with tag " + tag
+                + " is not declared by directory");
+    }
+
+    public static CapEncodeException packageNameTooLong(final int length) {
+        return new CapEncodeException("CAP package name is " + length + " bytes, at most 255 are allowed");
+    }
+}
@@ -4,4 +4,8 @@ public class CapFormatException extends CapException {
     public CapFormatException(String message, Throwable ex) {
         super(message, ex);
     }
+
+    public CapFormatException(String message) {
+        super(message);
+    }
 }
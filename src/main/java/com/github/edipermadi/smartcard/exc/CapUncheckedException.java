@@ -0,0 +1,21 @@
+package com.github.edipermadi.smartcard.exc;
+
+/**
+ * Unchecked wrapper of {@link CapException}, thrown where checked exception can not be propagated such as
+ * by lazily decoded CAP components
+ */
+public final class CapUncheckedException extends RuntimeException {
+    /**
+     * Class constructor
+     *
+     * @param cause exception cause
+     */
+    public CapUncheckedException(final CapException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public CapException getCause() {
+        return (CapException) super.getCause();
+    }
+}
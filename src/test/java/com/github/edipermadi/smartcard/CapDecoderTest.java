@@ -2,13 +2,44 @@ package com.github.edipermadi.smartcard;
 
 
 import com.github.edipermadi.smartcard.exc.CapException;
+import com.github.edipermadi.smartcard.exc.CapFormatException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.testng.Assert;
 import org.testng.Reporter;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public final class CapDecoderTest {
     @Test
@@ -21,4 +52,821 @@ public final class CapDecoderTest {
         Assert.assertNotNull(cap);
         Reporter.log(cap.toString(), true);
     }
+
+    @Test
+    public void testDecodePath() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecoder decoder = new CapDecoderImpl();
+        final Cap cap = decoder.decode(file.toPath());
+        Assert.assertNotNull(cap);
+        Assert.assertEquals(cap.getHeader().getPackage().getAid(), Aid.fromHex("a0000005272101"));
+        Assert.assertEquals(cap.getApplet().getApplets().get(0).getInstallMethodOffset(), 1121);
+
+        final FileInputStream fis = new FileInputStream(file);
+        Assert.assertEquals(cap.toString(), decoder.decode(fis).toString());
+    }
+
+    @Test
+    public void testDecodeLazy() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Cap cap = new CapDecoderImpl(new CapDecodeOptions().setLazy(true)).decode(file.toPath());
+        Assert.assertNotNull(cap);
+        Assert.assertSame(cap.getHeader(), cap.getHeader());
+        Assert.assertEquals(cap.getDirectory().getImportCount(), 3);
+        Assert.assertEquals(cap.toString(), new CapDecoderImpl().decode(file.toPath()).toString());
+    }
+
+    @Test
+    public void testDecodeSelected() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.HEADER);
+        final Cap cap = new CapDecoderImpl(options).decode(new FileInputStream(file));
+        Assert.assertNotNull(cap.getDirectory());
+        Assert.assertNull(cap.getApplet());
+    }
+
+    @Test
+    public void testDecodeAll() throws InterruptedException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final List<Path> paths = Arrays.asList(file.toPath(), Paths.get("no-such-file.cap"), file.toPath());
+        try (final CapBatchDecoder batch = new CapBatchDecoder(new CapDecoderImpl())) {
+            final List<CapDecodeResult> results = batch.decodeAll(paths);
+            Assert.assertEquals(results.size(), 3);
+            Assert.assertTrue(results.get(0).isSuccess());
+            Assert.assertFalse(results.get(1).isSuccess());
+            Assert.assertNotNull(results.get(1).getException());
+            Assert.assertEquals(results.get(2).getPath(), file.toPath());
+            Assert.assertNotNull(results.get(2).getCap());
+        }
+    }
+
+    @Test
+    public void testDecodeCached() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapCachingDecoder decoder = new CapCachingDecoder(new CapDecoderImpl(), 1, 1 << 20);
+        final Cap cap = decoder.decode(file.toPath());
+        Assert.assertSame(decoder.decode(new FileInputStream(file)), cap);
+        Assert.assertEquals(decoder.getHitCount(), 1);
+        Assert.assertEquals(decoder.getMissCount(), 1);
+        Assert.assertEquals(decoder.getEvictionCount(), 0);
+        Assert.assertEquals(decoder.size(), 1);
+    }
+
+    @Test
+    public void testIndex() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Path indexFile = Files.createTempFile("cap-index-", ".bin");
+        try {
+            /* decoder selects more than index holds, indexed and decoded files still look alike */
+            final CapDecoder decoder = new CapDecoderImpl(new CapDecodeOptions()
+                    .setComponents(EnumSet.allOf(CapComponentType.class)));
+            final CapIndex index = CapIndex.open(indexFile, decoder);
+            Assert.assertEquals(index.size(), 0);
+            final Cap cap = index.get(file.toPath());
+            Assert.assertNull(cap.getMethod());
+            Assert.assertNull(cap.getRawComponent(CapComponentType.METHOD));
+            Assert.assertSame(index.get(file.toPath()), cap);
+            index.save();
+
+            final CapIndex reopened = CapIndex.open(indexFile, decoder);
+            Assert.assertEquals(reopened.size(), 1);
+            final Cap indexed = reopened.get(file.toPath());
+            Assert.assertEquals(indexed.getClass(), cap.getClass());
+            Assert.assertNull(indexed.getMethod());
+            Assert.assertEquals(indexed.getHeader().getPackage().getAid(), cap.getHeader().getPackage().getAid());
+            Assert.assertEquals(indexed.getDirectory().getComponentSizes(), cap.getDirectory().getComponentSizes());
+            Assert.assertEquals(indexed.getApplet().getApplets().size(), cap.getApplet().getApplets().size());
+            Assert.assertEquals(indexed.toString(), cap.toString());
+
+            /* index file is replaced while reopened index has been loaded out of it */
+            Assert.assertTrue(reopened.remove(file.toPath()));
+            reopened.save();
+            Assert.assertEquals(CapIndex.open(indexFile, decoder).size(), 0);
+        } finally {
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void testDecodeInterned() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapInternPool pool = new CapInternPool();
+        final CapDecoder decoder = new CapDecoderImpl(new CapDecodeOptions().setInternPool(pool));
+        final Cap first = decoder.decode(file.toPath());
+        final Cap second = decoder.decode(file.toPath());
+        Assert.assertSame(second.getHeader().getPackage().getAid(), first.getHeader().getPackage().getAid());
+        Assert.assertEquals(pool.getAidCount(), 2);
+        final Aid appletAid = first.getApplet().getApplets().get(0).getAid();
+        Assert.assertEquals(appletAid.toString(), "a000000527210101");
+        Assert.assertTrue(appletAid.startsWith(first.getHeader().getPackage().getAid()));
+
+        /* type descriptors are shared across CAP files, one instance per distinct content */
+        final CapDecoder descriptors = new CapDecoderImpl(new CapDecodeOptions().setInternPool(pool)
+                .setComponents(CapComponentType.DESCRIPTOR));
+        final Cap.Descriptor firstDescriptor = descriptors.decode(file.toPath()).getDescriptor();
+        final Cap.Descriptor secondDescriptor = descriptors.decode(file.toPath()).getDescriptor();
+        final Set<Cap.Descriptor.TypeDescriptor> types = new HashSet<>();
+        final int size = first.getDirectory().getComponentSizes().get(CapComponentType.DESCRIPTOR.getTag() - 1);
+        for (int offset = 0; offset < size; offset++) {
+            final Cap.Descriptor.TypeDescriptor type = firstDescriptor.getType(offset);
+            Assert.assertSame(secondDescriptor.getType(offset), type);
+            if (type != null) {
+                Assert.assertSame(pool.intern(type), type);
+                types.add(type);
+            }
+        }
+        Assert.assertFalse(types.isEmpty());
+        Assert.assertEquals(pool.getTypeCount(), types.size());
+    }
+
+    @Test
+    public void testJsonExport() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Cap cap = new CapDecoderImpl().decode(file.toPath());
+        final StringWriter sw = new StringWriter();
+        try (final CapJsonWriter writer = new CapJsonWriter(sw, CapJsonWriter.Format.NDJSON)) {
+            writer.write(cap).write(cap);
+        }
+
+        final String[] lines = sw.toString().split("\n");
+        Assert.assertEquals(lines.length, 2);
+        Assert.assertEquals(lines[0], cap.toString().replaceAll("\\n *", "").replace("\": ", "\":"));
+        Assert.assertTrue(lines[1].contains("\"install_method_offset\":1121"));
+    }
+
+    @Test
+    public void testSerialize() throws IOException, CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Cap cap = new CapDecoderImpl().decode(file.toPath());
+        final CapSerializer serializer = new CapSerializer();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.write(cap, baos);
+        serializer.write(cap, baos);
+
+        final ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+        Assert.assertEquals(serializer.read(bais).toString(), cap.toString());
+        Assert.assertEquals(serializer.read(bais).toString(), cap.toString());
+        Assert.assertNull(serializer.read(bais));
+        Assert.assertEquals(serializer.fromBytes(serializer.toBytes(cap)).toString(), cap.toString());
+    }
+
+    @Test
+    public void testDecodeMethod() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.APPLET,
+                CapComponentType.METHOD);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        final Cap.Method method = cap.getMethod();
+        Assert.assertNotNull(method);
+        Assert.assertEquals(method.getExceptionHandlerCount(), 0);
+
+        final int install = method.indexOf(cap.getApplet().getApplets().get(0).getInstallMethodOffset());
+        Assert.assertTrue(install >= 0);
+        Assert.assertEquals(method.indexOfContaining(method.getBytecodeOffset(install)), install);
+        Assert.assertEquals(method.getBytecode(install).remaining(), method.getBytecodeCount(install));
+
+        /* methods tile method component info item */
+        Assert.assertEquals(method.getMethodOffset(0), 1);
+        for (int i = 1; i < method.getMethodCount(); i++) {
+            Assert.assertEquals(method.getMethodOffset(i),
+                    method.getBytecodeOffset(i - 1) + method.getBytecodeCount(i - 1));
+        }
+
+        final Cap lazy = new CapDecoderImpl(new CapDecodeOptions(options).setLazy(true)).decode(file.toPath());
+        Assert.assertEquals(lazy.getMethod().getMethodCount(), method.getMethodCount());
+    }
+
+    @Test
+    public void testDecodeConstantPool() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.CONSTANT_POOL);
+        final Cap.ConstantPool constantPool = new CapDecoderImpl(options).decode(file.toPath()).getConstantPool();
+        Assert.assertNotNull(constantPool);
+        Assert.assertEquals(constantPool.getCount(), 87);
+
+        /* instance field of internal class at offset 0 */
+        Assert.assertEquals(constantPool.getTag(0), Cap.ConstantPool.CONSTANT_InstanceFieldref);
+        Assert.assertFalse(constantPool.isExternal(0));
+        Assert.assertEquals(constantPool.getInternalOffset(0), 0);
+        Assert.assertEquals(constantPool.getMemberToken(0), 10);
+        Assert.assertEquals(constantPool.getPackageToken(0), -1);
+
+        int external = 0;
+        for (int i = 0; i < constantPool.getCount(); i++) {
+            if (constantPool.isExternal(i)) {
+                Assert.assertTrue(constantPool.getPackageToken(i) < 3);
+                external++;
+            }
+        }
+        Assert.assertEquals(external, 25);
+    }
+
+    @Test
+    public void testDecodeClass() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.CLASS);
+        final Cap.Class classComponent = new CapDecoderImpl(options).decode(file.toPath()).getClassComponent();
+        Assert.assertNotNull(classComponent);
+        Assert.assertTrue(classComponent.getInterfaces().isEmpty());
+        Assert.assertEquals(classComponent.getClasses().size(), 2);
+
+        /* applet class extends javacard.framework.Applet, package token 2 */
+        final int applet = CapClassRef.external(2, 3);
+        final Cap.Class.ClassInfo info = classComponent.getClassInfo(42);
+        Assert.assertEquals(info.getSuperClassRef(), applet);
+        Assert.assertEquals(info.getPublicVirtualMethodTable().length, 1);
+        Assert.assertTrue(classComponent.isSubclassOf(42, applet));
+        Assert.assertFalse(classComponent.isSubclassOf(0, applet));
+        Assert.assertFalse(classComponent.isImplementing(42, CapClassRef.external(2, 2)));
+        Assert.assertEquals(classComponent.getSubclasses(applet), new int[]{42});
+        Assert.assertEquals(classComponent.getSubclasses(CapClassRef.external(0, 0)), new int[]{0});
+    }
+
+    @Test
+    public void testDependencyGraph() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.IMPORT,
+                CapComponentType.CLASS);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        final Aid framework = Aid.fromHex("a0000000620101");
+        Assert.assertEquals(cap.getImport().getPackages().size(), cap.getDirectory().getImportCount());
+
+        /* applet class extends javacard.framework.Applet, class token 3 */
+        final int frameworkToken = cap.getImport().indexOf(framework);
+        Assert.assertTrue(cap.getClassComponent().isSubclassOf(42, CapClassRef.external(frameworkToken, 3)));
+
+        final CapDependencyGraph<String> graph = new CapDependencyGraph<>();
+        graph.put("a", cap);
+        graph.put("b", cap);
+        Assert.assertEquals(graph.getDependents(framework, 0x0103), new LinkedHashSet<>(Arrays.asList("a", "b")));
+        Assert.assertTrue(graph.getDependents(framework, 0x0104).isEmpty());
+        Assert.assertEquals(graph.getProviders(cap.getHeader().getPackage().getAid()).size(), 2);
+
+        Assert.assertTrue(graph.remove("a"));
+        Assert.assertEquals(graph.getTransitiveDependents(framework, 0), Collections.singleton("b"));
+        Assert.assertEquals(graph.size(), 1);
+    }
+
+    @Test
+    public void testExportTable() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Cap applet = new CapDecoderImpl().decode(file.toPath());
+        final Cap.Export export = CapDecoderImpl.decodeCapExport(ByteBuffer.wrap(new byte[]{
+                10, 0, 11, 1, 0, 42, 1, 2, 0, 4, 0, 16, 0, 32}));
+        Assert.assertEquals(export.getClassCount(), 1);
+        Assert.assertEquals(export.getClassOffset(0), 42);
+        Assert.assertEquals(export.getStaticMethodOffset(0, 1), 32);
+
+        final Cap library = new CapBuilder()
+                .setHeader(applet.getHeader())
+                .setDirectory(applet.getDirectory())
+                .setExport(export)
+                .build();
+        final Aid aid = library.getHeader().getPackage().getAid();
+        final int version = library.getHeader().getPackage().getVersion();
+        final CapExportTable table = new CapExportTable();
+        table.put(library);
+        Assert.assertSame(table.get(aid, version), export);
+        Assert.assertSame(table.resolve(aid, version & 0xff00), export);
+        Assert.assertNull(table.resolve(aid, version + 1));
+        Assert.assertEquals(table.resolveStaticField(aid, version, 0, 0), 4);
+        Assert.assertEquals(table.resolveStaticMethod(aid, version, 0, 2), -1);
+        Assert.assertTrue(table.remove(aid, version));
+        Assert.assertEquals(table.resolveClass(aid, version, 0), -1);
+    }
+
+    @Test
+    public void testDecodeRefLocation() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.METHOD,
+                CapComponentType.REFERENCE_LOCATION);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        final Cap.RefLocation refLocation = cap.getRefLocation();
+        Assert.assertEquals(refLocation.getByteIndexCount(), 127);
+        Assert.assertEquals(refLocation.getByte2IndexCount(), 227);
+        Assert.assertEquals(refLocation.getByteIndexOffset(0), 10);
+
+        /* a delta of 255 advances without yielding a location */
+        final CapOffsetIterator it = refLocation.iterateByteIndexOffsets();
+        final int[] offsets = refLocation.getByteIndexOffsets();
+        for (final int offset : offsets) {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(it.next(), offset);
+        }
+        Assert.assertFalse(it.hasNext());
+
+        /* every 2-byte index lies within a method */
+        final CapOffsetIterator it2 = refLocation.iterateByte2IndexOffsets();
+        while (it2.hasNext()) {
+            Assert.assertTrue(cap.getMethod().indexOfContaining(it2.next()) >= 0);
+        }
+    }
+
+    @Test
+    public void testDecodeStaticField() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.STATIC_FIELD);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        final Cap.StaticField staticField = cap.getStaticField();
+        Assert.assertEquals(staticField.getImageSize(), cap.getDirectory().getStaticFieldSize().getImageSize());
+        Assert.assertEquals(staticField.getReferenceCount(), 6);
+        Assert.assertEquals(staticField.getArrayInitCount(), 1);
+        Assert.assertEquals(staticField.getArrayInitType(0), Cap.StaticField.TYPE_BYTE);
+
+        final ByteBuffer values = staticField.getArrayInitValues(0);
+        Assert.assertTrue(values.isReadOnly());
+        Assert.assertEquals(values.remaining(), 3);
+        Assert.assertEquals(values.get(0), 1);
+        Assert.assertEquals(staticField.getNonDefaultValues().remaining(), 0);
+    }
+
+    @Test
+    public void testDecodeVersion22Directory() throws CapException {
+        final File file = new File("src/test/resources/minimal-2.2.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.STATIC_FIELD,
+                CapComponentType.DEBUG);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        Assert.assertEquals(cap.getHeader().getVersion(), 0x0202);
+
+        final Cap.Directory directory = cap.getDirectory();
+        Assert.assertEquals(directory.getComponentSizes().size(), 12);
+        Assert.assertEquals(directory.getComponentSizes().get(CapComponentType.DEBUG.getTag() - 1).intValue(),
+                cap.getRawComponent(CapComponentType.DEBUG).remaining() - 3);
+        Assert.assertEquals(directory.getStaticFieldSize().getImageSize(), 4);
+        Assert.assertEquals(directory.getStaticFieldSize().getArrayInitSize(), 3);
+        Assert.assertEquals(directory.getImportCount(), 1);
+
+        Assert.assertEquals(cap.getStaticField().getArrayInitValues(0).remaining(), 3);
+        Assert.assertEquals(cap.getDebug().symbolize(1, 2).getLineNumber(), 8);
+    }
+
+    @Test
+    public void testDecodeDescriptor() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.METHOD);
+        final Cap cap = new CapDecoderImpl(options).decode(file.toPath());
+        final Cap.Descriptor descriptor = cap.getDescriptor();
+        Assert.assertEquals(descriptor.getClassCount(), 2);
+
+        final Cap.Descriptor.ClassDescriptor applet = descriptor.findClassDescriptor(42);
+        Assert.assertSame(applet, descriptor.getClassDescriptor(1));
+        Assert.assertEquals(applet.getFields().size(), 8);
+        Assert.assertEquals(applet.getMethods().size(), 16);
+
+        /* method descriptors agree with method component */
+        for (final Cap.Descriptor.MethodDescriptor method : applet.getMethods()) {
+            final int index = cap.getMethod().indexOf(method.getMethodOffset());
+            Assert.assertTrue(index >= 0);
+            Assert.assertEquals(cap.getMethod().getBytecodeCount(index), method.getBytecodeCount());
+            Assert.assertNotNull(method.getType());
+        }
+        Assert.assertNull(descriptor.getType(1));
+    }
+
+    @Test
+    public void testDecodeDebug() throws CapException, IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(body);
+        out.writeShort(6);
+        for (final String str : new String[]{"pkg/oath", "pkg/oath/OathApplet", "OathApplet.java", "process",
+                "(Ljavacard/framework/APDU;)V", "install"}) {
+            out.writeUTF(str);
+        }
+        out.writeShort(0);
+
+        /* one class with two methods, declared out of offset order */
+        out.writeShort(1);
+        out.writeShort(1);
+        out.writeShort(0);
+        out.writeShort(42);
+        out.writeShort(0xffff);
+        out.writeShort(2);
+        out.writeByte(0);
+        out.writeShort(0);
+        out.writeShort(2);
+
+        out.writeShort(3);
+        out.writeShort(4);
+        out.writeShort(0);
+        out.writeShort(100);
+        out.writeByte(2);
+        out.writeShort(20);
+        out.writeShort(0);
+        out.writeShort(2);
+        out.writeShort(10);
+        out.writeShort(19);
+        out.writeShort(57);
+        out.writeShort(0);
+        out.writeShort(9);
+        out.writeShort(55);
+
+        out.writeShort(5);
+        out.writeShort(4);
+        out.writeShort(0);
+        out.writeShort(10);
+        out.writeByte(2);
+        out.writeShort(8);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.flush();
+
+        final ByteBuffer payload = ByteBuffer.allocate(3 + body.size());
+        payload.put((byte) 12).putShort((short) body.size()).put(body.toByteArray()).flip();
+        final Cap.Debug debug = CapDecoderImpl.decodeCapDebug(payload);
+        Assert.assertEquals(debug.getPackageName(), "pkg/oath");
+        Assert.assertEquals(debug.getMethodCount(), 2);
+        Assert.assertEquals(debug.getMethodName(0), "install");
+        Assert.assertEquals(debug.indexOfMethod(119), 1);
+        Assert.assertEquals(debug.indexOfMethod(122), -1);
+        Assert.assertEquals(debug.indexOfMethod(5), -1);
+        Assert.assertEquals(debug.getLineNumber(1, 4), 55);
+        Assert.assertEquals(debug.getLineNumber(1, 12), 57);
+        Assert.assertEquals(debug.getLineNumber(1, 20), -1);
+
+        final Cap.Debug.Location location = debug.symbolize(100, 12);
+        Assert.assertEquals(location.getClassName(), "pkg/oath/OathApplet");
+        Assert.assertEquals(location.getMethodName(), "process");
+        Assert.assertEquals(location.getSourceFile(), "OathApplet.java");
+        Assert.assertEquals(location.getLineNumber(), 57);
+        Assert.assertNull(debug.symbolize(200, 0));
+    }
+
+    @Test
+    public void testVisitor() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecodeOptions options = new CapDecodeOptions().setComponents(CapComponentType.APPLET,
+                CapComponentType.IMPORT);
+        final List<Object> events = new ArrayList<>();
+        new CapDecoderImpl(options).accept(file.toPath(), new CapVisitor() {
+            @Override
+            public void visitHeader(final int version, final int flags) {
+                events.add(version);
+            }
+
+            @Override
+            public void visitApplet(final ByteBuffer aid, final int offset, final int length,
+                                    final int installMethodOffset) {
+                Assert.assertTrue(aid.isReadOnly());
+                events.add(Aid.valueOf(aid, offset, length));
+                events.add(installMethodOffset);
+            }
+
+            @Override
+            public void visitPackageName(final ByteBuffer name, final int offset, final int length) {
+                Assert.assertTrue(name.isReadOnly());
+            }
+
+            @Override
+            public void visitComponent(final CapComponentType type, final ByteBuffer payload) {
+                Assert.assertTrue(payload.isReadOnly());
+                events.add(type);
+            }
+
+            @Override
+            public void visitEnd() {
+                events.add("end");
+            }
+        });
+        Assert.assertEquals(events, Arrays.<Object>asList(0x0201,
+                Aid.valueOf(new byte[]{(byte) 0xa0, 0x00, 0x00, 0x05, 0x27, 0x21, 0x01, 0x01}), 1121,
+                CapComponentType.IMPORT, "end"));
+    }
+
+    @Test
+    public void testDecodeAsync() throws Exception {
+        final Path path = Paths.get("src/test/resources/ykneo-oath-1.0.0.cap");
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        final List<CapComponentType> parsed = Collections.synchronizedList(new ArrayList<CapComponentType>());
+        final CapDecoderImpl decoder = new CapDecoderImpl(new CapDecodeOptions().setListener(new CapDecoderListener() {
+            @Override
+            public void onDecodeStart(final Path path) {
+                events.add(path);
+            }
+
+            @Override
+            public void onComponentRead(final CapComponentType type, final long compressedSize, final long size,
+                                        final long nanos) {
+                events.add(type);
+            }
+
+            @Override
+            public void onComponentParsed(final CapComponentType type, final long size, final long nanos,
+                                          final Throwable failure) {
+                parsed.add(type);
+            }
+
+            @Override
+            public void onDecodeEnd(final Path path, final long nanos, final Throwable failure) {
+            }
+        }));
+        final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<Runnable>());
+
+        /* parsing is deferred to executor */
+        final CountDownLatch queued = new CountDownLatch(1);
+        final CompletableFuture<Cap> future = decoder.decodeAsync(path, queueing(tasks, queued));
+        Assert.assertTrue(queued.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(future.isDone());
+        tasks.remove(0).run();
+        final Cap cap = future.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(cap.getApplet().getApplets().get(0).getInstallMethodOffset(), 1121);
+        Assert.assertEquals(events, Arrays.<Object>asList(path, CapComponentType.HEADER,
+                CapComponentType.DIRECTORY, CapComponentType.APPLET));
+        Assert.assertEquals(cap.getHeader().getPackage().getAid(),
+                decoder.decode(path).getHeader().getPackage().getAid());
+
+        /* in-memory decode keeps path, whether or not buffer is backed by an array */
+        final byte[] content = Files.readAllBytes(path);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(content.length);
+        direct.put(content);
+        direct.flip();
+        for (final ByteBuffer archive : Arrays.asList(ByteBuffer.wrap(content), direct)) {
+            events.clear();
+            final Cap decoded = decoder.decode(archive, path);
+            Assert.assertEquals(events.get(0), path);
+            Assert.assertEquals(decoded.getDirectory().getComponentSizes(),
+                    cap.getDirectory().getComponentSizes());
+            Assert.assertEquals(archive.position(), 0);
+        }
+        Assert.expectThrows(CapFormatException.class, new Assert.ThrowingRunnable() {
+            @Override
+            public void run() throws Throwable {
+                decoder.decode(ByteBuffer.wrap(content, 0, content.length - 1), path);
+            }
+        });
+
+        /* decode cancelled once its parsing is queued is never parsed */
+        events.clear();
+        parsed.clear();
+        final CountDownLatch cancelledQueued = new CountDownLatch(1);
+        final CompletableFuture<Cap> cancelled = decoder.decodeAsync(path, queueing(tasks, cancelledQueued));
+        Assert.assertTrue(cancelledQueued.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(cancelled.cancel(true));
+        Assert.assertEquals(tasks.size(), 1);
+        tasks.remove(0).run();
+        Assert.assertTrue(events.isEmpty(), events.toString());
+        Assert.assertTrue(parsed.isEmpty(), parsed.toString());
+
+        final CompletableFuture<Cap> missing = decoder.decodeAsync(Paths.get("missing.cap"),
+                queueing(tasks, new CountDownLatch(1)));
+        final ExecutionException ex = Assert.expectThrows(ExecutionException.class, new Assert.ThrowingRunnable() {
+            @Override
+            public void run() throws Throwable {
+                missing.get(10, TimeUnit.SECONDS);
+            }
+        });
+        Assert.assertTrue(ex.getCause() instanceof CapException);
+    }
+
+    /**
+     * Executor queueing tasks instead of running them
+     */
+    private static Executor queueing(final List<Runnable> tasks, final CountDownLatch queued) {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+                queued.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void testDecoderListener() throws CapException {
+        final Path path = Paths.get("src/test/resources/ykneo-oath-1.0.0.cap");
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final CapDecoderListener listener = new CapDecoderListener() {
+            @Override
+            public void onDecodeStart(final Path path) {
+                events.add("start");
+            }
+
+            @Override
+            public void onComponentRead(final CapComponentType type, final long compressedSize, final long size,
+                                        final long nanos) {
+                Assert.assertTrue((size > 0) && (nanos >= 0));
+                events.add("read " + type);
+            }
+
+            @Override
+            public void onComponentParsed(final CapComponentType type, final long size, final long nanos,
+                                          final Throwable failure) {
+                Assert.assertNull(failure);
+                events.add("parsed " + type);
+            }
+
+            @Override
+            public void onDecodeEnd(final Path path, final long nanos, final Throwable failure) {
+                Assert.assertNull(failure);
+                events.add("end");
+            }
+        };
+
+        final CapDecodeOptions options = new CapDecodeOptions().setListener(listener);
+        new CapDecoderImpl(options).decode(path);
+        Assert.assertEquals(events.get(0), "start");
+        Assert.assertEquals(events.get(events.size() - 1), "end");
+        Assert.assertTrue(events.containsAll(Arrays.asList("read HEADER", "read DIRECTORY", "read APPLET",
+                "parsed HEADER", "parsed DIRECTORY", "parsed APPLET")));
+        Assert.assertEquals(events.size(), 8);
+
+        /* lazily decoded components are reported on first access */
+        events.clear();
+        final Cap cap = new CapDecoderImpl(options.setLazy(true)).decode(path);
+        Assert.assertFalse(events.contains("parsed APPLET"));
+        cap.getApplet();
+        cap.getApplet();
+        Assert.assertEquals(Collections.frequency(events, "parsed APPLET"), 1);
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        final Path path = Paths.get("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Path dump = Files.createTempFile("cap", ".jfr");
+        final Path indexFile = Files.createTempFile("cap-index-", ".bin");
+        try (final InputStreamReader profile = new InputStreamReader(
+                CapDecoderImpl.class.getResourceAsStream("cap.jfc"), StandardCharsets.UTF_8);
+             final Recording recording = new Recording(Configuration.create(profile))) {
+            /* decoders reading archive into memory first still report its path */
+            final CapDecoderImpl decoder = new CapDecoderImpl();
+            recording.start();
+            decoder.decode(path);
+            new CapCachingDecoder(decoder, 1, 1 << 20).decode(path);
+            CapIndex.open(indexFile, decoder).get(path);
+            decoder.decodeAsync(path, new Executor() {
+                @Override
+                public void execute(final Runnable command) {
+                    command.run();
+                }
+            }).get(10, TimeUnit.SECONDS);
+            recording.stop();
+            recording.dump(dump);
+
+            final List<String> events = new ArrayList<>();
+            for (final RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+                final String name = event.getEventType().getName();
+                if (name.startsWith("com.github.edipermadi.smartcard.")) {
+                    Assert.assertEquals(event.getString("path"), path.toString());
+                    events.add(name);
+                    if (name.equals("com.github.edipermadi.smartcard.Decode")) {
+                        Assert.assertEquals(event.getLong("archiveSize"), Files.size(path));
+                        Assert.assertTrue(event.getLong("compressedSize") > 0);
+                        Assert.assertTrue(event.getLong("compressedSize") < event.getLong("archiveSize"));
+                        Assert.assertTrue(event.getLong("size") > 0);
+                    }
+                }
+            }
+            Assert.assertEquals(Collections.frequency(events, "com.github.edipermadi.smartcard.Decode"), 4);
+            Assert.assertEquals(Collections.frequency(events, "com.github.edipermadi.smartcard.ComponentRead"), 12);
+            Assert.assertEquals(Collections.frequency(events, "com.github.edipermadi.smartcard.ComponentParse"), 12);
+        } finally {
+            Files.delete(dump);
+            Files.delete(indexFile);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testLegacyImplementations() throws CapException {
+        /* implementations written against the original interfaces, with hex string AIDs, keep working */
+        final CapDecoderImpl delegate = new CapDecoderImpl();
+        final CapDecoder decoder = new CapDecoder() {
+            @Override
+            public Cap decode(final InputStream stream) throws CapException {
+                final Cap cap = delegate.decode(stream);
+                return new Cap() {
+                    @Override
+                    public Header getHeader() {
+                        return new Header() {
+                            @Override
+                            public int getVersion() {
+                                return cap.getHeader().getVersion();
+                            }
+
+                            @Override
+                            public int getFlags() {
+                                return cap.getHeader().getFlags();
+                            }
+
+                            @Override
+                            public PackageInfo getPackage() {
+                                return new PackageInfo() {
+                                    @Override
+                                    public int getVersion() {
+                                        return cap.getHeader().getPackage().getVersion();
+                                    }
+
+                                    @Override
+                                    public String getAID() {
+                                        return "a0000005272101";
+                                    }
+                                };
+                            }
+
+                            @Override
+                            public PackageNameInfo getPackageName() {
+                                return null;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public Directory getDirectory() {
+                        return new Directory() {
+                            @Override
+                            public List<Integer> getComponentSizes() {
+                                return cap.getDirectory().getComponentSizes();
+                            }
+
+                            @Override
+                            public StaticFieldSizeInfo getStaticFieldSize() {
+                                return cap.getDirectory().getStaticFieldSize();
+                            }
+
+                            @Override
+                            public int getImportCount() {
+                                return cap.getDirectory().getImportCount();
+                            }
+
+                            @Override
+                            public int getAppletCount() {
+                                return cap.getDirectory().getAppletCount();
+                            }
+
+                            @Override
+                            public List<CustomComponentInfo> getCustomComponents() {
+                                return Collections.<CustomComponentInfo>singletonList(new CustomComponentInfo() {
+                                    @Override
+                                    public int getTag() {
+                                        return 0x80;
+                                    }
+
+                                    @Override
+                                    public String getAID() {
+                                        return "a00000052780";
+                                    }
+                                });
+                            }
+                        };
+                    }
+
+                    @Override
+                    public Applet getApplet() {
+                        return new Applet() {
+                            @Override
+                            public List<Info> getApplets() {
+                                return Collections.<Info>singletonList(new Info() {
+                                    @Override
+                                    public String getAID() {
+                                        return "a000000527210101";
+                                    }
+
+                                    @Override
+                                    public int getInstallMethodOffset() {
+                                        return 1121;
+                                    }
+                                });
+                            }
+                        };
+                    }
+                };
+            }
+        };
+
+        final Cap cap = decoder.decode(Paths.get("src/test/resources/ykneo-oath-1.0.0.cap"));
+        Assert.assertEquals(cap.getHeader().getPackage().getAid(), Aid.fromHex("a0000005272101"));
+        Assert.assertEquals(cap.getApplet().getApplets().get(0).getAid(), Aid.fromHex("a000000527210101"));
+        final Cap.Directory.CustomComponentInfo customInfo = cap.getDirectory().getCustomComponents().get(0);
+        Assert.assertEquals(customInfo.getAid(), Aid.fromHex("a00000052780"));
+        Assert.assertEquals(customInfo.getSize(), -1);
+        Assert.assertNull(cap.getMethod());
+        Assert.assertNull(cap.getRawComponent(CapComponentType.METHOD));
+        Assert.assertNull(cap.getComponentDirectory());
+
+        /* library code only calls new accessors */
+        final CapComponentWriter writer = new CapComponentWriter(256);
+        CapBinaryCodec.write(cap, writer);
+        final Cap copy = CapBinaryCodec.read(new CapComponentReader(ByteBuffer.wrap(writer.array(), 0,
+                writer.position()).slice()));
+        Assert.assertEquals(copy.getHeader().getPackage().getAID(), "a0000005272101");
+        Assert.assertEquals(copy.getDirectory().getCustomComponents().get(0).getSize(), 0);
+        Assert.assertTrue(CapJsonWriter.toString(cap).contains("a00000052780"));
+    }
+
+    @Test
+    public void testOversizedEntryRejected() throws IOException {
+        /* declared entry size beyond u2 component size is rejected before allocation */
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (final ZipOutputStream zos = new ZipOutputStream(archive)) {
+            zos.putNextEntry(new ZipEntry("pkg/javacard/Header.cap"));
+            zos.write(new byte[0x10003]);
+            zos.closeEntry();
+        }
+
+        try {
+            new CapDecoderImpl().decode(new ByteArrayInputStream(archive.toByteArray()));
+            Assert.fail("oversized component decoded");
+        } catch (final CapException ex) {
+            Assert.assertTrue(ex instanceof CapFormatException);
+        }
+    }
 }
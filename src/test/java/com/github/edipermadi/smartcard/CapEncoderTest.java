@@ -0,0 +1,123 @@
+package com.github.edipermadi.smartcard;
+
+import com.github.edipermadi.smartcard.exc.CapEncodeException;
+import com.github.edipermadi.smartcard.exc.CapException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+public final class CapEncoderTest {
+    @Test
+    public void testRoundTrip() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final CapDecoder decoder = new CapDecoderImpl(new CapDecodeOptions()
+                .setComponents(EnumSet.allOf(CapComponentType.class))
+                .setExtraEntries(true));
+        final Cap cap = decoder.decode(file.toPath());
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new CapEncoderImpl().encode(cap, baos);
+        final Cap decoded = decoder.decode(new ByteArrayInputStream(baos.toByteArray()));
+
+        Assert.assertEquals(decoded.toString(), cap.toString());
+        for (final CapComponentType type : CapComponentType.values()) {
+            Assert.assertEquals(decoded.getRawComponent(type), cap.getRawComponent(type), type.name());
+        }
+        Assert.assertNotNull(decoded.getRawComponent(CapComponentType.METHOD));
+        Assert.assertNotNull(cap.getManifest());
+        Assert.assertEquals(decoded.getManifest(), cap.getManifest());
+
+        /* CAP 2.1 header has no package name, components stay in their original directory */
+        Assert.assertEquals(cap.getComponentDirectory(), "pkgYkneoOath/javacard/");
+        Assert.assertEquals(decoded.getComponentDirectory(), cap.getComponentDirectory());
+    }
+
+    @Test
+    public void testDefaultDecodedCapRejected() throws CapException {
+        final File file = new File("src/test/resources/ykneo-oath-1.0.0.cap");
+        final Cap cap = new CapDecoderImpl().decode(file.toPath());
+        try {
+            new CapEncoderImpl().encode(cap, new ByteArrayOutputStream());
+            Assert.fail("missing components must be rejected");
+        } catch (final CapEncodeException ex) {
+            Assert.assertTrue(ex.getMessage().contains(CapDecoderImplBase.COMPONENT_Import), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testBuiltCap() throws CapException {
+        final File file = new File("src/test/resources/minimal-2.2.cap");
+        final Cap source = new CapDecoderImpl(new CapDecodeOptions()
+                .setComponents(EnumSet.allOf(CapComponentType.class))).decode(file.toPath());
+
+        /* directory content is stale on purpose and custom component size unknown, encoder recomputes them */
+        final Aid customAid = Aid.valueOf(new byte[]{(byte) 0xa0, 0, 0, 5, 0x27, 0x7f});
+        final Cap.Directory directory = new CapDirectoryBuilder()
+                .addComponentSize(0)
+                .setStaticFieldSize(0, 0, 0)
+                .setImportCount(0)
+                .setAppletCount(0)
+                .addCustomComponent(0x80, -1, customAid)
+                .build();
+        final ByteBuffer custom = ByteBuffer.wrap(new byte[]{(byte) 0x80, 0, 2, 0x12, 0x34});
+        final Cap cap = new CapBuilder()
+                .setHeader(source.getHeader())
+                .setDirectory(directory)
+                .setRawComponent(CapComponentType.IMPORT, source.getRawComponent(CapComponentType.IMPORT))
+                .setRawComponent(CapComponentType.STATIC_FIELD, source.getRawComponent(CapComponentType.STATIC_FIELD))
+                .setRawComponent(CapComponentType.DEBUG, source.getRawComponent(CapComponentType.DEBUG))
+                .addCustomComponent("Custom.cap", custom)
+                .build();
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new CapEncoderImpl().encode(cap, baos);
+        final Cap decoded = new CapDecoderImpl(new CapDecodeOptions()
+                .setComponents(EnumSet.allOf(CapComponentType.class))
+                .setExtraEntries(true))
+                .decode(new ByteArrayInputStream(baos.toByteArray()));
+
+        /* directory grows by custom component info */
+        final List<Integer> componentSizes = new ArrayList<>(source.getDirectory().getComponentSizes());
+        componentSizes.set(CapComponentType.DIRECTORY.getTag() - 1, componentSizes.get(1) + 4 + customAid.length());
+        Assert.assertEquals(decoded.getDirectory().getComponentSizes(), componentSizes);
+        Assert.assertEquals(decoded.getDirectory().getImportCount(), 1);
+        Assert.assertEquals(decoded.getDirectory().getAppletCount(), 0);
+        Assert.assertEquals(decoded.getDirectory().getStaticFieldSize().getArrayInitSize(), 3);
+        Assert.assertEquals(decoded.getStaticField().getImageSize(), 4);
+        Assert.assertEquals(decoded.getDebug().getMethodCount(), 1);
+
+        final List<Cap.Directory.CustomComponentInfo> customInfos = decoded.getDirectory().getCustomComponents();
+        Assert.assertEquals(customInfos.size(), 1);
+        Assert.assertEquals(customInfos.get(0).getSize(), 2);
+        Assert.assertEquals(customInfos.get(0).getAid(), customAid);
+        Assert.assertEquals(decoded.getCustomComponents().get("Custom.cap"), custom);
+        Assert.assertEquals(decoded.getComponentDirectory(), "com/example/minimal/javacard/");
+    }
+
+    @Test(expectedExceptions = CapEncodeException.class)
+    public void testPackageNameTooLong() throws CapException {
+        final char[] name = new char[256];
+        Arrays.fill(name, 'a');
+        final Cap.Header header = new CapHeaderBuilder()
+                .setHeaderVersion(0x0201)
+                .setPackageInfo(0x0100, Aid.valueOf(new byte[]{(byte) 0xa0, 0, 0, 5, 0x27}))
+                .setPackageName(new String(name))
+                .build();
+        final Cap.Directory directory = new CapDirectoryBuilder()
+                .addComponentSize(0)
+                .setStaticFieldSize(0, 0, 0)
+                .setImportCount(0)
+                .setAppletCount(0)
+                .build();
+        new CapEncoderImpl().encode(new CapBuilder().setHeader(header).setDirectory(directory).build(),
+                new ByteArrayOutputStream());
+    }
+}